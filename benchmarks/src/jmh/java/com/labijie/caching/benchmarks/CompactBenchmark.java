@@ -0,0 +1,77 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.benchmarks;
+
+import com.labijie.caching.CacheItemPriority;
+import com.labijie.caching.memory.MemoryCache;
+import com.labijie.caching.memory.MemoryCacheEntryOptions;
+import com.labijie.caching.memory.MemoryCacheOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在 100 万个缓存项上执行一次 compact 的耗时，每次迭代前重新填充缓存（不计入测量）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class CompactBenchmark {
+    private static final int SIZE = 1_000_000;
+    private static final CacheItemPriority[] PRIORITIES = {
+            CacheItemPriority.Low, CacheItemPriority.Normal, CacheItemPriority.High
+    };
+
+    @Param({"0.1", "0.5"})
+    public double percentage;
+
+    private MemoryCache cache;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setCompact(false);
+        this.cache = new MemoryCache(options);
+        MemoryCacheEntryOptions[] entryOptions = new MemoryCacheEntryOptions[PRIORITIES.length];
+        for (int i = 0; i < entryOptions.length; i++) {
+            entryOptions[i] = new MemoryCacheEntryOptions();
+            entryOptions[i].setPriority(PRIORITIES[i]);
+            entryOptions[i].setAbsoluteExpirationRelativeToNow(60 * 60 * 1000L);
+        }
+        for (int i = 0; i < SIZE; i++) {
+            this.cache.set(i, Boolean.TRUE, entryOptions[i % entryOptions.length]);
+        }
+        //读一部分缓存项，使淘汰顺序不是简单的写入顺序。
+        for (int i = 0; i < SIZE; i += 7) {
+            this.cache.getOrDefault(i, null);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        this.cache.close();
+    }
+
+    @Benchmark
+    public int compact() {
+        this.cache.compact(this.percentage);
+        return this.cache.size();
+    }
+}
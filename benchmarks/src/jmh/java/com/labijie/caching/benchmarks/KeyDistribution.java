@@ -0,0 +1,78 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 基准测试使用的缓存键分布，键序列在初始化时预先生成，测量过程中不产生随机数和装箱开销。
+ */
+public enum KeyDistribution {
+    /**
+     * 均匀分布：每个键被访问的概率相同。
+     */
+    UNIFORM {
+        @Override
+        int[] generate(int population, int count, Random random) {
+            int[] keys = new int[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = random.nextInt(population);
+            }
+            return keys;
+        }
+    },
+    /**
+     * Zipf 分布（指数为 1）：少数热点键占据大部分访问，接近真实业务的缓存访问模式。
+     */
+    ZIPF {
+        @Override
+        int[] generate(int population, int count, Random random) {
+            //按累积概率逆变换采样。
+            double[] cdf = new double[population];
+            double sum = 0;
+            for (int i = 0; i < population; i++) {
+                sum += 1.0d / (i + 1);
+                cdf[i] = sum;
+            }
+            int[] keys = new int[count];
+            for (int i = 0; i < count; i++) {
+                int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+                keys[i] = Math.min(population - 1, index >= 0 ? index : -index - 1);
+            }
+            return keys;
+        }
+    };
+
+    /**
+     * 生成键序列。
+     * @param population 键的总数（键的取值范围为 0 到 population - 1）。
+     * @param count 生成的序列长度。
+     * @param random 随机数生成器。
+     * @return
+     */
+    abstract int[] generate(int population, int count, Random random);
+
+    /**
+     * 生成装箱后的键序列（测量过程中直接使用，避免装箱开销）。
+     * @param population 键的总数。
+     * @param count 生成的序列长度，必须是 2 的幂。
+     * @param seed 随机种子。
+     * @return
+     */
+    Integer[] keys(int population, int count, long seed) {
+        if (Integer.bitCount(count) != 1) {
+            throw new IllegalArgumentException("KeyDistribution.keys 参数 count 必须是 2 的幂。");
+        }
+        int[] keys = this.generate(population, count, new Random(seed));
+        Integer[] boxed = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            boxed[i] = keys[i];
+        }
+        return boxed;
+    }
+}
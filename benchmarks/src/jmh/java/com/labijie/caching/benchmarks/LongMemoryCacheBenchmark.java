@@ -0,0 +1,156 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.benchmarks;
+
+import com.labijie.caching.memory.LongMemoryCache;
+import com.labijie.caching.memory.MemoryCache;
+import com.labijie.caching.memory.MemoryCacheEntryOptions;
+import com.labijie.caching.memory.MemoryCacheOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数字 ID 作为键时 MemoryCache（键装箱为 Long）与 LongMemoryCache（基本类型开放寻址哈希表）的读写吞吐量对比。
+ * 每个缓存项的内存占用由 {@link Footprint} 测量：配合 gc 分析器，gc.alloc.rate.norm 即写入一个缓存项分配的字节数
+ * （包括哈希表扩容的分配）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+public class LongMemoryCacheBenchmark {
+    private static final int POPULATION = 1 << 16;
+    private static final int MASK = POPULATION - 1;
+
+    private MemoryCache boxed;
+    private LongMemoryCache primitive;
+    private MemoryCacheEntryOptions entryOptions;
+    private long[] ids;
+
+    //稀疏的数字 ID，避免连续的小整数命中 Long 的装箱缓存。
+    static long[] createIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = 10_000_000_000L + i * 7919L;
+        }
+        return ids;
+    }
+
+    static MemoryCacheEntryOptions createEntryOptions() {
+        MemoryCacheEntryOptions options = new MemoryCacheEntryOptions();
+        options.setAbsoluteExpirationRelativeToNow(60 * 60 * 1000L);
+        return options;
+    }
+
+    static MemoryCacheOptions createOptions() {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setCompact(false);
+        options.setTrackEntryScopes(false);
+        return options;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.boxed = new MemoryCache(createOptions());
+        this.primitive = new LongMemoryCache(createOptions());
+        this.entryOptions = createEntryOptions();
+        this.ids = createIds(POPULATION);
+        for (long id : this.ids) {
+            this.boxed.set(id, Boolean.TRUE, this.entryOptions);
+            this.primitive.set(id, Boolean.TRUE, this.entryOptions);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.boxed.close();
+        this.primitive.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int index = ThreadLocalRandom.current().nextInt();
+    }
+
+    @Benchmark
+    public Object boxedGet(ThreadState state) {
+        return this.boxed.getOrDefault(this.ids[state.index++ & MASK], null);
+    }
+
+    @Benchmark
+    public Object primitiveGet(ThreadState state) {
+        return this.primitive.getOrDefault(this.ids[state.index++ & MASK], null);
+    }
+
+    @Benchmark
+    public Object boxedSet(ThreadState state) {
+        return this.boxed.set(this.ids[state.index++ & MASK], Boolean.TRUE, this.entryOptions);
+    }
+
+    @Benchmark
+    public Object primitiveSet(ThreadState state) {
+        return this.primitive.set(this.ids[state.index++ & MASK], Boolean.TRUE, this.entryOptions);
+    }
+
+    /**
+     * 每次调用创建一个空缓存并写入 POPULATION 个缓存项，每个操作对应一个缓存项。
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    @Threads(1)
+    public static class Footprint {
+        private MemoryCacheEntryOptions entryOptions;
+        private long[] ids;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.entryOptions = createEntryOptions();
+            this.ids = createIds(POPULATION);
+        }
+
+        @Benchmark
+        @OperationsPerInvocation(POPULATION)
+        public int boxedPopulate() {
+            try (MemoryCache cache = new MemoryCache(createOptions())) {
+                for (long id : this.ids) {
+                    cache.set(id, Boolean.TRUE, this.entryOptions);
+                }
+                return cache.size();
+            }
+        }
+
+        @Benchmark
+        @OperationsPerInvocation(POPULATION)
+        public int primitivePopulate() {
+            try (LongMemoryCache cache = new LongMemoryCache(createOptions())) {
+                for (long id : this.ids) {
+                    cache.set(id, Boolean.TRUE, this.entryOptions);
+                }
+                return cache.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.benchmarks;
+
+import com.labijie.caching.memory.MemoryCache;
+import com.labijie.caching.memory.MemoryCacheEntryOptions;
+import com.labijie.caching.memory.MemoryCacheOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemoryCache 读写热路径（getOrDefault、set）的吞吐量基准测试。
+ * read 只读、write 只写、mixed 按 3:1 读写，分别在 1、8、64 个线程（Threads1、Threads8、Threads64）下运行，
+ * 键分布由 distribution 参数指定（uniform 或 zipf）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public abstract class MemoryCacheBenchmark {
+    private static final int POPULATION = 1 << 16;
+    private static final int KEY_COUNT = 1 << 20;
+    private static final int MASK = KEY_COUNT - 1;
+
+    @Param({"UNIFORM", "ZIPF"})
+    public KeyDistribution distribution;
+
+    @Param({"true", "false"})
+    public boolean bounded;
+
+    private MemoryCache cache;
+    private MemoryCacheEntryOptions entryOptions;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        //避免 GC 通知触发的 compact 干扰测量。
+        options.setCompact(false);
+        if (this.bounded) {
+            options.setMaximumSize((long) POPULATION / 2);
+        }
+        this.cache = new MemoryCache(options);
+        this.entryOptions = new MemoryCacheEntryOptions();
+        this.entryOptions.setSlidingExpirationMilliseconds(10 * 60 * 1000L);
+        this.keys = this.distribution.keys(POPULATION, KEY_COUNT, 20261018L);
+        for (int i = 0; i < POPULATION; i++) {
+            this.cache.set(i, Boolean.TRUE, this.entryOptions);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        this.cache.close();
+    }
+
+    /**
+     * 每个线程从键序列中不同的随机位置开始遍历。
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int index = ThreadLocalRandom.current().nextInt();
+    }
+
+    @Benchmark
+    public Object read(ThreadState state) {
+        return this.cache.getOrDefault(this.keys[state.index++ & MASK], null);
+    }
+
+    @Benchmark
+    public Object write(ThreadState state) {
+        return this.cache.set(this.keys[state.index++ & MASK], Boolean.TRUE, this.entryOptions);
+    }
+
+    @Benchmark
+    public Object mixed(ThreadState state) {
+        int index = state.index++;
+        Integer key = this.keys[index & MASK];
+        if ((index & 3) == 0) {
+            return this.cache.set(key, Boolean.TRUE, this.entryOptions);
+        }
+        return this.cache.getOrDefault(key, null);
+    }
+
+    @Threads(1)
+    public static class Threads1 extends MemoryCacheBenchmark {
+    }
+
+    @Threads(8)
+    public static class Threads8 extends MemoryCacheBenchmark {
+    }
+
+    @Threads(64)
+    public static class Threads64 extends MemoryCacheBenchmark {
+    }
+}
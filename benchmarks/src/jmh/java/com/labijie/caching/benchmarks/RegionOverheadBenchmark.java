@@ -0,0 +1,115 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.benchmarks;
+
+import com.labijie.caching.ICacheRegion;
+import com.labijie.caching.memory.MemoryCache;
+import com.labijie.caching.memory.MemoryCacheEntryOptions;
+import com.labijie.caching.memory.MemoryCacheManager;
+import com.labijie.caching.memory.MemoryCacheOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemoryCacheManager 区域（region）的额外开销：直接读写 MemoryCache 与通过 ICacheManager（每次解析区域名称）
+ * 和 ICacheRegion 句柄（区域名称只解析一次）读写的对比。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+public class RegionOverheadBenchmark {
+    private static final int POPULATION = 1 << 14;
+    private static final int MASK = POPULATION - 1;
+    private static final String REGION = "benchmark";
+
+    private MemoryCache cache;
+    private MemoryCacheEntryOptions entryOptions;
+    private MemoryCacheManager manager;
+    private ICacheRegion region;
+    private Integer[] cacheKeys;
+    private String[] managerKeys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setCompact(false);
+        this.cache = new MemoryCache(options);
+        this.entryOptions = new MemoryCacheEntryOptions();
+        this.entryOptions.setAbsoluteExpirationRelativeToNow(60 * 60 * 1000L);
+
+        options = new MemoryCacheOptions();
+        options.setCompact(false);
+        this.manager = new MemoryCacheManager(options);
+        this.region = this.manager.region(REGION);
+
+        this.cacheKeys = new Integer[POPULATION];
+        this.managerKeys = new String[POPULATION];
+        for (int i = 0; i < POPULATION; i++) {
+            this.cacheKeys[i] = i;
+            this.managerKeys[i] = "key" + i;
+            this.cache.set(this.cacheKeys[i], Boolean.TRUE, this.entryOptions);
+            this.manager.set(this.managerKeys[i], Boolean.TRUE, 60 * 60 * 1000L, REGION, false);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        this.cache.close();
+        this.manager.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int index = ThreadLocalRandom.current().nextInt();
+    }
+
+    @Benchmark
+    public Object cacheGet(ThreadState state) {
+        return this.cache.getOrDefault(this.cacheKeys[state.index++ & MASK], null);
+    }
+
+    @Benchmark
+    public Object managerGet(ThreadState state) {
+        return this.manager.get(this.managerKeys[state.index++ & MASK], REGION);
+    }
+
+    @Benchmark
+    public Object regionGet(ThreadState state) {
+        return this.region.get(this.managerKeys[state.index++ & MASK]);
+    }
+
+    @Benchmark
+    public Object cacheSet(ThreadState state) {
+        return this.cache.set(this.cacheKeys[state.index++ & MASK], Boolean.TRUE, this.entryOptions);
+    }
+
+    @Benchmark
+    public void managerSet(ThreadState state) {
+        this.manager.set(this.managerKeys[state.index++ & MASK], Boolean.TRUE, 60 * 60 * 1000L, REGION, false);
+    }
+
+    @Benchmark
+    public void regionSet(ThreadState state) {
+        this.region.set(this.managerKeys[state.index++ & MASK], Boolean.TRUE, 60 * 60 * 1000L, false);
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.benchmarks;
+
+import com.labijie.caching.memory.CacheEntry;
+import com.labijie.caching.memory.MemoryCache;
+import com.labijie.caching.memory.MemoryCacheEntryOptions;
+import com.labijie.caching.memory.MemoryCacheOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 缓存项作用域跟踪（MemoryCacheOptions.setTrackEntryScopes）的开销：开启和关闭时读、写和 getOrCreate 命中的对比。
+ * 配合 gc 分析器可以看到关闭后每次写入少分配的作用域对象。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ScopeTrackingBenchmark {
+    private static final int POPULATION = 1 << 14;
+    private static final int MASK = POPULATION - 1;
+
+    @Param({"true", "false"})
+    public boolean trackEntryScopes;
+
+    private MemoryCache cache;
+    private MemoryCacheEntryOptions entryOptions;
+    private Function<CacheEntry, Object> factory;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setCompact(false);
+        options.setTrackEntryScopes(this.trackEntryScopes);
+        this.cache = new MemoryCache(options);
+        this.entryOptions = new MemoryCacheEntryOptions();
+        this.entryOptions.setAbsoluteExpirationRelativeToNow(60 * 60 * 1000L);
+        this.factory = entry -> Boolean.TRUE;
+        this.keys = new Integer[POPULATION];
+        for (int i = 0; i < POPULATION; i++) {
+            this.keys[i] = i;
+            this.cache.set(this.keys[i], Boolean.TRUE, this.entryOptions);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        this.cache.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int index = ThreadLocalRandom.current().nextInt();
+    }
+
+    @Benchmark
+    public Object read(ThreadState state) {
+        return this.cache.getOrDefault(this.keys[state.index++ & MASK], null);
+    }
+
+    @Benchmark
+    public Object write(ThreadState state) {
+        return this.cache.set(this.keys[state.index++ & MASK], Boolean.TRUE, this.entryOptions);
+    }
+
+    @Benchmark
+    public Object getOrCreate(ThreadState state) {
+        return this.cache.getOrCreate(this.keys[state.index++ & MASK], this.factory);
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 缓存管理器实现批量加载时共用的工具方法。
+ */
+public final class CacheLoadUtil {
+    private CacheLoadUtil() {
+    }
+
+    /**
+     * 调用批量工厂方法创建缓存对象，只保留请求的键中值不为空的结果。
+     * @param missing 需要创建的缓存键。
+     * @param batchLoader 批量创建对象的工厂方法。
+     * @param <T> 缓存对象类型参数。
+     * @return 缓存键和新创建的缓存对象的映射。
+     */
+    public static <T> Map<String, T> loadMissing(Set<String> missing, Function<Set<String>, Map<String, T>> batchLoader) {
+        Map<String, T> loaded = batchLoader.apply(Collections.unmodifiableSet(missing));
+        Map<String, T> values = new HashMap<>(Math.max(16, missing.size() * 2));
+        if (loaded != null) {
+            for (String key : missing) {
+                T value = loaded.get(key);
+                if (value != null) {
+                    values.put(key, value);
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.Map;
+
+/**
+ * ICacheManager 的 JMX 管理接口：查看统计信息（需要启用对应 options 的 recordStats），清空区域或者整个缓存。
+ */
+public interface CacheManagerMXBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getLoadSuccessCount();
+
+    long getLoadFailureCount();
+
+    /**
+     * 获取平均每次加载的耗时（纳秒）。
+     * @return
+     */
+    double getAverageLoadPenalty();
+
+    long getEvictionCount();
+
+    /**
+     * 获取按原因（EvictionReason 名称）分类的淘汰次数。
+     * @return
+     */
+    Map<String, Long> getEvictionCounts();
+
+    /**
+     * 获取每个区域的命中率（只包含有统计记录的区域）。
+     * @return
+     */
+    Map<String, Double> getRegionHitRates();
+
+    /**
+     * 清空指定区域的缓存。
+     * @param region 区域名称，为空时表示默认区域。
+     */
+    void clearRegion(String region);
+
+    /**
+     * 清空所有缓存。
+     */
+    void clear();
+}
@@ -0,0 +1,87 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 把 ICacheManager 适配为 {@link CacheManagerMXBean}，每次读取属性都会重新获取统计快照。
+ */
+public class CacheManagerMXBeanAdapter implements CacheManagerMXBean {
+    private final ICacheManager cacheManager;
+
+    public CacheManagerMXBeanAdapter(ICacheManager cacheManager) {
+        Guard.argumentNotNull(cacheManager, "cacheManager");
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public long getHitCount() {
+        return cacheManager.getStats().getHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cacheManager.getStats().getMissCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return cacheManager.getStats().getHitRate();
+    }
+
+    @Override
+    public long getLoadSuccessCount() {
+        return cacheManager.getStats().getLoadSuccessCount();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return cacheManager.getStats().getLoadFailureCount();
+    }
+
+    @Override
+    public double getAverageLoadPenalty() {
+        return cacheManager.getStats().getAverageLoadPenalty();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cacheManager.getStats().getEvictionCount();
+    }
+
+    @Override
+    public Map<String, Long> getEvictionCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<EvictionReason, Long> kv : cacheManager.getStats().getEvictionCounts().entrySet()) {
+            counts.put(kv.getKey().name(), kv.getValue());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getRegionHitRates() {
+        Map<String, CacheStats> regions = cacheManager.getRegionStats();
+        Map<String, Double> rates = new HashMap<>(Math.max(16, regions.size() * 2));
+        for (Map.Entry<String, CacheStats> kv : regions.entrySet()) {
+            rates.put(kv.getKey(), kv.getValue().getHitRate());
+        }
+        return rates;
+    }
+
+    @Override
+    public void clearRegion(String region) {
+        cacheManager.clearRegion(region);
+    }
+
+    @Override
+    public void clear() {
+        cacheManager.clear();
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.function.Function;
+
+/**
+ * {@link ICacheRegion} 的默认实现，把操作转发给 {@link ICacheManager} 中带 region 参数的方法。
+ */
+final class CacheRegion implements ICacheRegion {
+    private final ICacheManager cacheManager;
+    private final String name;
+
+    CacheRegion(ICacheManager cacheManager, String name) {
+        Guard.argumentNotNull(cacheManager, "cacheManager");
+        this.cacheManager = cacheManager;
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public Object get(String key) {
+        return this.cacheManager.get(key, this.name);
+    }
+
+    @Override
+    public void set(String key, Object data, Long timeoutMilliseconds, boolean useSlidingExpiration) {
+        this.cacheManager.set(key, data, timeoutMilliseconds, this.name, useSlidingExpiration);
+    }
+
+    @Override
+    public void remove(String key) {
+        this.cacheManager.remove(key, this.name);
+    }
+
+    @Override
+    public boolean refresh(String key) {
+        return this.cacheManager.refresh(key, this.name);
+    }
+
+    @Override
+    public <T> T getOrSet(String key, Function<String, T> factory, Long timeoutMilliseconds, boolean useSlidingExpiration) {
+        return this.cacheManager.getOrSet(key, factory, timeoutMilliseconds, this.name, useSlidingExpiration);
+    }
+
+    @Override
+    public void clear() {
+        this.cacheManager.clearRegion(this.name);
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 缓存统计信息的不可变快照（命中、未命中、加载和按原因分类的淘汰次数）。
+ * 两个快照相减（{@link #minus(CacheStats)}）可以得到一段时间内的统计。
+ */
+public final class CacheStats {
+    private static final EvictionReason[] REASONS = EvictionReason.values();
+
+    /**
+     * 没有任何记录的统计快照（未启用统计时返回）。
+     */
+    public static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, new long[REASONS.length]);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long[] evictionCounts;
+
+    /**
+     * 创建统计快照。
+     * @param hitCount 命中次数。
+     * @param missCount 未命中次数。
+     * @param loadSuccessCount 加载成功次数。
+     * @param loadFailureCount 加载失败（抛出异常或者返回 null）次数。
+     * @param totalLoadTime 加载总耗时（纳秒）。
+     * @param evictionCounts 按淘汰原因（{@link EvictionReason#ordinal()}）记录的淘汰次数。
+     */
+    public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount, long totalLoadTime, long[] evictionCounts) {
+        if (hitCount < 0 || missCount < 0 || loadSuccessCount < 0 || loadFailureCount < 0 || totalLoadTime < 0) {
+            throw new IllegalArgumentException("CacheStats 的计数不能小于 0。");
+        }
+        if (evictionCounts == null || evictionCounts.length != REASONS.length) {
+            throw new IllegalArgumentException("CacheStats 参数 evictionCounts 的长度必须等于 EvictionReason 的数量。");
+        }
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCounts = evictionCounts.clone();
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 获取请求次数（命中次数 + 未命中次数）。
+     * @return
+     */
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * 获取命中率，没有请求时为 1。
+     * @return
+     */
+    public double getHitRate() {
+        long requestCount = this.getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * 获取未命中率，没有请求时为 0。
+     * @return
+     */
+    public double getMissRate() {
+        long requestCount = this.getRequestCount();
+        return requestCount == 0 ? 0.0 : (double) missCount / requestCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public long getLoadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    /**
+     * 获取加载总耗时（纳秒）。
+     * @return
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * 获取平均每次加载的耗时（纳秒）。
+     * @return
+     */
+    public double getAverageLoadPenalty() {
+        long loadCount = this.getLoadCount();
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    /**
+     * 获取所有原因的淘汰次数之和。
+     * @return
+     */
+    public long getEvictionCount() {
+        long count = 0;
+        for (long c : evictionCounts) {
+            count += c;
+        }
+        return count;
+    }
+
+    /**
+     * 获取指定原因的淘汰次数。
+     * @param reason 淘汰原因。
+     * @return
+     */
+    public long getEvictionCount(EvictionReason reason) {
+        Guard.argumentNotNull(reason, "reason");
+        return evictionCounts[reason.ordinal()];
+    }
+
+    /**
+     * 获取按原因分类的淘汰次数。
+     * @return
+     */
+    public Map<EvictionReason, Long> getEvictionCounts() {
+        Map<EvictionReason, Long> counts = new EnumMap<>(EvictionReason.class);
+        for (EvictionReason reason : REASONS) {
+            counts.put(reason, evictionCounts[reason.ordinal()]);
+        }
+        return counts;
+    }
+
+    /**
+     * 两个快照相加（例如汇总多个缓存的统计）。
+     * @param other
+     * @return
+     */
+    public CacheStats plus(CacheStats other) {
+        Guard.argumentNotNull(other, "other");
+        long[] counts = new long[REASONS.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = evictionCounts[i] + other.evictionCounts[i];
+        }
+        return new CacheStats(
+                hitCount + other.hitCount,
+                missCount + other.missCount,
+                loadSuccessCount + other.loadSuccessCount,
+                loadFailureCount + other.loadFailureCount,
+                totalLoadTime + other.totalLoadTime,
+                counts);
+    }
+
+    /**
+     * 两个快照相减（结果中的负数按 0 处理），用于计算两次快照之间的统计。
+     * @param other 较早的快照。
+     * @return
+     */
+    public CacheStats minus(CacheStats other) {
+        Guard.argumentNotNull(other, "other");
+        long[] counts = new long[REASONS.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = Math.max(0, evictionCounts[i] - other.evictionCounts[i]);
+        }
+        return new CacheStats(
+                Math.max(0, hitCount - other.hitCount),
+                Math.max(0, missCount - other.missCount),
+                Math.max(0, loadSuccessCount - other.loadSuccessCount),
+                Math.max(0, loadFailureCount - other.loadFailureCount),
+                Math.max(0, totalLoadTime - other.totalLoadTime),
+                counts);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", loadSuccessCount=" + loadSuccessCount +
+                ", loadFailureCount=" + loadFailureCount +
+                ", totalLoadTime=" + totalLoadTime +
+                ", evictionCounts=" + this.getEvictionCounts() +
+                '}';
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 粗粒度的缓存时钟，由后台线程按固定的精度刷新，读取时只是一次 volatile 读。
+ * 适用于读操作非常频繁、对过期精度要求不高（毫秒级误差）的场景，不再使用时应调用 close 停止刷新。
+ */
+public final class CoarseTicker implements Ticker, AutoCloseable {
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "labijie-caching-coarse-ticker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Ticker source;
+    private final ScheduledFuture<?> refreshTask;
+    private volatile long ticks;
+
+    /**
+     * 使用 System.nanoTime 创建粗粒度时钟。
+     * @param resolutionMilliseconds 时钟刷新的间隔（单位：毫秒）。
+     */
+    public CoarseTicker(long resolutionMilliseconds) {
+        this(Ticker.SYSTEM, resolutionMilliseconds);
+    }
+
+    /**
+     * 创建粗粒度时钟。
+     * @param source 实际读取时间的时钟。
+     * @param resolutionMilliseconds 时钟刷新的间隔（单位：毫秒）。
+     */
+    public CoarseTicker(Ticker source, long resolutionMilliseconds) {
+        Guard.argumentNotNull(source, "source");
+        if (resolutionMilliseconds <= 0) {
+            throw new IllegalArgumentException("CoarseTicker 参数 resolutionMilliseconds 必须大于 0。");
+        }
+        this.source = source;
+        this.ticks = source.read();
+        this.refreshTask = timer.scheduleAtFixedRate(() -> this.ticks = this.source.read(),
+                resolutionMilliseconds, resolutionMilliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long read() {
+        return this.ticks;
+    }
+
+    @Override
+    public void close() {
+        this.refreshTask.cancel(false);
+    }
+}
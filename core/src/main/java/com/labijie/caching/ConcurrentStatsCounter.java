@@ -0,0 +1,109 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 LongAdder 的统计计数器，并发记录时不会在同一个计数上竞争。
+ * 每次记录只更新所属区域的计数（region 为空时更新默认计数），总数在获取快照时汇总。
+ */
+public final class ConcurrentStatsCounter implements StatsCounter {
+    private static final int REASON_COUNT = EvictionReason.values().length;
+
+    private final Counters defaultCounters = new Counters();
+    private final ConcurrentHashMap<String, Counters> regions = new ConcurrentHashMap<>();
+
+    private Counters counters(String region) {
+        if (region == null) {
+            return this.defaultCounters;
+        }
+        Counters counters = this.regions.get(region);
+        return counters != null ? counters : this.regions.computeIfAbsent(region, r -> new Counters());
+    }
+
+    @Override
+    public void recordHits(String region, int count) {
+        this.counters(region).hits.add(count);
+    }
+
+    @Override
+    public void recordMisses(String region, int count) {
+        this.counters(region).misses.add(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(String region, long loadTime) {
+        Counters counters = this.counters(region);
+        counters.loadSuccess.increment();
+        counters.totalLoadTime.add(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(String region, long loadTime) {
+        Counters counters = this.counters(region);
+        counters.loadFailure.increment();
+        counters.totalLoadTime.add(loadTime);
+    }
+
+    @Override
+    public void recordEviction(String region, EvictionReason reason) {
+        if (reason != null) {
+            this.counters(region).evictions[reason.ordinal()].increment();
+        }
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        CacheStats stats = this.defaultCounters.snapshot();
+        for (Counters counters : this.regions.values()) {
+            stats = stats.plus(counters.snapshot());
+        }
+        return stats;
+    }
+
+    @Override
+    public Map<String, CacheStats> regionSnapshots() {
+        Map<String, CacheStats> snapshots = new HashMap<>(Math.max(16, this.regions.size() * 2));
+        for (Map.Entry<String, Counters> kv : this.regions.entrySet()) {
+            snapshots.put(kv.getKey(), kv.getValue().snapshot());
+        }
+        return snapshots;
+    }
+
+    private static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder loadSuccess = new LongAdder();
+        final LongAdder loadFailure = new LongAdder();
+        final LongAdder totalLoadTime = new LongAdder();
+        final LongAdder[] evictions = new LongAdder[REASON_COUNT];
+
+        Counters() {
+            for (int i = 0; i < REASON_COUNT; i++) {
+                this.evictions[i] = new LongAdder();
+            }
+        }
+
+        CacheStats snapshot() {
+            long[] counts = new long[REASON_COUNT];
+            for (int i = 0; i < REASON_COUNT; i++) {
+                counts[i] = this.evictions[i].sum();
+            }
+            return new CacheStats(
+                    this.hits.sum(),
+                    this.misses.sum(),
+                    this.loadSuccess.sum(),
+                    this.loadFailure.sum(),
+                    this.totalLoadTime.sum(),
+                    counts);
+        }
+    }
+}
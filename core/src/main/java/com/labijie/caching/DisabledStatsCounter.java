@@ -0,0 +1,53 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 未启用统计时使用的空计数器。
+ */
+enum DisabledStatsCounter implements StatsCounter {
+    INSTANCE;
+
+    @Override
+    public void recordHits(String region, int count) {
+    }
+
+    @Override
+    public void recordMisses(String region, int count) {
+    }
+
+    @Override
+    public void recordLoadSuccess(String region, long loadTime) {
+    }
+
+    @Override
+    public void recordLoadFailure(String region, long loadTime) {
+    }
+
+    @Override
+    public void recordEviction(String region, EvictionReason reason) {
+    }
+
+    @Override
+    public <T> T recordLoad(String region, Supplier<T> loader) {
+        return loader.get();
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return CacheStats.EMPTY;
+    }
+
+    @Override
+    public Map<String, CacheStats> regionSnapshots() {
+        return Collections.emptyMap();
+    }
+}
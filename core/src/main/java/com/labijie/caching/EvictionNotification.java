@@ -0,0 +1,57 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+/**
+ * 缓存项被淘汰的通知，由 {@link IBulkEvictionListener} 批量接收。
+ */
+public final class EvictionNotification {
+    private final Object key;
+    private final String region;
+    private final Object value;
+    private final EvictionReason reason;
+
+    public EvictionNotification(Object key, String region, Object value, EvictionReason reason) {
+        this.key = key;
+        this.region = region;
+        this.value = value;
+        this.reason = reason;
+    }
+
+    /**
+     * 获取缓存键（通过 MemoryCacheManager 写入的缓存项为不包含区域名称的缓存键）。
+     * @return
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * 获取缓存项所属的区域，直接使用 MemoryCache 写入的缓存项为 null。
+     * @return
+     */
+    public String getRegion() {
+        return region;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public EvictionReason getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "EvictionNotification{" +
+                "key=" + key +
+                ", region=" + region +
+                ", reason=" + reason +
+                '}';
+    }
+}
@@ -40,4 +40,9 @@ public enum EvictionReason {
      * 内存回收
      */
     Capacity,
+
+    /**
+     * 软引用或弱引用的值被 GC 回收（MemoryCacheOptions.setValueStrength）。
+     */
+    Collected,
 }
@@ -0,0 +1,23 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.List;
+
+/**
+ * 批量接收缓存淘汰通知的监听器（MemoryCacheOptions.setBulkEvictionListener）。
+ * 通知由缓存的淘汰通知线程按淘汰顺序分批投递，同一个缓存键的通知保持先后顺序；
+ * 监听器不应长时间阻塞，否则淘汰通知队列会积压（队列满时按配置阻塞淘汰线程或丢弃通知）。
+ */
+@FunctionalInterface
+public interface IBulkEvictionListener {
+    /**
+     * 接收一批淘汰通知。
+     * @param notifications 淘汰通知，监听器返回后列表不再有效（不要保存列表本身）。
+     */
+    void onEvicted(List<EvictionNotification> notifications);
+}
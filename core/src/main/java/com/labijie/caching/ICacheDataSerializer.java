@@ -0,0 +1,15 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2018-11-21
+ */
+package com.labijie.caching;
+
+/**
+ * 缓存数据序列化接口，用于把缓存对象转换为字符串后保存到缓存进程以外的存储中（例如 Redis、堆外内存）。
+ */
+public interface ICacheDataSerializer {
+    <T> T deserializeData(Class<T> type, String data, boolean gzipCompress);
+    String serializeData(Object data, boolean gzipCompress);
+}
@@ -6,6 +6,14 @@
  */
 package com.labijie.caching;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
 /**
@@ -58,6 +66,22 @@ public interface ICacheManager
      */
     void clear();
 
+    /**
+     * 获取所有区域汇总的缓存统计快照，未启用统计或者实现不支持统计时返回 {@link CacheStats#EMPTY}。
+     * @return
+     */
+    default CacheStats getStats() {
+        return CacheStats.EMPTY;
+    }
+
+    /**
+     * 获取每个缓存区域的统计快照，未启用统计或者实现不支持统计时返回空集合。
+     * @return 区域名称到统计快照的映射。
+     */
+    default Map<String, CacheStats> getRegionStats() {
+        return Collections.emptyMap();
+    }
+
     /**
      * 如果缓存中存在指定键的缓存项则从缓存中获取该项，如果不存在，使用指定的工厂方法创建并加入到缓存。
      * @param key 要获取的缓存键。
@@ -83,6 +107,23 @@ public interface ICacheManager
         return (T) data;
     }
 
+    /**
+     * 如果缓存中存在指定键的缓存项则从缓存中获取该项，如果不存在，使用指定的工厂方法创建并加入到缓存。
+     * 缓存项写入超过 refreshAfterWriteMilliseconds 后，读取会立即返回当前的值，并在后台调用一次工厂方法替换缓存项，
+     * 避免热点缓存过期时调用方等待重新加载（默认实现不支持后台刷新，等同于不带该参数的 getOrSet）。
+     * @param key 要获取的缓存键。
+     * @param factory 当键不存在或需要刷新时用于创建对象的工厂方法。
+     * @param timeoutMilliseconds 当发生添加缓存项时用于设置缓存项的过期时间。
+     * @param region 要从中获取缓存的缓存区域。
+     * @param useSlidingExpiration 是否使用滑动过期时间。
+     * @param refreshAfterWriteMilliseconds 写入后刷新的间隔（毫秒），为空表示不刷新，应该小于过期时间。
+     * @param <T> 缓存对象类型参数。
+     * @return 从缓存中获取到的或新创建的缓存。
+     */
+    default <T> T getOrSet(String key, Function<String, T> factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration, Long refreshAfterWriteMilliseconds) {
+        return getOrSet(key, factory, timeoutMilliseconds, region, useSlidingExpiration);
+    }
+
     /**
      * 如果缓存中存在指定键的缓存项则从缓存中获取该项，如果不存在，使用指定的工厂方法创建并加入到缓存。
      * @param key 要获取的缓存键。
@@ -146,4 +187,253 @@ public interface ICacheManager
     default boolean refresh(String key){
         return refresh(key, null);
     }
+
+    /**
+     * 获取绑定到指定缓存区域的操作句柄（默认实现把操作转发给带 region 参数的方法）。
+     * @param region 缓存区域（可以为空或空串）。
+     * @return 缓存区域句柄。
+     */
+    default ICacheRegion region(String region) {
+        return new CacheRegion(this, region);
+    }
+
+    /**
+     * 批量获取缓存实例（默认实现逐个调用 get）。
+     * @param keys 缓存键集合。
+     * @param region 缓存区域（可以为空或空串）。
+     * @return 缓存键和缓存实例的映射，只包含缓存中存在的键。
+     */
+    default Map<String, Object> getAll(Collection<String> keys, String region) {
+        Guard.argumentNotNull(keys, "keys");
+        Map<String, Object> result = new HashMap<>(Math.max(16, keys.size() * 2));
+        for (String key : keys) {
+            Object data = get(key, region);
+            if (data != null) {
+                result.put(key, data);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量获取缓存实例（默认实现逐个调用 get）。
+     * @param keys 缓存键集合。
+     * @return 缓存键和缓存实例的映射，只包含缓存中存在的键。
+     */
+    default Map<String, Object> getAll(Collection<String> keys) {
+        return getAll(keys, null);
+    }
+
+    /**
+     * 批量将对象添加到缓存，已存在的缓存对象会被更新（默认实现逐个调用 set）。
+     * @param data 缓存键和要添加到缓存的对象的映射，值为空的键会从缓存中移除。
+     * @param timeoutMilliseconds 缓存过期时间， 为空表示永不过期（单位：毫秒）。
+     * @param region 缓存区域。
+     * @param useSlidingExpiration 指示是否使用滑动时间（每次使用会刷新过期时间）过期策略。
+     */
+    default void setAll(Map<String, ?> data, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        Guard.argumentNotNull(data, "data");
+        for (Map.Entry<String, ?> kv : data.entrySet()) {
+            set(kv.getKey(), kv.getValue(), timeoutMilliseconds, region, useSlidingExpiration);
+        }
+    }
+
+    /**
+     * 批量将对象添加到缓存，已存在的缓存对象会被更新（默认实现逐个调用 set）。
+     * @param data 缓存键和要添加到缓存的对象的映射，值为空的键会从缓存中移除。
+     * @param timeoutMilliseconds 缓存过期时间， 为空表示永不过期（单位：毫秒）。
+     * @param useSlidingExpiration 指示是否使用滑动时间（每次使用会刷新过期时间）过期策略。
+     */
+    default void setAll(Map<String, ?> data, Long timeoutMilliseconds, boolean useSlidingExpiration) {
+        setAll(data, timeoutMilliseconds, null, useSlidingExpiration);
+    }
+
+    /**
+     * 批量从缓存中移除缓存实例（默认实现逐个调用 remove）。
+     * @param keys 要移除的缓存实例的键集合。
+     * @param region 缓存区域。
+     */
+    default void removeAll(Collection<String> keys, String region) {
+        Guard.argumentNotNull(keys, "keys");
+        for (String key : keys) {
+            remove(key, region);
+        }
+    }
+
+    /**
+     * 批量从缓存中移除缓存实例（默认实现逐个调用 remove）。
+     * @param keys 要移除的缓存实例的键集合。
+     */
+    default void removeAll(Collection<String> keys) {
+        removeAll(keys, null);
+    }
+
+    /**
+     * 批量获取缓存项，缓存中不存在的键通过一次 batchLoader 调用创建并批量加入到缓存。
+     * @param keys 要获取的缓存键集合。
+     * @param batchLoader 批量创建对象的工厂方法，参数为缓存中不存在的键，返回的映射中不包含的键表示无法创建。
+     * @param timeoutMilliseconds 当发生添加缓存项时用于设置缓存项的过期时间。
+     * @param region 要从中获取缓存的缓存区域。
+     * @param useSlidingExpiration 是否使用滑动过期时间。
+     * @param <T> 缓存对象类型参数。
+     * @return 缓存键和缓存对象的映射，不包含缓存中不存在且无法创建的键。
+     */
+    @SuppressWarnings("unchecked")
+    default <T> Map<String, T> getAllOrSet(Collection<String> keys, Function<Set<String>, Map<String, T>> batchLoader, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        if (batchLoader == null) {
+            throw new IllegalArgumentException("ICacheManager.getAllOrSet 参数 batchLoader 不能为空。");
+        }
+        Map<String, T> result = new HashMap<>((Map<String, T>) (Map<String, ?>) getAll(keys, region));
+        Set<String> missing = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (!result.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, T> values = CacheLoadUtil.loadMissing(missing, batchLoader);
+            if (!values.isEmpty()) {
+                setAll(values, timeoutMilliseconds, region, useSlidingExpiration);
+                result.putAll(values);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量获取缓存项，缓存中不存在的键通过一次 batchLoader 调用创建并批量加入到缓存。
+     * @param keys 要获取的缓存键集合。
+     * @param batchLoader 批量创建对象的工厂方法，参数为缓存中不存在的键，返回的映射中不包含的键表示无法创建。
+     * @param timeoutMilliseconds 当发生添加缓存项时用于设置缓存项的过期时间。
+     * @param useSlidingExpiration 是否使用滑动过期时间。
+     * @param <T> 缓存对象类型参数。
+     * @return 缓存键和缓存对象的映射，不包含缓存中不存在且无法创建的键。
+     */
+    default <T> Map<String, T> getAllOrSet(Collection<String> keys, Function<Set<String>, Map<String, T>> batchLoader, Long timeoutMilliseconds, boolean useSlidingExpiration) {
+        return getAllOrSet(keys, batchLoader, timeoutMilliseconds, null, useSlidingExpiration);
+    }
+
+    /**
+     * 异步获取指定缓存键的缓存实例（默认实现在调用线程上同步完成）。
+     * @param key 缓存键。
+     * @param region 缓存区域（可以为空或空串）。
+     * @return 缓存键对应的缓存实例。结果为空表示缓存中不存在键为 key 的对象。
+     */
+    default CompletableFuture<Object> getAsync(String key, String region) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            future.complete(get(key, region));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 异步获取指定缓存键的缓存实例（默认实现在调用线程上同步完成）。
+     * @param key 缓存键。
+     * @return 缓存键对应的缓存实例。结果为空表示缓存中不存在键为 key 的对象。
+     */
+    default CompletableFuture<Object> getAsync(String key) {
+        return getAsync(key, null);
+    }
+
+    /**
+     * 异步将对象以指定的缓键添加到缓存（默认实现在调用线程上同步完成）。
+     * @param key 缓存键。
+     * @param data 要添加到缓存的对象。
+     * @param timeoutMilliseconds  缓存过期时间， 为空表示永不过期（单位：毫秒）。
+     * @param region 缓存区域。
+     * @param useSlidingExpiration 指示是否使用滑动时间（每次使用会刷新过期时间）过期策略。
+     * @return
+     */
+    default CompletableFuture<Void> setAsync(String key, Object data, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            set(key, data, timeoutMilliseconds, region, useSlidingExpiration);
+            future.complete(null);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 异步将对象以指定的缓键添加到缓存（默认实现在调用线程上同步完成）。
+     * @param key 缓存键。
+     * @param data 要添加到缓存的对象。
+     * @param timeoutMilliseconds  缓存过期时间， 为空表示永不过期（单位：毫秒）。
+     * @param useSlidingExpiration 指示是否使用滑动时间（每次使用会刷新过期时间）过期策略。
+     * @return
+     */
+    default CompletableFuture<Void> setAsync(String key, Object data, Long timeoutMilliseconds, boolean useSlidingExpiration) {
+        return setAsync(key, data, timeoutMilliseconds, null, useSlidingExpiration);
+    }
+
+    /**
+     * 异步从缓存中移除指定键的缓存实例（默认实现在调用线程上同步完成）。
+     * @param key 要移除的缓存实例的键值。
+     * @param region 缓存区域。
+     * @return
+     */
+    default CompletableFuture<Void> removeAsync(String key, String region) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            remove(key, region);
+            future.complete(null);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 异步从缓存中移除指定键的缓存实例（默认实现在调用线程上同步完成）。
+     * @param key 要移除的缓存实例的键值。
+     * @return
+     */
+    default CompletableFuture<Void> removeAsync(String key) {
+        return removeAsync(key, null);
+    }
+
+    /**
+     * 异步获取缓存项，如果不存在，使用指定的异步工厂方法创建并加入到缓存。
+     * @param key 要获取的缓存键。
+     * @param factory 当键不存在时用于创建对象的异步工厂方法。
+     * @param timeoutMilliseconds 当发生添加缓存项时用于设置缓存项的过期时间。
+     * @param region 要从中获取缓存的缓存区域。
+     * @param useSlidingExpiration 是否使用滑动过期时间。
+     * @param <T> 缓存对象类型参数。
+     * @return 从缓存中获取到的或新创建的缓存。
+     */
+    @SuppressWarnings("unchecked")
+    default <T> CompletableFuture<T> getOrSetAsync(String key, Function<String, CompletionStage<T>> factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        if (factory == null) {
+            throw new IllegalArgumentException("ICacheManager.getOrSetAsync 参数 factory 不能为空。");
+        }
+        return getAsync(key, region).thenCompose(data -> {
+            if (data != null) {
+                return CompletableFuture.completedFuture((T) data);
+            }
+            return factory.apply(key).thenCompose(value -> {
+                if (value == null) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                return setAsync(key, value, timeoutMilliseconds, region, useSlidingExpiration).thenApply(v -> value);
+            });
+        });
+    }
+
+    /**
+     * 异步获取缓存项，如果不存在，使用指定的异步工厂方法创建并加入到缓存。
+     * @param key 要获取的缓存键。
+     * @param factory 当键不存在时用于创建对象的异步工厂方法。
+     * @param timeoutMilliseconds 当发生添加缓存项时用于设置缓存项的过期时间。
+     * @param useSlidingExpiration 是否使用滑动过期时间。
+     * @param <T> 缓存对象类型参数。
+     * @return 从缓存中获取到的或新创建的缓存。
+     */
+    default <T> CompletableFuture<T> getOrSetAsync(String key, Function<String, CompletionStage<T>> factory, Long timeoutMilliseconds, boolean useSlidingExpiration) {
+        return getOrSetAsync(key, factory, timeoutMilliseconds, null, useSlidingExpiration);
+    }
 }
@@ -0,0 +1,67 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.function.Function;
+
+/**
+ * 绑定到一个缓存区域的缓存操作句柄，区域名称在创建句柄时解析一次，适合在同一区域上频繁读写时保存复用。
+ * 通过 {@link ICacheManager#region(String)} 获取。
+ */
+public interface ICacheRegion {
+
+    /**
+     * 获取区域名称。
+     * @return
+     */
+    String getName();
+
+    /**
+     * 根据指定的缓存键获取缓存实例。
+     * @param key 缓存键。
+     * @return 缓存键对应的缓存实例。为空表示缓存中不存在键为 key 的对象。
+     */
+    Object get(String key);
+
+    /**
+     *  将对象以指定的缓键添加到缓存, 如果已存在键为 key 的缓存对象 ，则更新此对象。
+     * @param key 缓存键。
+     * @param data 要添加到缓存的对象。
+     * @param timeoutMilliseconds  缓存过期时间， 为空表示永不过期（单位：毫秒）。
+     * @param useSlidingExpiration 指示是否使用滑动时间（每次使用会刷新过期时间）过期策略。
+     */
+    void set(String key, Object data, Long timeoutMilliseconds, boolean useSlidingExpiration);
+
+    /**
+     *  从缓存中移除指定键的缓存实例。
+     * @param key 要移除的缓存实例的键值。
+     */
+    void remove(String key);
+
+    /**
+     * 表示对滑动过期时间的缓存重新计时（绝对过期时间该操作无效）。
+     * @param key 要刷新的缓存实例的键值。
+     * @return 返回一个布尔值，指示是否缓存对象被刷新。
+     */
+    boolean refresh(String key);
+
+    /**
+     * 如果缓存中存在指定键的缓存项则从缓存中获取该项，如果不存在，使用指定的工厂方法创建并加入到缓存。
+     * @param key 要获取的缓存键。
+     * @param factory 当键不存在时用于创建对象的工厂方法。
+     * @param timeoutMilliseconds 当发生添加缓存项时用于设置缓存项的过期时间。
+     * @param useSlidingExpiration 是否使用滑动过期时间。
+     * @param <T> 缓存对象类型参数。
+     * @return 从缓存中获取到的或新创建的缓存。
+     */
+    <T> T getOrSet(String key, Function<String, T> factory, Long timeoutMilliseconds, boolean useSlidingExpiration);
+
+    /**
+     * 清空该区域的缓存。
+     */
+    void clear();
+}
@@ -0,0 +1,79 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 向平台 MBeanServer 注册和注销缓存 MBean 的工具类，ObjectName 为 com.labijie.caching:type=类型,name=名称。
+ */
+public final class JmxUtil {
+    public static final String DOMAIN = "com.labijie.caching";
+
+    private static final ConcurrentMap<String, AtomicInteger> sequences = new ConcurrentHashMap<>();
+
+    private JmxUtil() {
+    }
+
+    /**
+     * 生成同一类型内不重复的默认名称（类型名称-序号）。
+     * @param type MBean 类型。
+     * @return
+     */
+    public static String nextName(String type) {
+        Guard.argumentNotNullOrEmptyString(type, "type");
+        return type + "-" + sequences.computeIfAbsent(type, t -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * 注册 MBean。
+     * @param type MBean 类型，例如 MemoryCache。
+     * @param name MBean 名称，同一类型内不能重复。
+     * @param bean 实现了 MXBean 接口的对象。
+     * @return 注册使用的 ObjectName，注销时使用。
+     */
+    public static ObjectName register(String type, String name, Object bean) {
+        Guard.argumentNotNullOrEmptyString(type, "type");
+        Guard.argumentNotNullOrEmptyString(name, "name");
+        Guard.argumentNotNull(bean, "bean");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + ObjectName.quote(type) + ",name=" + ObjectName.quote(name));
+            server.registerMBean(bean, objectName);
+            return objectName;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalArgumentException(String.format("名称为 %s 的 %s MBean 已经存在，请使用不同的名称。", name, type), e);
+        } catch (JMException e) {
+            throw new IllegalStateException(String.format("注册 %s MBean（%s）失败。", type, name), e);
+        }
+    }
+
+    /**
+     * 注销 MBean，objectName 为 null 或者已经注销时忽略。
+     * @param objectName 注册时返回的 ObjectName。
+     */
+    public static void unregister(ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+            //已经注销。
+        } catch (JMException e) {
+            throw new IllegalStateException(String.format("注销 MBean（%s）失败。", objectName), e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 按键合并并发加载（single-flight）：同一个键同一时间只有一个线程执行加载，其他线程等待并共享该次加载的结果。
+ * 加载抛出的异常会传递给所有等待的线程，但不会被缓存，下一次调用会重新加载。
+ * 该类只在当前 JVM 内去重。
+ * @param <K> 键的类型。
+ */
+public final class SingleFlight<K> {
+
+    private final ConcurrentHashMap<K, Call> calls = new ConcurrentHashMap<>();
+
+    /**
+     * 执行加载，如果同一个键已经有正在进行的加载，则等待并返回该次加载的结果。
+     * @param key 加载的键。
+     * @param loader 加载函数。
+     * @param <T> 加载结果的类型。
+     * @return 加载结果。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(K key, Supplier<T> loader) {
+        Guard.argumentNotNull(key, "key");
+        Guard.argumentNotNull(loader, "loader");
+
+        Call call = new Call(Thread.currentThread());
+        Call existing = this.calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return (T) existing.await();
+        }
+        try {
+            T value = loader.get();
+            call.future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.calls.remove(key, call);
+        }
+    }
+
+    /**
+     * 批量执行加载：没有正在进行加载的键由当前线程通过一次 loader 调用加载，
+     * 已经在加载中（单个或批量）的键等待并共享该次加载的结果。
+     * @param keys 加载的键集合。
+     * @param loader 批量加载函数，参数为需要当前线程加载的键，返回的映射中不包含的键视为加载结果为空。
+     * @param <T> 加载结果的类型。
+     * @return 键和加载结果的映射，不包含加载结果为空的键。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<K, T> executeAll(Collection<K> keys, Function<Set<K>, Map<K, T>> loader) {
+        Guard.argumentNotNull(keys, "keys");
+        Guard.argumentNotNull(loader, "loader");
+
+        Map<K, Call> owned = new LinkedHashMap<>();
+        Map<K, Call> waiting = new LinkedHashMap<>();
+        for (K key : keys) {
+            Guard.argumentNotNull(key, "key");
+            if (owned.containsKey(key) || waiting.containsKey(key)) {
+                continue;
+            }
+            Call call = new Call(Thread.currentThread());
+            Call existing = this.calls.putIfAbsent(key, call);
+            if (existing == null) {
+                owned.put(key, call);
+            } else {
+                waiting.put(key, existing);
+            }
+        }
+
+        Map<K, T> result = new HashMap<>(Math.max(16, (owned.size() + waiting.size()) * 2));
+        if (!owned.isEmpty()) {
+            try {
+                Map<K, T> loaded = loader.apply(Collections.unmodifiableSet(owned.keySet()));
+                for (Map.Entry<K, Call> kv : owned.entrySet()) {
+                    T value = loaded == null ? null : loaded.get(kv.getKey());
+                    kv.getValue().future.complete(value);
+                    if (value != null) {
+                        result.put(kv.getKey(), value);
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                for (Call call : owned.values()) {
+                    call.future.completeExceptionally(e);
+                }
+                throw e;
+            } finally {
+                for (Map.Entry<K, Call> kv : owned.entrySet()) {
+                    this.calls.remove(kv.getKey(), kv.getValue());
+                }
+            }
+        }
+        //先完成自己负责的加载再等待其他线程，两个批量加载互相等待对方的键时不会死锁。
+        for (Map.Entry<K, Call> kv : waiting.entrySet()) {
+            T value = (T) kv.getValue().await();
+            if (value != null) {
+                result.put(kv.getKey(), value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 异步执行加载，如果同一个键已经有正在进行的加载（同步或异步），则返回该次加载的结果。
+     * 返回的 CompletableFuture 是每个调用方独立的副本，调用方完成或取消它不会影响其他调用方。
+     * @param key 加载的键。
+     * @param loader 加载函数，返回加载结果的 CompletionStage。
+     * @param <T> 加载结果的类型。
+     * @return 加载结果。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(K key, Supplier<? extends CompletionStage<T>> loader) {
+        Guard.argumentNotNull(key, "key");
+        Guard.argumentNotNull(loader, "loader");
+
+        Call call = new Call(null);
+        Call existing = this.calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return existing.future.thenApply(v -> (T) v);
+        }
+        CompletableFuture<T> result = call.future.thenApply(v -> (T) v);
+        CompletionStage<T> stage;
+        try {
+            stage = loader.get();
+        } catch (RuntimeException | Error e) {
+            this.calls.remove(key, call);
+            call.future.completeExceptionally(e);
+            return result;
+        }
+        if (stage == null) {
+            this.calls.remove(key, call);
+            call.future.complete(null);
+            return result;
+        }
+        stage.whenComplete((value, e) -> {
+            this.calls.remove(key, call);
+            if (e != null) {
+                call.future.completeExceptionally(e);
+            } else {
+                call.future.complete(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 获取正在进行中的加载数量。
+     * @return
+     */
+    public int inFlight() {
+        return this.calls.size();
+    }
+
+    private static final class Call {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        final Thread owner;
+
+        Call(Thread owner) {
+            this.owner = owner;
+        }
+
+        Object await() {
+            if (this.owner == Thread.currentThread()) {
+                throw new IllegalStateException("SingleFlight 不支持在加载函数中递归加载同一个键。");
+            }
+            try {
+                return this.future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                while (cause instanceof CompletionException && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
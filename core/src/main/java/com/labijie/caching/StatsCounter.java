@@ -0,0 +1,87 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 缓存统计计数器，region 为空的记录只计入总数，不计入区域统计。
+ * 实现必须是线程安全的，并且不能阻塞调用线程。
+ */
+public interface StatsCounter {
+
+    /**
+     * 不记录任何统计的计数器，所有方法都是空操作。
+     */
+    StatsCounter DISABLED = DisabledStatsCounter.INSTANCE;
+
+    /**
+     * 根据是否启用统计创建计数器。
+     * @param enabled 是否启用统计。
+     * @return 启用时返回 {@link ConcurrentStatsCounter}，否则返回 {@link #DISABLED}。
+     */
+    static StatsCounter create(boolean enabled) {
+        return enabled ? new ConcurrentStatsCounter() : DISABLED;
+    }
+
+    void recordHits(String region, int count);
+
+    void recordMisses(String region, int count);
+
+    /**
+     * 记录一次成功的加载。
+     * @param region 缓存区域。
+     * @param loadTime 加载耗时（纳秒）。
+     */
+    void recordLoadSuccess(String region, long loadTime);
+
+    /**
+     * 记录一次失败的加载（抛出异常或者返回 null）。
+     * @param region 缓存区域。
+     * @param loadTime 加载耗时（纳秒）。
+     */
+    void recordLoadFailure(String region, long loadTime);
+
+    void recordEviction(String region, EvictionReason reason);
+
+    /**
+     * 执行加载并记录加载耗时，抛出异常或者返回 null 记为加载失败。
+     * @param region 缓存区域。
+     * @param loader 加载方法。
+     * @param <T> 加载结果的类型。
+     * @return 加载结果。
+     */
+    default <T> T recordLoad(String region, Supplier<T> loader) {
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            this.recordLoadFailure(region, System.nanoTime() - start);
+            throw e;
+        }
+        if (value == null) {
+            this.recordLoadFailure(region, System.nanoTime() - start);
+        } else {
+            this.recordLoadSuccess(region, System.nanoTime() - start);
+        }
+        return value;
+    }
+
+    /**
+     * 获取所有区域汇总的统计快照。
+     * @return
+     */
+    CacheStats snapshot();
+
+    /**
+     * 获取每个区域的统计快照。
+     * @return
+     */
+    Map<String, CacheStats> regionSnapshots();
+}
@@ -0,0 +1,25 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching;
+
+/**
+ * 缓存内部使用的单调时钟，返回以纳秒为单位的时间刻度（只能用于计算时间差，不表示具体的时间点）。
+ * 缓存内部的过期、访问时间都使用该时钟记录，LocalDateTime 只出现在公开的 API 上。
+ */
+@FunctionalInterface
+public interface Ticker {
+    /**
+     * 使用 System.nanoTime 的默认时钟。
+     */
+    Ticker SYSTEM = System::nanoTime;
+
+    /**
+     * 读取当前的时间刻度（单位：纳秒）。
+     * @return
+     */
+    long read();
+}
@@ -10,12 +10,15 @@ import com.labijie.caching.*;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.function.Consumer;
 
 /**
@@ -29,19 +32,60 @@ public class CacheEntry implements AutoCloseable {
     private Consumer<CacheEntry> notifyCacheOfExpiration;
     private Consumer<CacheEntry> notifyCacheEntryReleased;
 
-    private EvictionReason evictionReason;
+    private EvictionReason evictionReason = EvictionReason.None;
     private List<Closeable> expirationTokenRegistrations;
     private boolean isExpired;
     private List<IChangeToken> expirationTokens;
     private Object key;
-    private LocalDateTime absoluteExpiration;
-    private Long slidingExpirationMS;
-    private LocalDateTime lastAccessed;
+    //内部时间均使用 Ticker 的纳秒刻度，absoluteExpiration 仅在 hasAbsoluteExpiration 时有效。
+    private final Ticker ticker;
+    private final Executor executor;
+    private boolean hasAbsoluteExpiration;
+    private long absoluteExpiration;
+    private long slidingExpirationNanos;
+    private volatile long lastAccessed;
+    //写入缓存的时钟刻度，用于写入后刷新（refreshAfterWrite）。
+    private long writeTime;
+    private volatile int refreshing;
+    private static final AtomicIntegerFieldUpdater<CacheEntry> REFRESHING =
+            AtomicIntegerFieldUpdater.newUpdater(CacheEntry.class, "refreshing");
     private final Object lock = new Object();
     private List<PostEvictionCallbackRegistration> postEvictionCallbacks;
     private Object value;
     private AutoCloseable scope;
     private CacheItemPriority priority;
+    private ValueStrength valueStrength;
+
+    //时间轮中的链表节点，仅在持有 MemoryCache.evictionLock 时访问。
+    CacheEntry wheelPrevious;
+    CacheEntry wheelNext;
+
+    //淘汰策略（Window-TinyLFU）队列中的链表节点，仅在持有 MemoryCache.evictionLock 时访问。
+    CacheEntry accessPrevious;
+    CacheEntry accessNext;
+    byte queueType;
+    //缓存项的权重，加入缓存时计算，仅在持有 MemoryCache.evictionLock 时读取。
+    int weight = 1;
+    //所属缓存的统计计数器，由 MemoryCache.createEntry 设置。
+    StatsCounter statsCounter = StatsCounter.DISABLED;
+    //所属缓存的淘汰通知投递器，由 MemoryCache.createEntry 设置；直接构造的缓存项为 null，淘汰回调提交到 executor 执行。
+    EvictionDispatcher evictionDispatcher;
+    //所属缓存的移除监听器，由 MemoryCache.createEntry 设置，缓存项离开缓存时在淘汰线程上同步调用（不经过可能丢弃通知的投递队列）。
+    Consumer<CacheEntry> removalListener;
+
+    //仅用于创建链表哨兵节点。
+    private CacheEntry() {
+        this.ticker = Ticker.SYSTEM;
+        this.executor = null;
+        this.wheelPrevious = this;
+        this.wheelNext = this;
+        this.accessPrevious = this;
+        this.accessNext = this;
+    }
+
+    static CacheEntry createSentinel() {
+        return new CacheEntry();
+    }
 
     /**
      * 创建内存缓存项的新实例。
@@ -53,6 +97,25 @@ public class CacheEntry implements AutoCloseable {
             Object key,
             Consumer<CacheEntry> notifyCacheEntryReleased,
             Consumer<CacheEntry> notifyCacheOfExpiration) {
+        this(key, notifyCacheEntryReleased, notifyCacheOfExpiration, Ticker.SYSTEM, MemoryCache.sharedExecutionThreadPool(), true);
+    }
+
+    /**
+     * 创建内存缓存项的新实例。
+     * @param key 缓存键
+     * @param notifyCacheEntryReleased 缓存项失效时的回调通知的函数。
+     * @param notifyCacheOfExpiration 缓存项过期时的回调通知的函数。
+     * @param ticker 缓存使用的时钟。
+     * @param executor 执行淘汰回调的线程池。
+     * @param trackScope 是否加入当前线程的缓存项作用域（用于向外层缓存项传递过期令牌和绝对过期时间）。
+     */
+    CacheEntry(
+            Object key,
+            Consumer<CacheEntry> notifyCacheEntryReleased,
+            Consumer<CacheEntry> notifyCacheOfExpiration,
+            Ticker ticker,
+            Executor executor,
+            boolean trackScope) {
         if (key == null) {
             throw new IllegalArgumentException("CacheEntry 构造函数 key 不能为空。");
         }
@@ -63,11 +126,14 @@ public class CacheEntry implements AutoCloseable {
             throw new IllegalArgumentException("CacheEntry 构造函数 notifyCacheEntryReleased 不能为空。");
         }
         this.key = key;
+        this.ticker = ticker;
+        this.executor = executor;
         this.setPriority(CacheItemPriority.Normal);
         this.notifyCacheOfExpiration = notifyCacheOfExpiration;
         this.notifyCacheEntryReleased = notifyCacheEntryReleased;
 
-        scope = CacheEntryHelper.EnterScope(this);
+        //不跟踪作用域时不访问 ThreadLocal，也不会向外层缓存项传递过期设置。
+        scope = trackScope ? CacheEntryHelper.EnterScope(this) : null;
 
     }
 
@@ -127,27 +193,82 @@ public class CacheEntry implements AutoCloseable {
     }
 
     /**
-     * 获取缓存项最后访问时间（用于 LRU 算法）。
+     * 获取缓存项值的引用强度，为空时使用所属缓存的设置（MemoryCacheOptions.setValueStrength）。
+     * @return
+     */
+    public ValueStrength getValueStrength() {
+        return valueStrength;
+    }
+
+    /**
+     * 设置缓存项值的引用强度，软引用或弱引用的值被 GC 回收后缓存项以 EvictionReason.Collected 移除。
+     * @param valueStrength 为空时使用所属缓存的设置。
+     */
+    public void setValueStrength(ValueStrength valueStrength) {
+        this.valueStrength = valueStrength;
+    }
+
+    /**
+     * 获取缓存项最后访问时间刻度（用于 LRU 算法）。
      * @return
      */
-    LocalDateTime getLastAccessed() {
+    long getLastAccessed() {
         return lastAccessed;
     }
 
     /**
-     * 设置缓存项最后访问时间（用于 LRU 算法）。
+     * 设置缓存项最后访问时间刻度（用于 LRU 算法）。
      * @return
      */
-    void setLastAccessed(LocalDateTime lastAccessed) {
+    void setLastAccessed(long lastAccessed) {
         this.lastAccessed = lastAccessed;
     }
 
+    /**
+     * 获取缓存项写入缓存的时钟刻度。
+     * @return
+     */
+    long getWriteTime() {
+        return writeTime;
+    }
+
+    void setWriteTime(long writeTime) {
+        this.writeTime = writeTime;
+    }
+
+    /**
+     * 尝试标记缓存项正在后台刷新，同一个缓存项同一时间只会有一次刷新。
+     * @return 标记成功返回 true，已经在刷新时返回 false。
+     */
+    boolean tryStartRefresh() {
+        return REFRESHING.compareAndSet(this, 0, 1);
+    }
+
+    /**
+     * 清除后台刷新标记。
+     */
+    void endRefresh() {
+        this.refreshing = 0;
+    }
+
+    /**
+     * 记录一次读取。只有滑动过期的缓存项需要最后访问时间，每次读取都会推迟过期时间；
+     * 时钟刻度没有前进时不写入，避免热点缓存项在多核并发读取时频繁写同一个缓存行，
+     * 并发读取时也不会把最后访问时间改得更早。
+     * @param now 当前时钟刻度。
+     */
+    void recordRead(long now) {
+        if (this.slidingExpirationNanos > 0 && now - this.lastAccessed > 0) {
+            this.lastAccessed = now;
+        }
+    }
+
     /**
      * 获取缓存项的绝对过期时间（Utc）。
      * @return
      */
     public LocalDateTime getAbsoluteExpiration() {
-        return absoluteExpiration;
+        return this.hasAbsoluteExpiration ? toUtcTime(this.ticker, this.absoluteExpiration) : null;
     }
 
     /**
@@ -155,7 +276,20 @@ public class CacheEntry implements AutoCloseable {
      * @param absoluteExpiration
      */
     public void setAbsoluteExpiration(LocalDateTime absoluteExpiration) {
-        this.absoluteExpiration = absoluteExpiration;
+        if (absoluteExpiration == null) {
+            this.hasAbsoluteExpiration = false;
+        } else {
+            this.setAbsoluteExpirationTicks(toTicks(this.ticker, absoluteExpiration));
+        }
+    }
+
+    /**
+     * 以时钟刻度设置绝对过期时间。
+     * @param ticks
+     */
+    void setAbsoluteExpirationTicks(long ticks) {
+        this.absoluteExpiration = ticks;
+        this.hasAbsoluteExpiration = true;
     }
 
     /**
@@ -167,10 +301,9 @@ public class CacheEntry implements AutoCloseable {
             throw new IllegalArgumentException("setAbsoluteExpirationRelativeToNowMS 方法参数 milliseconds 必须大于 0 或为空。");
         }
         if (milliseconds == null) {
-            this.absoluteExpiration = null;
+            this.hasAbsoluteExpiration = false;
         } else {
-            LocalDateTime time = LocalDateTime.now(ZoneOffset.UTC).plus(milliseconds, ChronoUnit.MILLIS);
-            this.absoluteExpiration = time;
+            this.setAbsoluteExpirationTicks(this.ticker.read() + TimeUnit.MILLISECONDS.toNanos(milliseconds));
         }
     }
 
@@ -179,7 +312,7 @@ public class CacheEntry implements AutoCloseable {
      * @return
      */
     public Long getSlidingExpirationMilliseconds() {
-        return slidingExpirationMS;
+        return this.slidingExpirationNanos > 0 ? TimeUnit.NANOSECONDS.toMillis(this.slidingExpirationNanos) : null;
     }
 
     /**
@@ -190,7 +323,15 @@ public class CacheEntry implements AutoCloseable {
         if (milliseconds != null && milliseconds.intValue() <= 0) {
             throw new IllegalArgumentException("setSlidingExpirationMilliseconds 方法 milliseconds 必须大于 0 或为空。");
         }
-        this.slidingExpirationMS = milliseconds;
+        this.slidingExpirationNanos = milliseconds == null ? 0L : TimeUnit.MILLISECONDS.toNanos(milliseconds);
+    }
+
+    /**
+     * 获取滑动过期时间（单位：纳秒），0 表示未设置。
+     * @return
+     */
+    long getSlidingExpirationNanos() {
+        return this.slidingExpirationNanos;
     }
 
     /**
@@ -206,7 +347,14 @@ public class CacheEntry implements AutoCloseable {
      * @return
      */
     public Object getValue() {
-        return value;
+        Object v = this.value;
+        if (v instanceof OffHeapStore.Value) {
+            return ((OffHeapStore.Value) v).read();
+        }
+        if (v instanceof ValueReference) {
+            return ((ValueReference) v).get();
+        }
+        return v;
     }
 
     /**
@@ -230,12 +378,11 @@ public class CacheEntry implements AutoCloseable {
         this.evictionReason = reason;
     }
 
+    //令牌回调只标记过期并通知缓存，移除操作由缓存的维护任务批量处理。
     private static void expirationTokensExpired(final Object obj) {
-        MemoryCache.getExecutionThreadPool().execute(() -> {
-            CacheEntry entry = (CacheEntry) obj;
-            entry.setExpired(EvictionReason.TokenExpired);
-            entry.notifyCacheOfExpiration.accept(entry);
-        });
+        CacheEntry entry = (CacheEntry) obj;
+        entry.setExpired(EvictionReason.TokenExpired);
+        entry.notifyCacheOfExpiration.accept(entry);
     }
 
     /**
@@ -252,28 +399,107 @@ public class CacheEntry implements AutoCloseable {
 
     /**
      * 检查缓存项是否过期。
-     * @param now 判断过期的基准时间。
+     * @param now 判断过期的基准时间（Utc）。
      * @return
      */
     public boolean checkExpired(LocalDateTime now) {
-        return this.isExpired || checkForExpiredTime(now) || checkForExpiredTokens();
+        return checkExpired(toTicks(this.ticker, now));
     }
 
-    private boolean checkForExpiredTime(LocalDateTime now) {
-        if (this.absoluteExpiration != null
-                && this.absoluteExpiration.compareTo(now) <= 0) {
+    /**
+     * 检查缓存项是否过期。
+     * @param now 判断过期的基准时钟刻度。
+     * @return
+     */
+    boolean checkExpired(long now) {
+        return this.isExpired || checkForExpiredTime(now) || checkForExpiredTokens() || checkForCollectedValue();
+    }
+
+    private boolean checkForCollectedValue() {
+        Object v = this.value;
+        if (v instanceof ValueReference && ((ValueReference) v).get() == null) {
+            setExpired(EvictionReason.Collected);
+            return true;
+        }
+        return false;
+    }
+
+    //把值改为软引用或弱引用保存，回收后引用进入 queue。
+    void referenceValue(ValueStrength strength, ReferenceQueue<Object> queue) {
+        Object v = this.value;
+        if (v == null || v instanceof ValueReference || v instanceof OffHeapStore.Value) {
+            return;
+        }
+        this.value = ValueReference.create(strength, v, this, queue);
+    }
+
+    //判断回收的引用是否仍然是缓存项当前的值（值被替换或者写入磁盘后旧的引用不再有效）。
+    boolean isValueReference(ValueReference reference) {
+        return this.value == reference;
+    }
+
+    private boolean checkForExpiredTime(long now) {
+        if (this.hasAbsoluteExpiration
+                && this.absoluteExpiration - now <= 0) {
             setExpired(EvictionReason.Expired);
             return true;
         }
 
-        if (this.slidingExpirationMS != null
-                && (this.getLastAccessed().plus(this.slidingExpirationMS, ChronoUnit.MILLIS).compareTo(now) < 0)) {
+        if (this.slidingExpirationNanos > 0
+                && (this.lastAccessed + this.slidingExpirationNanos - now < 0)) {
             setExpired(EvictionReason.Expired);
             return true;
         }
         return false;
     }
 
+    /**
+     * 获取缓存项最近的过期时钟刻度，没有设置时间过期策略时返回 Long.MAX_VALUE。
+     * 滑动过期时间根据最后访问时间计算，用于时间轮调度。
+     * @return
+     */
+    long getExpirationTime() {
+        long time = Long.MAX_VALUE;
+        if (this.hasAbsoluteExpiration) {
+            time = this.absoluteExpiration;
+        }
+        if (this.slidingExpirationNanos > 0) {
+            long sliding = this.lastAccessed + this.slidingExpirationNanos;
+            if (time == Long.MAX_VALUE || sliding - time < 0) {
+                time = sliding;
+            }
+        }
+        return time;
+    }
+
+    /**
+     * 把 Utc 时间转换为时钟刻度（仅用于公开 API 的边界）。
+     */
+    static long toTicks(Ticker ticker, LocalDateTime utcTime) {
+        long now = ticker.read();
+        try {
+            return now + Duration.between(LocalDateTime.now(ZoneOffset.UTC), utcTime).toNanos();
+        } catch (ArithmeticException e) {
+            //超出纳秒能表示的范围（约 292 年），按最远的时间处理。
+            return utcTime.isAfter(LocalDateTime.now(ZoneOffset.UTC)) ? now + (Long.MAX_VALUE >> 1) : now - (Long.MAX_VALUE >> 1);
+        }
+    }
+
+    /**
+     * 把时钟刻度转换为 Utc 时间（仅用于公开 API 的边界）。
+     */
+    static LocalDateTime toUtcTime(Ticker ticker, long ticks) {
+        return LocalDateTime.now(ZoneOffset.UTC).plusNanos(ticks - ticker.read());
+    }
+
+    /**
+     * 是否存在需要轮询的过期令牌。
+     * @return
+     */
+    boolean hasExpirationTokens() {
+        return this.expirationTokens != null && !this.expirationTokens.isEmpty();
+    }
+
     private boolean checkForExpiredTokens() {
         if (this.expirationTokens != null) {
             for (IChangeToken expiredToken : this.getExpirationTokens()) {
@@ -321,18 +547,91 @@ public class CacheEntry implements AutoCloseable {
     }
 
     void invokeEvictionCallbacks() {
-        if (this.postEvictionCallbacks != null) {
+        this.statsCounter.recordEviction(RegionKey.regionOf(this.key), this.evictionReason);
+        Consumer<CacheEntry> listener = this.removalListener;
+        if (listener != null) {
+            listener.accept(this);
+        }
+        EvictionDispatcher dispatcher = this.evictionDispatcher;
+        if (dispatcher != null) {
+            if (dispatcher.accepts(this)) {
+                dispatcher.dispatch(this);
+            } else {
+                this.releaseValue();
+            }
+        } else if (this.postEvictionCallbacks != null) {
             final CacheEntry entry = this;
-            MemoryCache.getExecutionThreadPool().execute(() -> invokeCallbacks(entry));
+            this.executor.execute(() -> {
+                try {
+                    invokeCallbacks(entry);
+                } finally {
+                    entry.releaseValue();
+                }
+            });
+        } else {
+            this.releaseValue();
+        }
+    }
+
+    //把值移到堆外存储，堆外空间不足、值过大或无法序列化时值保留在堆上。
+    void moveValueOffHeap(OffHeapStore store) {
+        Object v = this.value;
+        if (v == null || v instanceof OffHeapStore.Value) {
+            return;
         }
+        OffHeapStore.Value stored;
+        try {
+            stored = store.store(v);
+        } catch (RuntimeException e) {
+            return;
+        }
+        if (stored != null) {
+            this.value = stored;
+        }
+    }
+
+    /**
+     * 缓存项写入磁盘溢出存储后清空值（堆外值同时释放），并恢复为未过期状态，由磁盘存储按相同的过期规则继续跟踪。
+     */
+    void moveValueToDisk() {
+        this.releaseValue();
+        this.value = null;
+        this.isExpired = false;
+        this.evictionReason = EvictionReason.None;
+    }
+
+    /**
+     * 缓存项从磁盘溢出存储提升回内存（或者被淘汰前需要执行回调）时恢复值。
+     * @param value
+     */
+    void restoreValue(Object value) {
+        this.value = value;
+    }
+
+    boolean hasPostEvictionCallbacks() {
+        return this.postEvictionCallbacks != null;
+    }
+
+    //淘汰时是否需要缓存项的值（有淘汰回调或者所属缓存设置了批量淘汰监听器）。
+    boolean needsValueOnEviction() {
+        return this.postEvictionCallbacks != null || (this.evictionDispatcher != null && this.evictionDispatcher.hasBulkListener());
     }
 
-    private static void invokeCallbacks(CacheEntry entry) {
-        AtomicReference<List<PostEvictionCallbackRegistration>> atom = new AtomicReference<>();
-        atom.set(entry.postEvictionCallbacks);
+    //缓存项已经离开缓存并且回调已经执行，归还堆外存储的块。
+    void releaseValue() {
+        Object v = this.value;
+        if (v instanceof OffHeapStore.Value) {
+            ((OffHeapStore.Value) v).free();
+        }
+    }
 
-        //在进行一次回调以后需要清理。
-        List<PostEvictionCallbackRegistration> callbackRegistrations = atom.getAndUpdate(v -> v = null);
+    //回调只执行一次：取出回调列表的同时清空，重复调用（例如并发的替换和移除）时不会再次执行。
+    static void invokeCallbacks(CacheEntry entry) {
+        List<PostEvictionCallbackRegistration> callbackRegistrations;
+        synchronized (entry.lock) {
+            callbackRegistrations = entry.postEvictionCallbacks;
+            entry.postEvictionCallbacks = null;
+        }
         if (callbackRegistrations == null) {
             return;
         }
@@ -348,27 +647,50 @@ public class CacheEntry implements AutoCloseable {
         }
     }
 
+    /**
+     * 提交缓存项（加入缓存），等同于 {@link #commit()}，用于 try-with-resources。
+     */
+    @Override
     public void close(){
+        this.commit();
+    }
+
+    /**
+     * 提交缓存项：退出缓存项作用域并加入缓存，重复调用或者已经放弃的缓存项不会再次提交。
+     * 通过 MemoryCache.createEntry 创建的缓存项必须调用 commit（或 close）或者 {@link #discard()}，
+     * 未提交的缓存项不会被加入缓存（不再依赖 finalize 在 GC 时提交）。
+     */
+    public void commit() {
         if (!added) {
             added = true;
-            try {
-                scope.close();
-            } catch (Exception e) {
-                throw new RuntimeException(e.getMessage(), e);
-            }
+            this.exitScope();
             notifyCacheEntryReleased.accept(this);
             //多线程下，可能会通过子线程调用close 因此，需要处理线程栈，要求 CacheEntry 总是成对的 create 和 close 调用。
             //可以解决在 create 之后发起其他线程调用后状态保持问题。
-            propagateOptions(CacheEntryHelper.getCurrent());
+            if (scope != null) {
+                propagateOptions(CacheEntryHelper.getCurrent());
+            }
         }
     }
 
     /**
-     * 当创建了 Entry 还没有添加到缓存列表时发生了GC，应该主动添加。
+     * 放弃缓存项：退出缓存项作用域但不加入缓存（例如工厂方法抛出异常或者没有得到值），已经提交的缓存项调用时忽略。
      */
-    @Override
-    protected void finalize() {
-        this.close();
+    public void discard() {
+        if (!added) {
+            added = true;
+            this.exitScope();
+        }
+    }
+
+    private void exitScope() {
+        if (scope != null) {
+            try {
+                scope.close();
+            } catch (Exception e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
     }
 
     void propagateOptions(CacheEntry parent) {
@@ -388,9 +710,14 @@ public class CacheEntry implements AutoCloseable {
             }
         }
 
-        if (absoluteExpiration != null) {
-            if (parent.absoluteExpiration == null || absoluteExpiration.compareTo(parent.absoluteExpiration) < 0) {
-                parent.absoluteExpiration = absoluteExpiration;
+        if (this.hasAbsoluteExpiration) {
+            long expiration = this.absoluteExpiration;
+            if (parent.ticker != this.ticker) {
+                //父项属于使用不同时钟的缓存，通过 Utc 时间换算。
+                expiration = toTicks(parent.ticker, toUtcTime(this.ticker, expiration));
+            }
+            if (!parent.hasAbsoluteExpiration || expiration - parent.absoluteExpiration < 0) {
+                parent.setAbsoluteExpirationTicks(expiration);
             }
         }
     }
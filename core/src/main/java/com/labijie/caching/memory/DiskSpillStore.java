@@ -0,0 +1,440 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+import com.labijie.caching.EvictionReason;
+import com.labijie.caching.ICacheDataSerializer;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 磁盘溢出存储：因容量被淘汰的缓存项序列化后追加写入内存映射文件，命中时再提升回内存。
+ * 存储由若干个等长的段文件组成，按环形顺序追加写入，写满一圈后回收最早的段（段内仍然有效的缓存项按 Capacity 原因淘汰）。
+ * 堆上只保留缓存键到 {@link Record} 的索引，Record 持有被淘汰的 CacheEntry（值已经清空），
+ * 过期时间、优先级和淘汰回调都保留在 CacheEntry 上，过期规则和内存中的缓存项相同。
+ * 磁盘上的缓存项不会被访问（命中时先提升回内存），过期时间在写入时就已经确定，所以按过期时间排序保存，
+ * 过期扫描只取出已经到期的缓存项，不遍历整个索引。
+ */
+final class DiskSpillStore implements AutoCloseable {
+    static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+
+    private final ICacheDataSerializer serializer;
+    private final Path directory;
+    private final int segmentSize;
+    private final Segment[] segments;
+    private final ConcurrentHashMap<Object, Record> index;
+    //设置了过期时间的缓存项，按过期时间（相同时按写入顺序）排序，离开索引时同时移除。
+    private final ConcurrentSkipListSet<Record> expirations;
+    //追加写入和段回收使用写锁，读取使用乐观读，读取过程中发生写入时退回读锁。
+    private final StampedLock lock;
+    //按缓存键分段的修改序号（奇数表示有修改正在进行），用于检查提升过程中同一个键是否有并发的写入或移除。
+    private static final int MODIFICATION_STRIPES = 64;
+    private final AtomicLongArray modifications;
+    private final AtomicLong usedBytes;
+    private int current;
+    //写入序号，只在持有写锁时修改。
+    private long sequence;
+    private boolean closed;
+
+    DiskSpillStore(Path directory, long capacity, int segmentSize, ICacheDataSerializer serializer) {
+        this.serializer = serializer;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segments = new Segment[(int) Math.max(2, Math.min(Integer.MAX_VALUE, capacity / segmentSize))];
+        this.index = new ConcurrentHashMap<>();
+        this.expirations = new ConcurrentSkipListSet<>(DiskSpillStore::compareExpiration);
+        this.lock = new StampedLock();
+        this.modifications = new AtomicLongArray(MODIFICATION_STRIPES);
+        this.usedBytes = new AtomicLong();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("无法创建磁盘溢出目录：" + directory, e);
+        }
+    }
+
+    /**
+     * 把被淘汰的缓存项写入磁盘，成功后清空缓存项的值（堆外值同时释放）并重置过期状态。
+     * @param entry 因容量被淘汰的缓存项。
+     * @return 是否已经写入磁盘，返回 false 时由调用方按正常淘汰处理。
+     */
+    boolean spill(CacheEntry entry) {
+        Object value = entry.getValue();
+        if (value == null) {
+            return false;
+        }
+        byte[] bytes;
+        try {
+            String data = this.serializer.serializeData(value, false);
+            if (data == null) {
+                return false;
+            }
+            bytes = data.getBytes(StandardCharsets.UTF_8);
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (bytes.length > this.segmentSize) {
+            return false;
+        }
+
+        Record record;
+        Record prior;
+        List<Record> reclaimed = null;
+        long stamp = this.lock.writeLock();
+        try {
+            if (this.closed) {
+                return false;
+            }
+            Segment segment = this.segments[this.current];
+            if (segment == null || segment.position + bytes.length > this.segmentSize) {
+                this.current = segment == null ? this.current : (this.current + 1) % this.segments.length;
+                segment = this.segments[this.current];
+                if (segment == null) {
+                    segment = this.createSegment();
+                    if (segment == null) {
+                        return false;
+                    }
+                    this.segments[this.current] = segment;
+                } else {
+                    reclaimed = this.reclaim(segment);
+                }
+            }
+            ByteBuffer buffer = segment.buffer.duplicate();
+            buffer.position(segment.position);
+            buffer.put(bytes);
+            record = new Record(entry, segment, segment.position, bytes.length, value.getClass(), this.sequence++);
+            segment.position += bytes.length;
+            segment.records.add(record);
+            //持有写锁时加入索引，保证段在加入索引之前不会被回收。
+            entry.moveValueToDisk();
+            prior = this.index.put(entry.getKey(), record);
+            if (record.expirationTime != Long.MAX_VALUE) {
+                this.expirations.add(record);
+            }
+            if (prior != null) {
+                this.expirations.remove(prior);
+            }
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+
+        this.usedBytes.addAndGet(record.length);
+        if (prior != null && prior.entry != entry) {
+            this.usedBytes.addAndGet(-prior.length);
+            this.drop(prior, EvictionReason.Replaced);
+        }
+        if (reclaimed != null) {
+            for (Record r : reclaimed) {
+                r.entry.setExpired(EvictionReason.Capacity);
+                r.entry.invokeEvictionCallbacks();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查找磁盘上的缓存项。
+     * @param key 缓存键。
+     * @return
+     */
+    Record get(Object key) {
+        return this.index.get(key);
+    }
+
+    /**
+     * 读取并反序列化磁盘上的缓存值，缓存项已经被移除、所在段已经被回收或者无法反序列化时返回 null。
+     * @param record
+     * @return
+     */
+    Object read(Record record) {
+        byte[] bytes = null;
+        long stamp = this.lock.tryOptimisticRead();
+        if (stamp != 0 && this.index.get(record.entry.getKey()) == record) {
+            bytes = record.copy();
+        }
+        if (!this.lock.validate(stamp)) {
+            stamp = this.lock.readLock();
+            try {
+                bytes = this.index.get(record.entry.getKey()) == record ? record.copy() : null;
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return this.serializer.deserializeData(record.type, new String(bytes, StandardCharsets.UTF_8), false);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 把缓存项从磁盘索引中取出（用于提升回内存），只有一个调用方能够成功。
+     * @param record
+     * @return
+     */
+    boolean claim(Record record) {
+        if (this.index.remove(record.entry.getKey(), record)) {
+            this.expirations.remove(record);
+            this.usedBytes.addAndGet(-record.length);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 移除磁盘上的缓存项并执行淘汰回调。
+     * @param key 缓存键。
+     * @param reason 淘汰原因。
+     */
+    void remove(Object key, EvictionReason reason) {
+        Record record = this.index.remove(key);
+        if (record != null) {
+            this.expirations.remove(record);
+            this.usedBytes.addAndGet(-record.length);
+            this.drop(record, reason);
+        }
+    }
+
+    /**
+     * 移除磁盘上的缓存项并执行淘汰回调（仅当索引中仍然是该缓存项时）。
+     * @param record
+     * @param reason 淘汰原因。
+     */
+    void remove(Record record, EvictionReason reason) {
+        if (this.claim(record)) {
+            this.drop(record, reason);
+        }
+    }
+
+    /**
+     * 按绝对过期时间和滑动过期时间移除磁盘上已经过期的缓存项，只访问已经到期的缓存项。
+     * @param now 当前时钟刻度（纳秒）。
+     */
+    void expire(long now) {
+        for (Record record : this.expirations) {
+            if (record.expirationTime - now > 0) {
+                break;
+            }
+            if (record.entry.checkExpired(now)) {
+                this.remove(record, EvictionReason.Expired);
+                //已经不在索引中的缓存项（并发提升或移除）同样不再跟踪。
+                this.expirations.remove(record);
+            }
+        }
+    }
+
+    private static int compareExpiration(Record x, Record y) {
+        int result = Long.compare(x.expirationTime, y.expirationTime);
+        return result != 0 ? result : Long.compare(x.sequence, y.sequence);
+    }
+
+    /**
+     * 开始写入或移除缓存键，必须和 {@link #endModification(Object)} 成对调用。
+     * @param key 缓存键。
+     */
+    void beginModification(Object key) {
+        this.modifications.incrementAndGet(stripe(key));
+    }
+
+    void endModification(Object key) {
+        this.modifications.incrementAndGet(stripe(key));
+    }
+
+    long getModificationStamp(Object key) {
+        return this.modifications.get(stripe(key));
+    }
+
+    /**
+     * 检查从获取修改序号到现在缓存键（以及同一分段的其他键）是否没有写入或移除。
+     * @param key 缓存键。
+     * @param stamp {@link #getModificationStamp(Object)} 的返回值。
+     * @return
+     */
+    boolean validateModifications(Object key, long stamp) {
+        return (stamp & 1) == 0 && this.modifications.get(stripe(key)) == stamp;
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (MODIFICATION_STRIPES - 1);
+    }
+
+    /**
+     * 获取磁盘上的缓存项数量。
+     * @return
+     */
+    int size() {
+        return this.index.size();
+    }
+
+    /**
+     * 获取磁盘上有效缓存项占用的空间（单位：字节）。
+     * @return
+     */
+    long getUsedBytes() {
+        return this.usedBytes.get();
+    }
+
+    //回收段时索引中仍然指向该段的缓存项需要按容量淘汰，需要通知淘汰的缓存项先把值读回堆上。
+    private List<Record> reclaim(Segment segment) {
+        List<Record> reclaimed = new ArrayList<>();
+        for (Record record : segment.records) {
+            if (this.claim(record)) {
+                if (record.entry.needsValueOnEviction()) {
+                    record.entry.restoreValue(this.deserialize(record));
+                }
+                reclaimed.add(record);
+            }
+        }
+        segment.records.clear();
+        segment.position = 0;
+        segment.generation++;
+        return reclaimed;
+    }
+
+    private void drop(Record record, EvictionReason reason) {
+        CacheEntry entry = record.entry;
+        if (entry.needsValueOnEviction()) {
+            long stamp = this.lock.readLock();
+            try {
+                entry.restoreValue(this.deserialize(record));
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+        entry.setExpired(reason);
+        entry.invokeEvictionCallbacks();
+    }
+
+    //调用方必须持有锁，缓存项所在的段已经被回收时返回 null。
+    private Object deserialize(Record record) {
+        if (this.closed || record.segment.generation != record.generation) {
+            return null;
+        }
+        try {
+            return this.serializer.deserializeData(record.type, new String(record.copy(), StandardCharsets.UTF_8), false);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private Segment createSegment() {
+        Path file = null;
+        try {
+            file = Files.createTempFile(this.directory, "memory-cache-spill-", ".seg");
+            file.toFile().deleteOnExit();
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(this.segmentSize);
+                FileChannel channel = raf.getChannel();
+                //映射在通道关闭后仍然有效。
+                return new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize));
+            }
+        } catch (IOException e) {
+            //磁盘空间不足等情况下不再溢出，缓存项按正常淘汰处理。
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        long stamp = this.lock.writeLock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.index.clear();
+            this.expirations.clear();
+            this.usedBytes.set(0);
+            for (int i = 0; i < this.segments.length; i++) {
+                Segment segment = this.segments[i];
+                if (segment != null) {
+                    segment.records.clear();
+                    try {
+                        Files.deleteIfExists(segment.file);
+                    } catch (IOException ignored) {
+                    }
+                    this.segments[i] = null;
+                }
+            }
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    private static final class Segment {
+        final Path file;
+        final MappedByteBuffer buffer;
+        final List<Record> records;
+        int position;
+        //段被回收的次数，用于判断已经移出索引的缓存项的数据是否已经被覆盖。
+        int generation;
+
+        Segment(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+            this.records = new ArrayList<>();
+        }
+    }
+
+    /**
+     * 磁盘上的缓存项在堆上的索引。
+     */
+    static final class Record {
+        final CacheEntry entry;
+        private final Segment segment;
+        private final int offset;
+        private final int generation;
+        private final int length;
+        private final Class<?> type;
+        //写入磁盘时的过期时钟刻度（磁盘上的缓存项不会被访问，滑动过期时间不再变化），没有时间过期策略时为 Long.MAX_VALUE。
+        private final long expirationTime;
+        private final long sequence;
+
+        private Record(CacheEntry entry, Segment segment, int offset, int length, Class<?> type, long sequence) {
+            this.entry = entry;
+            this.segment = segment;
+            this.generation = segment.generation;
+            this.offset = offset;
+            this.length = length;
+            this.type = type;
+            this.expirationTime = entry.getExpirationTime();
+            this.sequence = sequence;
+        }
+
+        private byte[] copy() {
+            byte[] bytes = new byte[this.length];
+            ByteBuffer buffer = this.segment.buffer.duplicate();
+            buffer.position(this.offset);
+            buffer.get(bytes);
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+import com.labijie.caching.EvictionNotification;
+import com.labijie.caching.IBulkEvictionListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 淘汰通知的批量投递：被淘汰的缓存项放入有界队列，由一个通知线程（首次使用时启动）分批取出，
+ * 依次执行每个缓存项的淘汰回调，再把整批通知交给 IBulkEvictionListener，最后释放缓存项的值。
+ * 只有一个线程按入队顺序投递，所以同一个缓存键的通知保持先后顺序（回调中再次触发的淘汰直接在通知线程上执行）。
+ * 队列满时默认阻塞淘汰线程（背压），也可以配置为丢弃通知，阻塞和丢弃的次数都会被记录。
+ */
+final class EvictionDispatcher {
+    static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    private static final int BATCH_SIZE = 256;
+    private static final long OFFER_TIMEOUT_MILLISECONDS = 100;
+
+    private final String name;
+    private final BlockingQueue<CacheEntry> queue;
+    private final boolean dropWhenFull;
+    private final IBulkEvictionListener bulkListener;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private volatile Thread thread;
+    private volatile boolean closed;
+
+    EvictionDispatcher(String name, int queueCapacity, boolean dropWhenFull, IBulkEvictionListener bulkListener) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dropWhenFull = dropWhenFull;
+        this.bulkListener = bulkListener;
+    }
+
+    /**
+     * 缓存项是否需要投递通知（有淘汰回调或者设置了批量监听器）。
+     */
+    boolean accepts(CacheEntry entry) {
+        return this.bulkListener != null || entry.hasPostEvictionCallbacks();
+    }
+
+    boolean hasBulkListener() {
+        return this.bulkListener != null;
+    }
+
+    void dispatch(CacheEntry entry) {
+        if (this.closed || Thread.currentThread() == this.thread) {
+            this.deliver(Collections.singletonList(entry));
+            return;
+        }
+        this.ensureStarted();
+        if (this.queue.offer(entry)) {
+            return;
+        }
+        if (this.dropWhenFull) {
+            this.dropped.increment();
+            entry.releaseValue();
+            return;
+        }
+        this.blocked.increment();
+        try {
+            while (!this.queue.offer(entry, OFFER_TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+                if (this.closed) {
+                    this.deliver(Collections.singletonList(entry));
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.dropped.increment();
+            entry.releaseValue();
+        }
+    }
+
+    private void ensureStarted() {
+        if (this.thread == null) {
+            synchronized (this) {
+                if (this.thread == null && !this.closed) {
+                    Thread t = new Thread(this::run, "memory-cache-eviction-" + this.name);
+                    t.setDaemon(true);
+                    this.thread = t;
+                    t.start();
+                }
+            }
+        }
+    }
+
+    private void run() {
+        List<CacheEntry> batch = new ArrayList<>(BATCH_SIZE);
+        while (!this.closed || !this.queue.isEmpty()) {
+            CacheEntry first;
+            try {
+                first = this.closed ? this.queue.poll() : this.queue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            this.queue.drainTo(batch, BATCH_SIZE - 1);
+            this.deliver(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<CacheEntry> batch) {
+        for (CacheEntry entry : batch) {
+            CacheEntry.invokeCallbacks(entry);
+        }
+        if (this.bulkListener != null) {
+            List<EvictionNotification> notifications = new ArrayList<>(batch.size());
+            for (CacheEntry entry : batch) {
+                Object key = entry.getKey();
+                notifications.add(key instanceof RegionKey ?
+                        new EvictionNotification(((RegionKey) key).key, ((RegionKey) key).region, entry.getValue(), entry.getEvictionReason()) :
+                        new EvictionNotification(key, null, entry.getValue(), entry.getEvictionReason()));
+            }
+            try {
+                this.bulkListener.onEvicted(notifications);
+            } catch (Throwable e) {
+                //和单个淘汰回调一样，监听器的异常不影响缓存。
+            }
+        }
+        for (CacheEntry entry : batch) {
+            entry.releaseValue();
+        }
+        this.delivered.add(batch.size());
+    }
+
+    int getQueueSize() {
+        return this.queue.size();
+    }
+
+    long getDeliveredCount() {
+        return this.delivered.sum();
+    }
+
+    long getDroppedCount() {
+        return this.dropped.sum();
+    }
+
+    long getBlockedCount() {
+        return this.blocked.sum();
+    }
+
+    /**
+     * 停止通知线程，队列中剩余的通知由通知线程投递完之后退出，之后的通知直接在淘汰线程上投递。
+     */
+    void close() {
+        this.closed = true;
+        Thread t = this.thread;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+/**
+ * 用于估算缓存键访问频率的 Count-Min Sketch（TinyLFU）。
+ * 每个计数器占 4 位，一个 long 保存 16 个计数器，每个键使用 4 个计数器并取最小值作为估算频率。
+ * 当记录的次数达到采样数量时，所有计数器减半（老化），使频率能够反映最近的访问情况。
+ * 注意：该类不是线程安全的，所有调用方必须持有 MemoryCache 的 evictionLock。
+ * 改编自 Caffeine 的 com.github.benmanes.caffeine.cache.FrequencySketch（Copyright Ben Manes，Apache License 2.0），
+ * 计数器布局、哈希种子、RESET_MASK/ONE_MASK 和老化算法与原实现相同，见项目根目录的 NOTICE。
+ */
+final class FrequencySketch {
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    FrequencySketch() {
+        this.ensureCapacity(16);
+    }
+
+    /**
+     * 按缓存的最大容量调整计数表的大小，调整大小会清空已有的频率信息。
+     * @param maximumSize 缓存的容量（缓存项数量）。
+     */
+    void ensureCapacity(long maximumSize) {
+        int maximum = (int) Math.min(Math.max(maximumSize, 16L), MAXIMUM_CAPACITY);
+        if (this.table != null && this.table.length >= maximum) {
+            return;
+        }
+        this.table = new long[ceilingPowerOfTwo(maximum)];
+        this.tableMask = this.table.length - 1;
+        this.sampleSize = (10 * maximum > 0) ? 10 * maximum : Integer.MAX_VALUE;
+        this.size = 0;
+    }
+
+    /**
+     * 获取当前计数表能够有效支撑的缓存项数量。
+     * @return
+     */
+    int capacity() {
+        return this.table.length;
+    }
+
+    /**
+     * 获取指定键的估算访问频率（0 - 15）。
+     * @param key 缓存键。
+     * @return
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问，计数器达到上限（15）后不再增加。
+     * @param key 缓存键。
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && (++this.size == this.sampleSize)) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = (0xfL << offset);
+        if ((this.table[i] & mask) != mask) {
+            this.table[i] += (1L << offset);
+            return true;
+        }
+        return false;
+    }
+
+    //所有计数器减半，奇数计数器截断带来的误差通过 size 修正。
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < this.table.length; i++) {
+            count += Long.bitCount(this.table[i] & ONE_MASK);
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+        this.size = (this.size >>> 1) - (count >>> 2);
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int) hash) & this.tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(x - 1);
+    }
+}
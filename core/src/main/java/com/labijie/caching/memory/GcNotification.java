@@ -24,7 +24,10 @@ import java.util.function.Consumer;
 /**
  * 提供一个注册程序以便在GC收集进行的时候发起回掉。
  * Created by ax03 on 2017/3/6.
+ * @deprecated 按收集器名称识别老年代收集，名称列表之外的收集器（新的收集器或者其他 JVM 的收集器）不会触发回调，
+ * MemoryCache 已经改为根据堆占用率收缩（MemoryCacheOptions.setHeapOccupancyTarget）。
  */
+@Deprecated
 public final class GcNotification
 {
     private final static String[] OLDGEN_COLLECTOR_NAMES = new String[]{
@@ -41,9 +44,22 @@ public final class GcNotification
             // -XgcPrio:throughput
             "Garbage collection optimized for throughput Old Collector",
             // -XgcPrio:deterministic
-            "Garbage collection optimized for deterministic pausetimes Old Collector"
+            "Garbage collection optimized for deterministic pausetimes Old Collector",
+            // -XX:+UseG1GC
+            "G1 Old Generation",
+            // -XX:+UseZGC
+            "ZGC",
+            "ZGC Cycles",
+            "ZGC Major Cycles",
+            // -XX:+UseShenandoahGC
+            "Shenandoah Cycles"
     };
 
+    //binarySearch 要求数组有序。
+    static {
+        Arrays.sort(OLDGEN_COLLECTOR_NAMES);
+    }
+
     private GcNotification()
     {
 
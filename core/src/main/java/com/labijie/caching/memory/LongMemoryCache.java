@@ -0,0 +1,887 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+import com.labijie.caching.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+
+/**
+ * 以 long 为键的内存缓存：键保存在开放寻址（线性探测）哈希表的 long 数组中，过期时间、优先级等保存在并行的基本类型数组中，
+ * 读写不装箱键，也不为每个缓存项创建 CacheEntry 和 ConcurrentHashMap 节点。
+ * 过期（绝对、相对、滑动、令牌）、优先级（compact）和淘汰回调的语义与 MemoryCache 相同，区别在于：
+ * 1. 过期令牌只在读取和过期扫描时检查，不注册令牌的主动回调。
+ * 2. 不支持容量上限、权重、堆外存储、磁盘溢出存储和值引用强度，compact 时每个优先级桶内按最后访问时间
+ * （没有滑动过期的缓存项为写入时间）从早到晚移除。
+ * 3. 不跟踪缓存项作用域。
+ * 4. 过期扫描不使用时间轮，每个段维护一个按下次检查时间排序的最小堆，扫描时只处理到期的缓存项。
+ * 哈希表按键的哈希值分为多个段，读操作使用段的乐观读（StampedLock），写操作持有段的写锁，
+ * 滑动过期缓存项的访问时间在段的读锁下以 CAS 更新。
+ */
+public class LongMemoryCache implements AutoCloseable {
+    private static final int MAX_SEGMENTS = 64;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    private static final CacheItemPriority[] PRIORITIES = CacheItemPriority.values();
+    //flags 的低两位是 CacheItemPriority 的序号，第三位表示设置了绝对过期时间。
+    private static final int FLAG_PRIORITY_MASK = 0x03;
+    private static final int FLAG_ABSOLUTE_EXPIRATION = 0x04;
+    //第四位表示缓存项在段的过期堆中排队。
+    private static final int FLAG_QUEUED = 0x08;
+
+    private final Segment[] segments;
+    private final Ticker ticker;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final StatsCounter statsCounter;
+    private final long expirationScanFrequencyNanos;
+    //getOrCreate 的并发加载去重（只在未命中时装箱键）。
+    private final SingleFlight<Long> loads = new SingleFlight<>();
+    private final AtomicBoolean scanning = new AtomicBoolean();
+    private final Runnable scanTask = this::scanForExpiredItems;
+    private volatile long lastExpirationScan;
+    private volatile boolean closed;
+
+    public LongMemoryCache(MemoryCacheOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("LongMemoryCache 构造函数 options 不能为空。");
+        }
+        if (options.getMaximumSize() != null || options.getMaximumWeight() != null) {
+            throw new IllegalArgumentException("LongMemoryCache 不支持 maximumSize 和 maximumWeight。");
+        }
+        if (options.getOffHeapCapacity() != null || options.getDiskSpillCapacity() != null) {
+            throw new IllegalArgumentException("LongMemoryCache 不支持堆外存储和磁盘溢出存储。");
+        }
+        if (options.getValueStrength() != ValueStrength.Strong) {
+            throw new IllegalArgumentException("LongMemoryCache 只支持强引用的值（ValueStrength.Strong）。");
+        }
+        int segmentCount = 2;
+        while (segmentCount < MAX_SEGMENTS && segmentCount < Runtime.getRuntime().availableProcessors() * 4) {
+            segmentCount <<= 1;
+        }
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment();
+        }
+        this.ticker = options.getTicker();
+        this.expirationScanFrequencyNanos = TimeUnit.MILLISECONDS.toNanos(options.getScanFrequency());
+        this.lastExpirationScan = this.ticker.read();
+        this.statsCounter = StatsCounter.create(options.isRecordStats());
+        if (options.getExecutor() != null) {
+            this.executor = options.getExecutor();
+            this.ownedExecutor = null;
+        } else {
+            this.ownedExecutor = MemoryCache.createDefaultExecutor();
+            this.executor = this.ownedExecutor;
+        }
+    }
+
+    private void checkClosed() {
+        if (closed) {
+            throw new RuntimeException("不能在 LongMemoryCache 关闭后进行操作。");
+        }
+    }
+
+    //MurmurHash3 的 64 位混合函数，低位用于段内的槽位，高位用于选择段。
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static int hash(long key) {
+        return (int) mix(key);
+    }
+
+    private Segment segmentFor(long key) {
+        return this.segments[(int) (mix(key) >>> 32) & (this.segments.length - 1)];
+    }
+
+    /**
+     * 获取当前缓存的大小。
+     * @return
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * 获取缓存执行过期扫描和淘汰回调的线程池。
+     * @return
+     */
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * 获取命中、加载和淘汰的统计快照（需要设置 MemoryCacheOptions.setRecordStats）。
+     * @return
+     */
+    public CacheStats getStats() {
+        return this.statsCounter.snapshot();
+    }
+
+    /**
+     * 根据缓存键获取缓存对象。
+     * @param key
+     * @param <T>
+     * @return 不存在或者已经过期时返回 null。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(long key) {
+        return (T) this.getValue(key, true);
+    }
+
+    public Object getOrDefault(long key, Object defaultValue) {
+        Object result = this.getValue(key, true);
+        return result == null ? defaultValue : result;
+    }
+
+    private Object getValue(long key, boolean recordStats) {
+        checkClosed();
+        long now = this.ticker.read();
+        Object result = this.segmentFor(key).get(key, hash(key), now);
+        startScanForExpiredItems(now);
+        if (recordStats) {
+            if (result != null) {
+                this.statsCounter.recordHits(null, 1);
+            } else {
+                this.statsCounter.recordMisses(null, 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取缓存对象，不存在时使用工厂方法创建并加入缓存（同一个键同一时间只会执行一次工厂方法）。
+     * @param key 缓存键。
+     * @param factory 创建缓存对象的工厂方法，返回 null 时不加入缓存。
+     * @param options 缓存项选项，可以为空。
+     * @param <T> 缓存对象的类型。
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrCreate(long key, LongFunction<T> factory, MemoryCacheEntryOptions options) {
+        if (factory == null) {
+            throw new IllegalArgumentException("LongMemoryCache.getOrCreate 调用 factory 参数不能为空。");
+        }
+        Object value = this.getValue(key, true);
+        if (value != null) {
+            return (T) value;
+        }
+        return this.loads.execute(key, () -> {
+            //等待锁的过程中其他加载可能已经完成。
+            T loaded = (T) this.getValue(key, false);
+            if (loaded == null) {
+                loaded = this.statsCounter.recordLoad(null, () -> factory.apply(key));
+                if (loaded != null) {
+                    this.set(key, loaded, options);
+                }
+            }
+            return loaded;
+        });
+    }
+
+    public <T> T set(long key, T value, MemoryCacheEntryOptions options) {
+        if (value == null) {
+            throw new IllegalArgumentException("LongMemoryCache.set 调用 value 参数不能为空。");
+        }
+        checkClosed();
+        long now = this.ticker.read();
+        int flags = CacheItemPriority.Normal.ordinal();
+        long expiration = 0;
+        long sliding = 0;
+        Extra extra = null;
+        if (options != null) {
+            if (options.getValueStrength() != null && options.getValueStrength() != ValueStrength.Strong) {
+                throw new IllegalArgumentException("LongMemoryCache 只支持强引用的值（ValueStrength.Strong）。");
+            }
+            if (options.getAbsoluteExpirationRelativeToNow() != null) {
+                expiration = now + TimeUnit.MILLISECONDS.toNanos(options.getAbsoluteExpirationRelativeToNow());
+                flags |= FLAG_ABSOLUTE_EXPIRATION;
+            } else if (options.getAbsoluteExpiration() != null) {
+                expiration = CacheEntry.toTicks(this.ticker, options.getAbsoluteExpiration());
+                flags |= FLAG_ABSOLUTE_EXPIRATION;
+            }
+            if (options.getSlidingExpirationMilliseconds() != null) {
+                sliding = TimeUnit.MILLISECONDS.toNanos(options.getSlidingExpirationMilliseconds());
+            }
+            if (options.getPriority() != null) {
+                flags = (flags & ~FLAG_PRIORITY_MASK) | options.getPriority().ordinal();
+            }
+            if (!options.getExpirationTokens().isEmpty() || !options.getPostEvictionCallbacks().isEmpty()) {
+                extra = new Extra(options);
+            }
+        }
+        EvictionReason expired = checkExpired(now, flags, expiration, sliding, now, extra);
+        Segment segment = this.segmentFor(key);
+        if (expired == null) {
+            segment.put(key, hash(key), value, flags, expiration, sliding, now, extra);
+        } else {
+            //写入时已经过期：不加入缓存，旧值按替换移除，新值直接执行淘汰回调。
+            segment.remove(key, hash(key), EvictionReason.Replaced, now);
+            this.notifyEvicted(key, value, expired, extra);
+        }
+        startScanForExpiredItems(now);
+        return value;
+    }
+
+    public <T> T set(long key, T value, IChangeToken expirationToken) {
+        if (expirationToken == null) {
+            throw new IllegalArgumentException("LongMemoryCache.set 调用 expirationToken 参数不能为空。");
+        }
+        MemoryCacheEntryOptions options = new MemoryCacheEntryOptions();
+        options.getExpirationTokens().add(expirationToken);
+        return this.set(key, value, options);
+    }
+
+    public <T> T set(long key, T value, LocalDateTime absoluteExpirationUtc) {
+        MemoryCacheEntryOptions options = null;
+        if (absoluteExpirationUtc != null) {
+            options = new MemoryCacheEntryOptions();
+            options.setAbsoluteExpiration(absoluteExpirationUtc);
+        }
+        return this.set(key, value, options);
+    }
+
+    public <T> T set(long key, T value, Long slidingExpirationMilliseconds) {
+        if (slidingExpirationMilliseconds != null && slidingExpirationMilliseconds <= 0) {
+            throw new IllegalArgumentException("LongMemoryCache.set 调用 slidingExpirationMilliseconds 参数必须大于 0 或为空。");
+        }
+        MemoryCacheEntryOptions options = null;
+        if (slidingExpirationMilliseconds != null) {
+            options = new MemoryCacheEntryOptions();
+            options.setSlidingExpirationMilliseconds(slidingExpirationMilliseconds);
+        }
+        return this.set(key, value, options);
+    }
+
+    public void remove(long key) {
+        checkClosed();
+        long now = this.ticker.read();
+        this.segmentFor(key).remove(key, hash(key), EvictionReason.Removed, now);
+        startScanForExpiredItems(now);
+    }
+
+    /**
+     * 指定一个百分比 (0.10 for 10%) 收缩缓存，移除策略与 MemoryCache.compact 相同：
+     * 1. 移除所有已过期的缓存项。
+     * 2. 不同的 CacheItemPriority 按桶分装（NeverRemove 永远不会被移除）。
+     * 3. 每个桶内按最后访问时间从早到晚移除。
+     * @param percentage 收缩百分比，1表示全部收缩。
+     */
+    public void compact(double percentage) {
+        long now = this.ticker.read();
+        List<Candidate> expired = new ArrayList<>();
+        List<List<Candidate>> buckets = new ArrayList<>(PRIORITIES.length);
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (Segment segment : this.segments) {
+            segment.collect(now, expired, buckets);
+        }
+
+        int removalCountTarget = (int) (this.size() * percentage);
+        int removed = 0;
+        for (Candidate candidate : expired) {
+            if (this.segmentFor(candidate.key).remove(candidate.key, hash(candidate.key), null, now)) {
+                removed++;
+            }
+        }
+        for (CacheItemPriority priority : PRIORITIES) {
+            if (priority == CacheItemPriority.NeverRemove || removed >= removalCountTarget) {
+                continue;
+            }
+            List<Candidate> bucket = buckets.get(priority.ordinal());
+            bucket.sort(Comparator.comparingLong(c -> c.lastAccessed));
+            for (Candidate candidate : bucket) {
+                if (removed >= removalCountTarget) {
+                    break;
+                }
+                if (this.segmentFor(candidate.key).remove(candidate.key, hash(candidate.key), EvictionReason.Capacity, now)) {
+                    removed++;
+                }
+            }
+        }
+    }
+
+    private void startScanForExpiredItems(long now) {
+        if (now - this.lastExpirationScan > this.expirationScanFrequencyNanos && !this.closed
+                && this.scanning.compareAndSet(false, true)) {
+            this.lastExpirationScan = now;
+            try {
+                this.executor.execute(this.scanTask);
+            } catch (RejectedExecutionException e) {
+                //线程池已经关闭，由下一次操作再尝试。
+                this.scanning.set(false);
+            }
+        }
+    }
+
+    private void scanForExpiredItems() {
+        try {
+            long now = this.ticker.read();
+            for (Segment segment : this.segments) {
+                segment.expire(now);
+            }
+        } finally {
+            this.scanning.set(false);
+        }
+    }
+
+    private static EvictionReason checkExpired(long now, int flags, long expiration, long sliding, long lastAccessed, Extra extra) {
+        if ((flags & FLAG_ABSOLUTE_EXPIRATION) != 0 && expiration - now <= 0) {
+            return EvictionReason.Expired;
+        }
+        if (sliding > 0 && lastAccessed + sliding - now < 0) {
+            return EvictionReason.Expired;
+        }
+        if (extra != null && extra.hasChangedTokens()) {
+            return EvictionReason.TokenExpired;
+        }
+        return null;
+    }
+
+    //缓存项需要过期检查：设置了绝对过期时间、滑动过期时间或者过期令牌。
+    private static boolean needsCheck(int flags, long sliding, Extra extra) {
+        return (flags & FLAG_ABSOLUTE_EXPIRATION) != 0 || sliding > 0 || (extra != null && extra.expirationTokens != null);
+    }
+
+    //缓存项下一次需要检查过期的时刻：绝对过期时间和滑动过期时间中较早的一个，有过期令牌时不晚于下一次过期扫描。
+    private long nextCheck(int flags, long expiration, long sliding, long lastAccessed, Extra extra, long now) {
+        boolean scheduled = false;
+        long time = 0;
+        if ((flags & FLAG_ABSOLUTE_EXPIRATION) != 0) {
+            time = expiration;
+            scheduled = true;
+        }
+        if (sliding > 0) {
+            long slidingTime = lastAccessed + sliding;
+            if (!scheduled || slidingTime - time < 0) {
+                time = slidingTime;
+            }
+            scheduled = true;
+        }
+        if (extra != null && extra.expirationTokens != null) {
+            long pollTime = now + this.expirationScanFrequencyNanos;
+            if (!scheduled || pollTime - time < 0) {
+                time = pollTime;
+            }
+        }
+        return time;
+    }
+
+    //缓存项离开缓存后记录统计并执行淘汰回调（只有注册了回调的缓存项才装箱键），必须在释放段的锁之后调用。
+    private void notifyEvicted(long key, Object value, EvictionReason reason, Extra extra) {
+        this.statsCounter.recordEviction(null, reason);
+        if (extra == null || extra.postEvictionCallbacks == null || this.closed) {
+            return;
+        }
+        List<PostEvictionCallbackRegistration> callbacks = extra.postEvictionCallbacks;
+        Runnable task = () -> {
+            for (PostEvictionCallbackRegistration registration : callbacks) {
+                IPostEvictionCallback callback = registration.getGetEvictionCallback();
+                if (callback != null) {
+                    try {
+                        callback.callback(key, value, reason, registration.getState());
+                    } catch (Throwable e) {
+
+                    }
+                }
+            }
+        };
+        try {
+            this.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!this.closed) {
+            this.closed = true;
+            for (Segment segment : this.segments) {
+                segment.clear();
+            }
+            if (this.ownedExecutor != null) {
+                this.ownedExecutor.shutdown();
+            }
+        }
+    }
+
+    //不常用的缓存项设置（过期令牌和淘汰回调），大多数缓存项没有。
+    private static final class Extra {
+        final List<IChangeToken> expirationTokens;
+        final List<PostEvictionCallbackRegistration> postEvictionCallbacks;
+
+        Extra(MemoryCacheEntryOptions options) {
+            this.expirationTokens = options.getExpirationTokens().isEmpty() ? null : new ArrayList<>(options.getExpirationTokens());
+            this.postEvictionCallbacks = options.getPostEvictionCallbacks().isEmpty() ? null : new ArrayList<>(options.getPostEvictionCallbacks());
+        }
+
+        boolean hasChangedTokens() {
+            if (this.expirationTokens != null) {
+                for (IChangeToken token : this.expirationTokens) {
+                    if (token.hasChanged()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    //过期扫描移除的缓存项，释放段的锁之后执行淘汰回调。
+    private static final class Eviction {
+        final long key;
+        final Object value;
+        final EvictionReason reason;
+        final Extra extra;
+
+        Eviction(long key, Object value, EvictionReason reason, Extra extra) {
+            this.key = key;
+            this.value = value;
+            this.reason = reason;
+            this.extra = extra;
+        }
+    }
+
+    //compact 时收集的缓存项。
+    private static final class Candidate {
+        final long key;
+        final long lastAccessed;
+
+        Candidate(long key, long lastAccessed) {
+            this.key = key;
+            this.lastAccessed = lastAccessed;
+        }
+    }
+
+    //开放寻址哈希表，values 为 null 的槽位为空，扩容时整体替换（读操作读取的数组不会被重新分配）。
+    private static final class Table {
+        final int mask;
+        final long[] keys;
+        final Object[] values;
+        final long[] expirations;
+        final long[] slidingExpirations;
+        //读取滑动过期的缓存项时在段的读锁下更新，其他修改持有段的写锁。
+        final AtomicLongArray lastAccessed;
+        //缓存项在过期堆中排队的检查时间（flags 设置了 FLAG_QUEUED 时有效）。
+        final long[] checkAt;
+        final byte[] flags;
+        final Extra[] extras;
+
+        Table(int capacity) {
+            this.mask = capacity - 1;
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.expirations = new long[capacity];
+            this.slidingExpirations = new long[capacity];
+            this.lastAccessed = new AtomicLongArray(capacity);
+            this.checkAt = new long[capacity];
+            this.flags = new byte[capacity];
+            this.extras = new Extra[capacity];
+        }
+
+        //最多探测整张表（乐观读时表可能正在被修改，探测链中不一定有空槽位）。
+        int indexOf(long key, int hash) {
+            int index = hash & this.mask;
+            for (int n = 0; n <= this.mask; n++) {
+                if (this.values[index] == null) {
+                    return -1;
+                }
+                if (this.keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & this.mask;
+            }
+            return -1;
+        }
+
+        int emptySlot(int hash) {
+            int index = hash & this.mask;
+            while (this.values[index] != null) {
+                index = (index + 1) & this.mask;
+            }
+            return index;
+        }
+
+        void move(int from, int to) {
+            this.keys[to] = this.keys[from];
+            this.values[to] = this.values[from];
+            this.expirations[to] = this.expirations[from];
+            this.slidingExpirations[to] = this.slidingExpirations[from];
+            this.lastAccessed.set(to, this.lastAccessed.get(from));
+            this.checkAt[to] = this.checkAt[from];
+            this.flags[to] = this.flags[from];
+            this.extras[to] = this.extras[from];
+        }
+
+        void clear(int index) {
+            this.values[index] = null;
+            this.extras[index] = null;
+        }
+    }
+
+    private final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table = new Table(INITIAL_SEGMENT_CAPACITY);
+        //只在持有写锁时修改。
+        private volatile int size;
+        //按检查时间排序的二叉最小堆（键和检查时间），只在持有写锁时修改。
+        //缓存项被移除、替换或者重新排队后旧节点留在堆中，出堆时与 Table.checkAt 不一致的节点直接丢弃。
+        private long[] heapKeys = new long[INITIAL_SEGMENT_CAPACITY];
+        private long[] heapTimes = new long[INITIAL_SEGMENT_CAPACITY];
+        private int heapSize;
+
+        Object get(long key, int hash, long now) {
+            Object value = null;
+            int flags = 0;
+            long expiration = 0;
+            long sliding = 0;
+            long lastAccessed = 0;
+            Extra extra = null;
+
+            long stamp = this.lock.tryOptimisticRead();
+            boolean locked = false;
+            try {
+                for (; ; ) {
+                    Table t = this.table;
+                    int index = t.indexOf(key, hash);
+                    if (index >= 0) {
+                        value = t.values[index];
+                        flags = t.flags[index];
+                        expiration = t.expirations[index];
+                        sliding = t.slidingExpirations[index];
+                        lastAccessed = t.lastAccessed.get(index);
+                        extra = t.extras[index];
+                    } else {
+                        value = null;
+                    }
+                    if (locked || this.lock.validate(stamp)) {
+                        break;
+                    }
+                    //乐观读期间有写操作，改为持有读锁再读一次。
+                    stamp = this.lock.readLock();
+                    locked = true;
+                }
+            } finally {
+                if (locked) {
+                    this.lock.unlockRead(stamp);
+                }
+            }
+
+            if (value == null) {
+                return null;
+            }
+            // 由于使用惰性过期算法，首先去检查是否过期，过期直接移除。
+            if (checkExpired(now, flags, expiration, sliding, lastAccessed, extra) != null) {
+                this.remove(key, hash, null, now);
+                return null;
+            }
+            //与 CacheEntry.recordRead 相同，滑动过期的缓存项每次读取都更新访问时间，时钟刻度没有前进时不写入。
+            if (sliding > 0 && now - lastAccessed > 0) {
+                this.recordAccess(key, hash, now);
+            }
+            return value;
+        }
+
+        //读锁之间不互斥，也不会使其他读操作的乐观读失效；读锁保证槽位不会被写操作移动。
+        private void recordAccess(long key, int hash, long now) {
+            long stamp = this.lock.readLock();
+            try {
+                Table t = this.table;
+                int index = t.indexOf(key, hash);
+                if (index >= 0) {
+                    //并发读取时不把最后访问时间改得更早。
+                    for (; ; ) {
+                        long last = t.lastAccessed.get(index);
+                        if (now - last <= 0 || t.lastAccessed.compareAndSet(index, last, now)) {
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+
+        void put(long key, int hash, Object value, int flags, long expiration, long sliding, long now, Extra extra) {
+            Object priorValue = null;
+            Extra priorExtra = null;
+            boolean check = needsCheck(flags, sliding, extra);
+            long checkAt = check ? nextCheck(flags, expiration, sliding, now, extra, now) : 0;
+            long stamp = this.lock.writeLock();
+            try {
+                Table t = this.table;
+                int index = t.indexOf(key, hash);
+                //替换的缓存项已经在堆中排队且检查时间不晚于新的检查时间时不再入堆，出堆时会按新的设置重新排队。
+                boolean queued = false;
+                if (index >= 0) {
+                    priorValue = t.values[index];
+                    priorExtra = t.extras[index];
+                    queued = check && (t.flags[index] & FLAG_QUEUED) != 0 && t.checkAt[index] - checkAt <= 0;
+                } else {
+                    //负载因子 0.75，超过时扩容。
+                    if ((this.size + 1) * 4 > (t.mask + 1) * 3) {
+                        t = this.resize(t);
+                    }
+                    index = t.emptySlot(hash);
+                    t.keys[index] = key;
+                    this.size++;
+                }
+                t.values[index] = value;
+                t.flags[index] = (byte) (queued ? flags | FLAG_QUEUED : flags);
+                t.expirations[index] = expiration;
+                t.slidingExpirations[index] = sliding;
+                t.lastAccessed.set(index, now);
+                t.extras[index] = extra;
+                if (check && !queued) {
+                    this.schedule(t, index, checkAt);
+                }
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+            if (priorValue != null) {
+                notifyEvicted(key, priorValue, EvictionReason.Replaced, priorExtra);
+            }
+        }
+
+        private Table resize(Table t) {
+            Table resized = new Table((t.mask + 1) << 1);
+            for (int i = 0; i <= t.mask; i++) {
+                if (t.values[i] != null) {
+                    int index = resized.emptySlot(hash(t.keys[i]));
+                    resized.keys[index] = t.keys[i];
+                    resized.values[index] = t.values[i];
+                    resized.expirations[index] = t.expirations[i];
+                    resized.slidingExpirations[index] = t.slidingExpirations[i];
+                    resized.lastAccessed.set(index, t.lastAccessed.get(i));
+                    resized.checkAt[index] = t.checkAt[i];
+                    resized.flags[index] = t.flags[i];
+                    resized.extras[index] = t.extras[i];
+                }
+            }
+            this.table = resized;
+            return resized;
+        }
+
+        /**
+         * 移除缓存项。
+         * @param reason 移除原因，为空时只移除已经过期的缓存项（使用过期的原因）。
+         * @return 是否移除了缓存项。
+         */
+        boolean remove(long key, int hash, EvictionReason reason, long now) {
+            Object value;
+            Extra extra;
+            long stamp = this.lock.writeLock();
+            try {
+                Table t = this.table;
+                int index = t.indexOf(key, hash);
+                if (index < 0) {
+                    return false;
+                }
+                if (reason == null) {
+                    reason = checkExpired(now, t.flags[index], t.expirations[index], t.slidingExpirations[index], t.lastAccessed.get(index), t.extras[index]);
+                    if (reason == null) {
+                        return false;
+                    }
+                }
+                value = t.values[index];
+                extra = t.extras[index];
+                this.removeAt(t, index);
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+            notifyEvicted(key, value, reason, extra);
+            return true;
+        }
+
+        //向后移动删除：把探测链上后续的项前移填补空位，不使用墓碑标记。
+        private void removeAt(Table t, int index) {
+            int gap = index;
+            int next = index;
+            for (; ; ) {
+                next = (next + 1) & t.mask;
+                if (t.values[next] == null) {
+                    break;
+                }
+                int ideal = hash(t.keys[next]) & t.mask;
+                //理想槽位不在 (gap, next] 之间时，该项可以移到空位。
+                if (((next - ideal) & t.mask) >= ((next - gap) & t.mask)) {
+                    t.move(next, gap);
+                    gap = next;
+                }
+            }
+            t.clear(gap);
+            this.size--;
+        }
+
+        //从过期堆中取出检查时间已到的缓存项，移除过期的缓存项，没有过期的（滑动过期被读取延长或者令牌没有变化）按新的检查时间重新排队。
+        void expire(long now) {
+            List<Eviction> evictions = null;
+            long stamp = this.lock.writeLock();
+            try {
+                Table t = this.table;
+                while (this.heapSize > 0 && this.heapTimes[0] - now <= 0) {
+                    long key = this.heapKeys[0];
+                    long time = this.heapTimes[0];
+                    this.poll();
+                    int index = t.indexOf(key, hash(key));
+                    if (index < 0 || (t.flags[index] & FLAG_QUEUED) == 0 || t.checkAt[index] != time) {
+                        continue;
+                    }
+                    long lastAccessed = t.lastAccessed.get(index);
+                    EvictionReason reason = checkExpired(now, t.flags[index], t.expirations[index], t.slidingExpirations[index], lastAccessed, t.extras[index]);
+                    if (reason == null) {
+                        long next = nextCheck(t.flags[index], t.expirations[index], t.slidingExpirations[index], lastAccessed, t.extras[index], now);
+                        //滑动过期恰好在当前时刻到期时还没有过期，推迟到下一个时钟刻度，避免本次扫描重复处理。
+                        this.schedule(t, index, next - now > 0 ? next : now + 1);
+                    } else {
+                        if (evictions == null) {
+                            evictions = new ArrayList<>();
+                        }
+                        evictions.add(new Eviction(key, t.values[index], reason, t.extras[index]));
+                        this.removeAt(t, index);
+                    }
+                }
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+            if (evictions != null) {
+                for (Eviction eviction : evictions) {
+                    notifyEvicted(eviction.key, eviction.value, eviction.reason, eviction.extra);
+                }
+            }
+        }
+
+        //缓存项入堆，必须持有写锁。
+        private void schedule(Table t, int index, long time) {
+            if (this.heapSize == this.heapKeys.length) {
+                //堆中大部分是旧节点时从哈希表重建，否则扩容。
+                if (this.heapSize > this.size * 2) {
+                    this.rebuildHeap(t);
+                }
+                if (this.heapSize == this.heapKeys.length) {
+                    this.heapKeys = Arrays.copyOf(this.heapKeys, this.heapSize << 1);
+                    this.heapTimes = Arrays.copyOf(this.heapTimes, this.heapSize << 1);
+                }
+            }
+            t.flags[index] |= FLAG_QUEUED;
+            t.checkAt[index] = time;
+            int i = this.heapSize++;
+            long key = t.keys[index];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (this.heapTimes[parent] - time <= 0) {
+                    break;
+                }
+                this.heapKeys[i] = this.heapKeys[parent];
+                this.heapTimes[i] = this.heapTimes[parent];
+                i = parent;
+            }
+            this.heapKeys[i] = key;
+            this.heapTimes[i] = time;
+        }
+
+        //移除堆顶节点。
+        private void poll() {
+            int last = --this.heapSize;
+            if (last > 0) {
+                this.siftDown(0, this.heapKeys[last], this.heapTimes[last]);
+            }
+        }
+
+        private void siftDown(int i, long key, long time) {
+            int half = this.heapSize >>> 1;
+            while (i < half) {
+                int child = (i << 1) + 1;
+                int right = child + 1;
+                if (right < this.heapSize && this.heapTimes[right] - this.heapTimes[child] < 0) {
+                    child = right;
+                }
+                if (time - this.heapTimes[child] <= 0) {
+                    break;
+                }
+                this.heapKeys[i] = this.heapKeys[child];
+                this.heapTimes[i] = this.heapTimes[child];
+                i = child;
+            }
+            this.heapKeys[i] = key;
+            this.heapTimes[i] = time;
+        }
+
+        //丢弃旧节点，只保留哈希表中排队的缓存项。
+        private void rebuildHeap(Table t) {
+            int n = 0;
+            for (int i = 0; i <= t.mask; i++) {
+                if (t.values[i] != null && (t.flags[i] & FLAG_QUEUED) != 0) {
+                    this.heapKeys[n] = t.keys[i];
+                    this.heapTimes[n] = t.checkAt[i];
+                    n++;
+                }
+            }
+            this.heapSize = n;
+            for (int i = (n >>> 1) - 1; i >= 0; i--) {
+                this.siftDown(i, this.heapKeys[i], this.heapTimes[i]);
+            }
+        }
+
+        void collect(long now, List<Candidate> expired, List<List<Candidate>> buckets) {
+            long stamp = this.lock.readLock();
+            try {
+                Table t = this.table;
+                for (int i = 0; i <= t.mask; i++) {
+                    if (t.values[i] == null) {
+                        continue;
+                    }
+                    long lastAccessed = t.lastAccessed.get(i);
+                    Candidate candidate = new Candidate(t.keys[i], lastAccessed);
+                    if (checkExpired(now, t.flags[i], t.expirations[i], t.slidingExpirations[i], lastAccessed, t.extras[i]) != null) {
+                        expired.add(candidate);
+                    } else {
+                        buckets.get(t.flags[i] & FLAG_PRIORITY_MASK).add(candidate);
+                    }
+                }
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = this.lock.writeLock();
+            try {
+                this.table = new Table(INITIAL_SEGMENT_CAPACITY);
+                this.size = 0;
+                this.heapKeys = new long[INITIAL_SEGMENT_CAPACITY];
+                this.heapTimes = new long[INITIAL_SEGMENT_CAPACITY];
+                this.heapSize = 0;
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+        }
+    }
+}
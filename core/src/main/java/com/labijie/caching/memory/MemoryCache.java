@@ -8,15 +8,20 @@ package com.labijie.caching.memory;
 
 import com.labijie.caching.*;
 
+import javax.management.ObjectName;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -27,35 +32,167 @@ public class MemoryCache implements AutoCloseable {
     private final ConcurrentHashMap<Object, CacheEntry> entries;
     private boolean closed;
 
-    private static final ExecutorService threadPool = Executors.newCachedThreadPool();
     private final Consumer<CacheEntry> setEntry;
     private final Consumer<CacheEntry> entryExpirationNotification;
 
-    private Long expirationScanFrequencyMilliseconds;
-    private LocalDateTime lastExpirationScan;
+    private final Ticker ticker;
+    private final long expirationScanFrequencyNanos;
+    private volatile long lastExpirationScan;
+
+    //维护任务（过期扫描、令牌过期移除）的状态，保证每个缓存同一时间最多只有一个维护任务在排队或执行。
+    private static final int IDLE = 0;
+    private static final int REQUIRED = 1;
+    private static final int PROCESSING = 2;
+    private final AtomicInteger drainStatus;
+    private final Runnable maintenanceTask;
+    private volatile boolean scanRequired;
+    private final Queue<CacheEntry> expiredEntries;
+    private final Executor executor;
+    //由缓存自己创建的线程池，close 时关闭。
+    private final ExecutorService ownedExecutor;
+    //执行写入后刷新的线程池，不能让刷新在读取线程上同步执行。
+    private final Executor refreshExecutor;
+    private final ExecutorService ownedRefreshExecutor;
+
+    //时间轮和淘汰策略的维护锁。
+    private final ReentrantLock evictionLock;
+    private final TimerWheel timerWheel;
+    private final WindowTinyLfuPolicy policy;
+    private final Weigher weigher;
+    //读操作只把访问记录写入缓冲区，持有 evictionLock 时批量更新淘汰策略。
+    private final ReadBuffer readBuffer;
+    //堆外值存储，未设置 offHeapCapacity 时为空。
+    private final OffHeapStore offHeapStore;
+    //磁盘溢出存储，未设置 diskSpillCapacity 时为空。
+    private final DiskSpillStore diskSpillStore;
+    private final Consumer<CacheEntry> accessRecorder;
+    //带有过期令牌的缓存项，过期扫描时需要轮询令牌状态。
+    private final Set<CacheEntry> tokenEntries;
+    //getOrCreate 的并发加载去重。
+    private final SingleFlight<Object> loads = new SingleFlight<>();
+    //命中、加载和淘汰统计，未启用时为空操作的计数器。
+    private final StatsCounter statsCounter;
+    private final String name;
+    private final ObjectName objectName;
+    private final EvictionDispatcher evictionDispatcher;
+    //缓存项离开缓存时同步调用的监听器（MemoryCacheManager 用于维护区域索引）。
+    private volatile Consumer<CacheEntry> removalListener;
+    private volatile Consumer<CacheEntry> additionListener;
+    //是否跟踪缓存项作用域（CacheEntryHelper），关闭后读写不访问 ThreadLocal，也不向外层缓存项传递过期设置。
+    private final boolean trackEntryScopes;
+    //缓存项值的默认引用强度，软引用或弱引用被 GC 回收后进入 referenceQueue。
+    private final ValueStrength valueStrength;
+    private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<>();
+    private final MemoryPressureController.Registration memoryPressureRegistration;
+    private final LongAdder memoryPressureCompactions = new LongAdder();
+    //维护任务的执行次数和耗时（纳秒），维护任务同一时间只有一个在执行。
+    private volatile long maintenanceCount;
+    private volatile long lastMaintenanceTime;
+    private volatile long totalMaintenanceTime;
 
     public MemoryCache(MemoryCacheOptions options) {
         if (options == null) {
             throw new IllegalArgumentException("MemoryCache 构造函数 options 不能为空。");
         }
+        if (options.getMaximumSize() != null && options.getMaximumWeight() != null) {
+            throw new IllegalArgumentException("MemoryCacheOptions 的 maximumSize 和 maximumWeight 不能同时设置。");
+        }
+        if (options.getMaximumWeight() != null && options.getWeigher() == null) {
+            throw new IllegalArgumentException("MemoryCacheOptions 设置 maximumWeight 时必须同时设置 weigher。");
+        }
+        if (options.getOffHeapCapacity() != null && options.getOffHeapSerializer() == null) {
+            throw new IllegalArgumentException("MemoryCacheOptions 设置 offHeapCapacity 时必须同时设置 offHeapSerializer。");
+        }
+        if (options.getDiskSpillCapacity() != null && options.getDiskSpillSerializer() == null) {
+            throw new IllegalArgumentException("MemoryCacheOptions 设置 diskSpillCapacity 时必须同时设置 diskSpillSerializer。");
+        }
         this.entries = new ConcurrentHashMap<>();
         setEntry = this::setEntry;
         this.entryExpirationNotification = this::entryExpired;
-        this.expirationScanFrequencyMilliseconds = options.getScanFrequency();
+        this.ticker = options.getTicker();
+        this.expirationScanFrequencyNanos = TimeUnit.MILLISECONDS.toNanos(options.getScanFrequency());
         //最后一次扫描时间设置为当前时间。
-        lastExpirationScan = LocalDateTime.now(ZoneOffset.UTC);
-        if (options.isCompact()) {
-            GcNotification.Register(this::doMemoryPreassureCollection, null);
+        lastExpirationScan = this.ticker.read();
+        this.evictionLock = new ReentrantLock();
+        this.timerWheel = new TimerWheel(lastExpirationScan);
+        if (options.getMaximumSize() != null) {
+            this.policy = new WindowTinyLfuPolicy(options.getMaximumSize(), false);
+            this.weigher = null;
+        } else if (options.getMaximumWeight() != null) {
+            this.policy = new WindowTinyLfuPolicy(options.getMaximumWeight(), true);
+            this.weigher = options.getWeigher();
+        } else {
+            this.policy = new WindowTinyLfuPolicy(WindowTinyLfuPolicy.UNBOUNDED, false);
+            this.weigher = null;
         }
+        this.readBuffer = new ReadBuffer();
+        this.offHeapStore = options.getOffHeapCapacity() == null ? null :
+                new OffHeapStore(options.getOffHeapCapacity(), options.getOffHeapSlabSize(), options.getOffHeapSerializer());
+        this.diskSpillStore = options.getDiskSpillCapacity() == null ? null :
+                new DiskSpillStore(options.getDiskSpillDirectory(), options.getDiskSpillCapacity(),
+                        options.getDiskSpillSegmentSize(), options.getDiskSpillSerializer());
+        this.accessRecorder = this.policy::onAccess;
+        this.tokenEntries = ConcurrentHashMap.newKeySet();
+        this.statsCounter = StatsCounter.create(options.isRecordStats());
+        this.trackEntryScopes = options.isTrackEntryScopes();
+        this.valueStrength = options.getValueStrength();
+        this.drainStatus = new AtomicInteger(IDLE);
+        this.maintenanceTask = this::runMaintenance;
+        this.expiredEntries = new ConcurrentLinkedQueue<>();
+        if (options.getExecutor() != null) {
+            this.executor = options.getExecutor();
+            this.ownedExecutor = null;
+            this.refreshExecutor = this.executor;
+            this.ownedRefreshExecutor = null;
+        } else {
+            this.ownedExecutor = createDefaultExecutor();
+            this.executor = this.ownedExecutor;
+            this.ownedRefreshExecutor = createDefaultRefreshExecutor();
+            this.refreshExecutor = this.ownedRefreshExecutor;
+        }
+        this.name = StringUtil.isNullOrWhiteSpace(options.getName()) ? JmxUtil.nextName("MemoryCache") : options.getName().trim();
+        this.evictionDispatcher = new EvictionDispatcher(this.name, options.getEvictionQueueCapacity(),
+                options.isDropEvictionNotificationsWhenFull(), options.getBulkEvictionListener());
+        this.objectName = options.isJmxEnabled() ? JmxUtil.register("MemoryCache", this.name, new MemoryCacheMXBeanAdapter(this)) : null;
+        this.memoryPressureRegistration = options.isCompact() ?
+                MemoryPressureController.SHARED.register(this, options.getHeapOccupancyTarget()) : null;
+    }
+
+    /**
+     * 获取缓存名称（MemoryCacheOptions.setName，未设置时自动生成）。
+     * @return
+     */
+    public String getName() {
+        return this.name;
     }
 
     /**
-     * MemoryCache 所有异步操作使用的统一线程池。
+     * 直接构造的 CacheEntry 使用的共享线程池。
      *
      * @return
+     * @deprecated MemoryCache 实例使用 MemoryCacheOptions.setExecutor 指定的线程池（默认是每个缓存独立的有界线程池），不再使用该线程池。
      */
+    @Deprecated
     public static ExecutorService getExecutionThreadPool() {
-        return threadPool;
+        return sharedExecutionThreadPool();
+    }
+
+    //直接构造的 CacheEntry 使用的共享线程池（首次使用时创建）。
+    static ExecutorService sharedExecutionThreadPool() {
+        return SharedThreadPoolHolder.threadPool;
+    }
+
+    /**
+     * 获取缓存执行维护任务的线程池（淘汰回调由淘汰通知线程执行）。
+     * @return
+     */
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    //只在首次使用时创建共享线程池。
+    private static final class SharedThreadPoolHolder {
+        static final ExecutorService threadPool = Executors.newCachedThreadPool();
     }
 
     private void checkClosed() {
@@ -64,6 +201,164 @@ public class MemoryCache implements AutoCloseable {
         }
     }
 
+    /**
+     * 获取缓存项的总权重（未设置 maximumWeight 时为缓存项数量）。
+     * @return
+     */
+    public long getWeightedSize() {
+        this.evictionLock.lock();
+        try {
+            return this.policy.weightedSize();
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 获取容量上限（maximumSize 或 maximumWeight），不限制时为 null。
+     * @return
+     */
+    public Long getMaximum() {
+        this.evictionLock.lock();
+        try {
+            long maximum = this.policy.getMaximum();
+            return maximum == WindowTinyLfuPolicy.UNBOUNDED ? null : maximum;
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 在运行时调整容量上限（设置了 maximumWeight 时按权重计算，否则按缓存项数量计算），缩小时超出的缓存项按淘汰策略立即淘汰。
+     * @param maximum 新的容量上限，为 null 时表示不限制。
+     */
+    public void resize(Long maximum) {
+        checkClosed();
+        if (maximum != null && maximum < 0) {
+            throw new IllegalArgumentException("MemoryCache.resize 参数 maximum 不能小于 0。");
+        }
+        List<CacheEntry> evicted = new ArrayList<>();
+        this.evictionLock.lock();
+        try {
+            this.drainReadBuffer();
+            this.policy.setMaximum(maximum == null ? WindowTinyLfuPolicy.UNBOUNDED : maximum, evicted);
+            for (CacheEntry e : evicted) {
+                this.timerWheel.deschedule(e);
+            }
+        } finally {
+            this.evictionLock.unlock();
+        }
+        this.evictEntries(evicted);
+    }
+
+    /**
+     * 获取过期扫描的频率（毫秒）。
+     * @return
+     */
+    public long getScanFrequencyMilliseconds() {
+        return TimeUnit.NANOSECONDS.toMillis(this.expirationScanFrequencyNanos);
+    }
+
+    /**
+     * 获取维护任务的执行次数。
+     * @return
+     */
+    public long getMaintenanceCount() {
+        return this.maintenanceCount;
+    }
+
+    /**
+     * 获取最近一次维护任务的耗时（纳秒）。
+     * @return
+     */
+    public long getLastMaintenanceTime() {
+        return this.lastMaintenanceTime;
+    }
+
+    /**
+     * 获取维护任务的总耗时（纳秒）。
+     * @return
+     */
+    public long getTotalMaintenanceTime() {
+        return this.totalMaintenanceTime;
+    }
+
+    /**
+     * 获取等待投递的淘汰通知数量。
+     * @return
+     */
+    public int getEvictionQueueSize() {
+        return this.evictionDispatcher.getQueueSize();
+    }
+
+    /**
+     * 获取已经投递的淘汰通知数量。
+     * @return
+     */
+    public long getDeliveredEvictionNotificationCount() {
+        return this.evictionDispatcher.getDeliveredCount();
+    }
+
+    /**
+     * 获取因为淘汰通知队列已满被丢弃的通知数量（MemoryCacheOptions.setDropEvictionNotificationsWhenFull）。
+     * @return
+     */
+    public long getDroppedEvictionNotificationCount() {
+        return this.evictionDispatcher.getDroppedCount();
+    }
+
+    /**
+     * 获取因为淘汰通知队列已满，淘汰线程等待入队的次数。
+     * @return
+     */
+    public long getBlockedEvictionNotificationCount() {
+        return this.evictionDispatcher.getBlockedCount();
+    }
+
+    /**
+     * 获取缓存值占用的堆外内存（单位：字节），未启用堆外存储时为 0。
+     * @return
+     */
+    public long getOffHeapSize() {
+        return this.offHeapStore == null ? 0 : this.offHeapStore.getUsedBytes();
+    }
+
+    /**
+     * 获取溢出到磁盘的缓存项数量，未启用磁盘溢出存储时为 0。
+     * @return
+     */
+    public int getDiskSpillCount() {
+        return this.diskSpillStore == null ? 0 : this.diskSpillStore.size();
+    }
+
+    /**
+     * 获取溢出到磁盘的缓存项占用的磁盘空间（单位：字节），未启用磁盘溢出存储时为 0。
+     * @return
+     */
+    public long getDiskSpillSize() {
+        return this.diskSpillStore == null ? 0 : this.diskSpillStore.getUsedBytes();
+    }
+
+    /**
+     * 获取缓存统计快照，未启用统计（MemoryCacheOptions.setRecordStats）时返回 {@link CacheStats#EMPTY}。
+     * @return
+     */
+    public CacheStats getStats() {
+        return this.statsCounter.snapshot();
+    }
+
+    /**
+     * 获取每个缓存区域（MemoryCacheManager 的 region）的统计快照。
+     * @return
+     */
+    public Map<String, CacheStats> getRegionStats() {
+        return this.statsCounter.regionSnapshots();
+    }
+
+    StatsCounter getStatsCounter() {
+        return this.statsCounter;
+    }
+
     /**
      * 获取当前缓存的大小。
      * @return
@@ -74,12 +369,51 @@ public class MemoryCache implements AutoCloseable {
 
     public CacheEntry createEntry(Object key) {
         checkClosed();
-        //该缓存项并不会被添加到缓存队列，而是等待GC 收集时才会被添加。
-        return new CacheEntry(
+        //该缓存项并不会被添加到缓存队列，调用 CacheEntry.commit（或 close）时才会被添加，不再使用时必须调用 discard。
+        CacheEntry entry = new CacheEntry(
                 key,
                 this.setEntry,
-                this.entryExpirationNotification
+                this.entryExpirationNotification,
+                this.ticker,
+                this.executor,
+                this.trackEntryScopes
         );
+        entry.statsCounter = this.statsCounter;
+        entry.evictionDispatcher = this.evictionDispatcher;
+        entry.removalListener = this.removalListener;
+        return entry;
+    }
+
+    /**
+     * 设置缓存项离开缓存（移除、替换、过期、淘汰）时同步调用的监听器，只对之后创建的缓存项有效。
+     * 监听器在触发移除的线程上执行，不经过淘汰通知队列，所以不会因为队列满（dropWhenFull）而被丢弃，必须足够轻量并且不能抛出异常。
+     * @param removalListener 监听器，参数为离开缓存的缓存项。
+     */
+    void setRemovalListener(Consumer<CacheEntry> removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * 设置缓存项被添加到 HASH 表（包括从磁盘溢出存储提升）之后同步调用的监听器，在被替换的缓存项的移除监听器之前执行。
+     * 监听器在添加缓存项的线程上执行，必须足够轻量并且不能抛出异常。
+     * @param additionListener 监听器，参数为已经添加的缓存项。
+     */
+    void setAdditionListener(Consumer<CacheEntry> additionListener) {
+        this.additionListener = additionListener;
+    }
+
+    /**
+     * 获取缓存键当前在内存或磁盘溢出存储中的缓存项，不检查过期，也不记录访问。
+     * @param key 缓存键。
+     * @return
+     */
+    CacheEntry peekEntry(Object key) {
+        CacheEntry entry = this.entries.get(key);
+        if (entry == null && this.diskSpillStore != null) {
+            DiskSpillStore.Record record = this.diskSpillStore.get(key);
+            entry = record == null ? null : record.entry;
+        }
+        return entry;
     }
 
     /**
@@ -88,30 +422,66 @@ public class MemoryCache implements AutoCloseable {
      * @return
      */
     public Object getOrDefault(Object key, Object defaultValue) {
+        Object result = this.getValue(key, true);
+        return result == null ? defaultValue : result;
+    }
+
+    //查找缓存对象，recordStats 为 false 时不计入命中统计（用于加载前的再次检查）。
+    private Object getValue(Object key, boolean recordStats) {
         if (key == null) {
             throw new IllegalArgumentException("MemoryCache getIfAbsent 调用 key 不能为空");
         }
         checkClosed();
 
-        Object result = null;
-        LocalDateTime utcNow = LocalDateTime.now(ZoneOffset.UTC);
+        long now = this.ticker.read();
+        CacheEntry entry = this.getEntry(key, now);
+        startScanForExpiredItems(now);
+
+        Object result = (entry == null) ? null : entry.getValue();
+        if (recordStats) {
+            this.recordAccess(key, result != null);
+        }
+        return result;
+    }
+
+    /**
+     * 查找缓存对象，不计入命中统计（用于 MemoryCacheManager 加载前的再次检查）。
+     */
+    Object getWithoutStats(Object key) {
+        return this.getValue(key, false);
+    }
+
+    private void recordAccess(Object key, boolean hit) {
+        if (hit) {
+            this.statsCounter.recordHits(RegionKey.regionOf(key), 1);
+        } else {
+            this.statsCounter.recordMisses(RegionKey.regionOf(key), 1);
+        }
+    }
 
+    //查找未过期的缓存项并记录读取，过期的缓存项会被移除。
+    private CacheEntry getEntry(Object key, long now) {
         CacheEntry entry = this.entries.getOrDefault(key, null);
-        if (entry != null) {
+        if (entry == null && this.diskSpillStore != null) {
+            entry = this.promoteEntry(key, now);
+            if (entry != null && this.trackEntryScopes) {
+                entry.propagateOptions(CacheEntryHelper.getCurrent());
+            }
+        } else if (entry != null) {
             // 由于使用惰性过期算法，首先去检查是否过期，过期直接移除。
-            if (entry.checkExpired(utcNow) && entry.getEvictionReason() != EvictionReason.Replaced) {
+            if (entry.checkExpired(now) && entry.getEvictionReason() != EvictionReason.Replaced) {
                 removeEntry(entry);
-            } else {
-                entry.setLastAccessed(utcNow);
-                result = entry.getValue();
+                return null;
+            }
+            entry.recordRead(now);
+            this.afterRead(entry);
 
-                // 当缓存项是在其他上下文创建时，需要复制过期令牌。
+            // 当缓存项是在其他上下文创建时，需要复制过期令牌。
+            if (this.trackEntryScopes) {
                 entry.propagateOptions(CacheEntryHelper.getCurrent());
             }
         }
-        startScanForExpiredItems();
-
-        return result == null ? defaultValue : result;
+        return entry;
     }
 
     public void remove(Object key) {
@@ -120,10 +490,75 @@ public class MemoryCache implements AutoCloseable {
         }
 
         checkClosed();
-        CacheEntry entry = this.entries.remove(key);
-        if (entry != null) {
-            entry.setExpired(EvictionReason.Removed);
-            entry.invokeEvictionCallbacks();
+        if (this.diskSpillStore != null) {
+            this.diskSpillStore.beginModification(key);
+        }
+        try {
+            CacheEntry entry = this.entries.remove(key);
+            if (entry != null) {
+                this.onEntryRemoved(entry);
+                entry.setExpired(EvictionReason.Removed);
+                entry.invokeEvictionCallbacks();
+            }
+            if (this.diskSpillStore != null) {
+                this.diskSpillStore.remove(key, EvictionReason.Removed);
+            }
+        } finally {
+            if (this.diskSpillStore != null) {
+                this.diskSpillStore.endModification(key);
+            }
+        }
+
+        startScanForExpiredItems();
+    }
+
+    /**
+     * 批量移除缓存项，所有缓存项在同一次加锁中从定时轮和淘汰策略中移除。
+     * @param keys 要移除的缓存键。
+     */
+    public void removeAll(Collection<?> keys) {
+        if (keys == null) {
+            throw new IllegalArgumentException("MemoryCache.removeAll 调用 keys 参数不能为空。");
+        }
+
+        checkClosed();
+        List<CacheEntry> removed = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            if (key == null) {
+                continue;
+            }
+            if (this.diskSpillStore != null) {
+                this.diskSpillStore.beginModification(key);
+            }
+            try {
+                CacheEntry entry = this.entries.remove(key);
+                if (entry != null) {
+                    this.tokenEntries.remove(entry);
+                    removed.add(entry);
+                }
+                if (this.diskSpillStore != null) {
+                    this.diskSpillStore.remove(key, EvictionReason.Removed);
+                }
+            } finally {
+                if (this.diskSpillStore != null) {
+                    this.diskSpillStore.endModification(key);
+                }
+            }
+        }
+        if (!removed.isEmpty()) {
+            this.evictionLock.lock();
+            try {
+                for (CacheEntry entry : removed) {
+                    this.timerWheel.deschedule(entry);
+                    this.policy.onRemove(entry);
+                }
+            } finally {
+                this.evictionLock.unlock();
+            }
+            for (CacheEntry entry : removed) {
+                entry.setExpired(EvictionReason.Removed);
+                entry.invokeEvictionCallbacks();
+            }
         }
 
         startScanForExpiredItems();
@@ -133,20 +568,123 @@ public class MemoryCache implements AutoCloseable {
         return (T) this.getOrDefault(key, null);
     }
 
+    /**
+     * 获取缓存对象，不存在时使用工厂方法创建并加入缓存。
+     * 同一个键的并发调用只会执行一次工厂方法，其他调用等待并返回同一个结果；工厂方法抛出的异常会传递给所有等待的调用，不会被缓存。
+     * @param key 缓存键。
+     * @param factory 创建缓存对象的工厂方法。
+     * @param <T> 缓存对象的类型。
+     * @return
+     */
     public <T> T getOrCreate(Object key, Function<CacheEntry, T> factory) {
         Object result = this.get(key);
         if (result == null && factory != null) {
-            CacheEntry entry = this.createEntry(key);
-            result = factory.apply(entry);
-            if(result != null) {
-                entry.setValue(result);
-                // 必须手动调用 close，而不能使用 try\final 结构，中间过程出错无法调用到 close 不会将缓存添加到缓存列表
-                entry.close();
-            }
+            result = this.load(key, factory, this.loads);
         }
         return (T) result;
     }
 
+    private <K> Object load(K key, Function<CacheEntry, ?> factory, SingleFlight<K> flights) {
+        return flights.execute(key, () -> {
+            //等待锁的过程中其他加载可能已经完成。
+            Object value = this.getValue(key, false);
+            if (value == null) {
+                CacheEntry entry = this.createEntry(key);
+                try {
+                    value = this.createValue(key, entry, factory);
+                    if (value != null) {
+                        entry.setValue(value);
+                        entry.commit();
+                    }
+                } finally {
+                    //工厂方法出错或者没有得到值时不加入缓存，只退出缓存项作用域（已经提交时忽略）。
+                    entry.discard();
+                }
+            }
+            return value;
+        });
+    }
+
+    //执行工厂方法并记录加载统计，抛出异常或者返回 null 记为加载失败。
+    private <T> T createValue(Object key, CacheEntry entry, Function<CacheEntry, T> factory) {
+        return this.statsCounter.recordLoad(RegionKey.regionOf(key), () -> factory.apply(entry));
+    }
+
+    /**
+     * 获取缓存对象，不存在时使用工厂方法创建并加入缓存；缓存项写入超过 refreshAfterWriteMilliseconds 后，
+     * 读取会立即返回当前的值，同时在后台执行一次工厂方法，完成后替换缓存项（同一个缓存项同一时间只会有一次后台刷新）。
+     * 后台刷新抛出异常或者返回 null 时保留当前的值，下一次读取会再次尝试刷新。
+     * @param key 缓存键。
+     * @param factory 创建缓存对象的工厂方法，需要在传入的 CacheEntry 上设置过期策略。
+     * @param refreshAfterWriteMilliseconds 写入后刷新的间隔（毫秒），小于等于 0 表示不刷新。
+     * @param <T> 缓存对象的类型。
+     * @return
+     */
+    public <T> T getOrCreate(Object key, Function<CacheEntry, T> factory, long refreshAfterWriteMilliseconds) {
+        return this.getOrCreate(key, factory, refreshAfterWriteMilliseconds, this.loads);
+    }
+
+    /**
+     * 与 {@link #getOrCreate(Object, Function, long)} 相同，但是加载和后台刷新使用调用方的 SingleFlight 去重，
+     * 供 MemoryCacheManager 与它自己的其他加载（getOrSet、getAllOrSet 等）共享同一个去重表。
+     */
+    @SuppressWarnings("unchecked")
+    <K, T> T getOrCreate(K key, Function<CacheEntry, T> factory, long refreshAfterWriteMilliseconds, SingleFlight<K> flights) {
+        if (key == null) {
+            throw new IllegalArgumentException("MemoryCache.getOrCreate 调用 key 参数不能为空。");
+        }
+        checkClosed();
+
+        long now = this.ticker.read();
+        CacheEntry entry = this.getEntry(key, now);
+        startScanForExpiredItems(now);
+        Object value = entry == null ? null : entry.getValue();
+        this.recordAccess(key, value != null);
+        if (value == null) {
+            return factory == null ? null : (T) this.load(key, factory, flights);
+        }
+        if (factory == null) {
+            return (T) value;
+        }
+
+        if (refreshAfterWriteMilliseconds > 0
+                && now - entry.getWriteTime() >= TimeUnit.MILLISECONDS.toNanos(refreshAfterWriteMilliseconds)
+                && entry.tryStartRefresh()) {
+            try {
+                this.refreshExecutor.execute(() -> this.refresh(key, entry, factory, flights));
+            } catch (RejectedExecutionException e) {
+                entry.endRefresh();
+            }
+        }
+        return (T) value;
+    }
+
+    private <K, T> void refresh(K key, CacheEntry current, Function<CacheEntry, T> factory, SingleFlight<K> flights) {
+        try {
+            flights.execute(key, () -> {
+                //缓存项已经被移除或替换时不再刷新。
+                if (this.entries.get(key) != current) {
+                    return null;
+                }
+                CacheEntry entry = this.createEntry(key);
+                try {
+                    T value = this.createValue(key, entry, factory);
+                    if (value != null) {
+                        entry.setValue(value);
+                        entry.commit();
+                    }
+                    return value;
+                } finally {
+                    entry.discard();
+                }
+            });
+        } catch (RuntimeException e) {
+            //刷新失败时继续使用当前的值。
+        } finally {
+            current.endRefresh();
+        }
+    }
+
     public <T> T set(Object key, T value, MemoryCacheEntryOptions options) {
         if (key == null) {
             throw new IllegalArgumentException("MemoryCache.set 调用 key 参数不能为空。");
@@ -155,11 +693,15 @@ public class MemoryCache implements AutoCloseable {
             throw new IllegalArgumentException("MemoryCache.set 调用 value 参数不能为空。");
         }
         CacheEntry entry = this.createEntry(key);
-        if (options != null) {
-            MemoryCacheEntryOptions.configureCacheEntry(entry, options);
+        try {
+            if (options != null) {
+                MemoryCacheEntryOptions.configureCacheEntry(entry, options);
+            }
+            entry.setValue(value);
+            entry.commit();
+        } finally {
+            entry.discard();
         }
-        entry.setValue(value);
-        entry.close();
 
         return value;
     }
@@ -194,30 +736,59 @@ public class MemoryCache implements AutoCloseable {
         return this.set(key, value, options);
     }
 
-    //添加一个缓存对象到HASH表（当GC回收时可以自动添加），用于防止对象被意外收集（由于JVM GC过程无法 Hook，暂时无效，或许可以使用 finalize？）
+    //CacheEntry.commit 时把缓存项添加到 HASH 表。
     private void setEntry(CacheEntry entry) {
-        if (closed) {
+        if (this.diskSpillStore == null) {
+            this.addEntry(entry, false);
             return;
         }
+        Object key = entry.getKey();
+        this.diskSpillStore.beginModification(key);
+        try {
+            //新写入的值代替磁盘上的旧值。
+            this.diskSpillStore.remove(key, EvictionReason.Replaced);
+            this.addEntry(entry, false);
+        } finally {
+            this.diskSpillStore.endModification(key);
+        }
+    }
 
-        LocalDateTime utcNow = LocalDateTime.now(ZoneOffset.UTC);
-
-        LocalDateTime absoluteExpiration = null;
-        //先考虑相对过期时间，在考虑绝对过期时间。
-        if (entry.getAbsoluteExpiration() != null) {
-            absoluteExpiration = entry.getAbsoluteExpiration();
+    //从磁盘溢出存储提升的缓存项保留原来的写入时间（用于写入后刷新）。
+    private void addEntry(CacheEntry entry, boolean promoted) {
+        if (closed) {
+            return;
         }
 
+        long now = this.ticker.read();
+
         // 实体被添加的时间进行记录（LUA算法）
-        entry.setLastAccessed(utcNow);
+        entry.setLastAccessed(now);
+        if (!promoted) {
+            entry.setWriteTime(now);
+        }
+        if (this.weigher != null) {
+            int weight = this.weigher.weigh(entry.getKey(), entry.getValue());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weigher 计算的缓存项权重不能小于 0。");
+            }
+            entry.weight = weight;
+        }
+        ValueStrength strength = entry.getValueStrength() == null ? this.valueStrength : entry.getValueStrength();
+        if (strength != ValueStrength.Strong) {
+            entry.referenceValue(strength, this.referenceQueue);
+        } else if (this.offHeapStore != null) {
+            entry.moveValueOffHeap(this.offHeapStore);
+        }
 
-        CacheEntry priorEntry = this.entries.getOrDefault(entry.getKey(), null);
+        //从磁盘溢出存储提升的缓存项只在键不存在时添加，不能替换提升过程中（claim 之后）并发写入的新缓存项；
+        //添加失败时提升的缓存项按 Replaced 执行淘汰回调（磁盘上的记录已经被 claim，写入时无法再替换它）。
+        CacheEntry priorEntry = promoted ? null : this.entries.getOrDefault(entry.getKey(), null);
         if (priorEntry != null) {
             //已经存在缓存项，先把旧的项过期。
             priorEntry.setExpired(EvictionReason.Replaced);
         }
 
-        if (!entry.checkExpired(utcNow)) {
+        if (!entry.checkExpired(now)) {
             boolean entryAdded = false;
 
             if (priorEntry == null) {
@@ -239,6 +810,11 @@ public class MemoryCache implements AutoCloseable {
 
             if (entryAdded) {
                 entry.attachTokens();
+                this.onEntryAdded(entry, priorEntry);
+                Consumer<CacheEntry> listener = this.additionListener;
+                if (listener != null) {
+                    listener.accept(entry);
+                }
             } else {
                 entry.setExpired(EvictionReason.Replaced);
                 entry.invokeEvictionCallbacks();
@@ -256,54 +832,307 @@ public class MemoryCache implements AutoCloseable {
         startScanForExpiredItems();
     }
 
+    //令牌过期的缓存项先排队，由维护任务批量移除。
     private void entryExpired(CacheEntry entry) {
-        //TODO: 应该考虑批量处理？
-        removeEntry(entry);
+        this.expiredEntries.offer(entry);
+        this.scheduleMaintenance();
         startScanForExpiredItems();
     }
 
+    //缓存项进入 HASH 表后加入时间轮，被替换的旧项同时移出。
+    private void onEntryAdded(CacheEntry entry, CacheEntry priorEntry) {
+        if (priorEntry != null) {
+            this.tokenEntries.remove(priorEntry);
+        }
+        if (entry.hasExpirationTokens()) {
+            this.tokenEntries.add(entry);
+        }
+        List<CacheEntry> evicted = null;
+        this.evictionLock.lock();
+        try {
+            this.drainReadBuffer();
+            if (priorEntry != null) {
+                this.timerWheel.deschedule(priorEntry);
+                this.policy.onRemove(priorEntry);
+            }
+            this.timerWheel.schedule(entry);
+            if (this.policy.getMaximum() == WindowTinyLfuPolicy.UNBOUNDED) {
+                this.policy.onAdd(entry, null);
+            } else {
+                evicted = new ArrayList<>(1);
+                this.policy.onAdd(entry, evicted);
+                for (CacheEntry e : evicted) {
+                    this.timerWheel.deschedule(e);
+                }
+            }
+        } finally {
+            this.evictionLock.unlock();
+        }
+        if (evicted != null) {
+            this.evictEntries(evicted);
+        }
+    }
+
+    //从 HASH 表中移除超出容量被淘汰的缓存项（淘汰策略和时间轮已经不再跟踪这些项）。
+    private void evictEntries(List<CacheEntry> evicted) {
+        for (CacheEntry e : evicted) {
+            if (this.entries.remove(e.getKey(), e)) {
+                this.tokenEntries.remove(e);
+                if (!this.spillEntry(e)) {
+                    e.setExpired(EvictionReason.Capacity);
+                    e.invokeEvictionCallbacks();
+                }
+            }
+        }
+    }
+
+    private void onEntryRemoved(CacheEntry entry) {
+        this.tokenEntries.remove(entry);
+        this.evictionLock.lock();
+        try {
+            this.timerWheel.deschedule(entry);
+            this.policy.onRemove(entry);
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    //记录访问，缓冲区满时尝试排空，锁被占用时由持有锁的线程或下一次写操作处理（读操作不等待淘汰策略）。
+    private void afterRead(CacheEntry entry) {
+        if (this.readBuffer.offer(entry) && this.evictionLock.tryLock()) {
+            try {
+                this.drainReadBuffer();
+            } finally {
+                this.evictionLock.unlock();
+            }
+        }
+    }
+
+    //把读缓冲区中的访问记录批量应用到淘汰策略，调用方必须持有 evictionLock。
+    private void drainReadBuffer() {
+        this.readBuffer.drainTo(this.accessRecorder);
+    }
+
     private void startScanForExpiredItems() {
-        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
-        if (this.lastExpirationScan.plus(this.expirationScanFrequencyMilliseconds, ChronoUnit.MILLIS).compareTo(now) < 0) {
+        startScanForExpiredItems(this.ticker.read());
+    }
+
+    private void startScanForExpiredItems(long now) {
+        if (now - this.lastExpirationScan > this.expirationScanFrequencyNanos) {
             this.lastExpirationScan = now;
-            final MemoryCache cache = this;
-            MemoryCache.getExecutionThreadPool().execute(() -> {
-                scanForExpiredItems(cache);
-            });
+            this.scanRequired = true;
+            this.scheduleMaintenance();
+        }
+    }
+
+    //提交维护任务，已经有维护任务在排队或执行时只标记需要再执行一次。
+    private void scheduleMaintenance() {
+        if (this.closed) {
+            return;
+        }
+        if (this.drainStatus.getAndSet(REQUIRED) == IDLE) {
+            try {
+                this.executor.execute(this.maintenanceTask);
+            } catch (RejectedExecutionException e) {
+                //线程池已经关闭，由下一次写操作再尝试。
+                this.drainStatus.set(IDLE);
+            }
+        }
+    }
+
+    private void runMaintenance() {
+        do {
+            this.drainStatus.set(PROCESSING);
+            long start = System.nanoTime();
+            CacheEntry entry;
+            while ((entry = this.expiredEntries.poll()) != null) {
+                this.removeEntry(entry);
+            }
+            this.drainReferenceQueue();
+            if (this.scanRequired) {
+                this.scanRequired = false;
+                scanForExpiredItems(this);
+            }
+            long elapsed = System.nanoTime() - start;
+            this.lastMaintenanceTime = elapsed;
+            this.totalMaintenanceTime += elapsed;
+            this.maintenanceCount++;
+        } while (!this.drainStatus.compareAndSet(PROCESSING, IDLE));
+    }
+
+    //移除值已经被 GC 回收的缓存项，值已经被替换（例如从磁盘溢出存储提升）的旧引用忽略。
+    private void drainReferenceQueue() {
+        Reference<?> reference;
+        long now = this.ticker.read();
+        while ((reference = this.referenceQueue.poll()) != null) {
+            ValueReference valueReference = (ValueReference) reference;
+            CacheEntry entry = valueReference.getEntry();
+            if (entry.isValueReference(valueReference) && entry.checkExpired(now)) {
+                this.removeEntry(entry);
+            }
+        }
+    }
+
+    //默认的维护线程池：空闲时不保留线程，线程数和队列都有上限，队列满时由提交任务的线程直接执行（形成背压）。
+    static ExecutorService createDefaultExecutor() {
+        int maximumThreads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                1,
+                maximumThreads,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1024),
+                new CacheThreadFactory("memory-cache-maintenance-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    //默认的写入后刷新线程池：与维护线程池相同的上限，但队列满时拒绝（AbortPolicy），由 getOrCreate 放弃本次刷新并继续返回当前的值。
+    private static ExecutorService createDefaultRefreshExecutor() {
+        int maximumThreads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                1,
+                maximumThreads,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(256),
+                new CacheThreadFactory("memory-cache-refresh-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static final class CacheThreadFactory implements ThreadFactory {
+        private static final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String namePrefix;
+
+        CacheThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, this.namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
         }
     }
 
+    //只处理时间轮中已到期的桶、带有令牌的缓存项以及磁盘溢出存储中已经到期的缓存项，不再遍历整个 HASH 表和磁盘索引。
     private static void scanForExpiredItems(MemoryCache cache) {
-        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        long now = cache.ticker.read();
         ArrayList<CacheEntry> toRemove = new ArrayList<>();
-        cache.entries.values().stream().filter(entry -> entry.checkExpired(now)).forEach(e -> toRemove.add(e));
 
-        toRemove.stream().forEach(cache::removeEntry);
+        cache.evictionLock.lock();
+        try {
+            cache.drainReadBuffer();
+            cache.timerWheel.advance(now, toRemove);
+        } finally {
+            cache.evictionLock.unlock();
+        }
+
+        for (CacheEntry entry : cache.tokenEntries) {
+            if (entry.checkExpired(now)) {
+                toRemove.add(entry);
+            }
+        }
+
+        if (cache.diskSpillStore != null) {
+            cache.diskSpillStore.expire(now);
+        }
+
+        for (CacheEntry entry : toRemove) {
+            if (entry.checkExpired(now)) {
+                cache.removeEntry(entry);
+            } else if (cache.entries.get(entry.getKey()) == entry) {
+                //滑动过期时间在桶到期的边界上被刷新，重新放回时间轮。
+                cache.evictionLock.lock();
+                try {
+                    cache.timerWheel.schedule(entry);
+                } finally {
+                    cache.evictionLock.unlock();
+                }
+            }
+        }
     }
 
     private void removeEntry(CacheEntry entry) {
         if(this.entries.remove(entry.getKey(), entry)){
-            entry.invokeEvictionCallbacks();
+            this.onEntryRemoved(entry);
+            if (entry.getEvictionReason() != EvictionReason.Capacity || !this.spillEntry(entry)) {
+                entry.invokeEvictionCallbacks();
+            }
         }
     }
 
+    //因容量被淘汰的缓存项写入磁盘溢出存储（不会执行淘汰回调），带有过期令牌的缓存项无法在磁盘上跟踪令牌，直接淘汰。
+    private boolean spillEntry(CacheEntry entry) {
+        return this.diskSpillStore != null
+                && !this.closed
+                && !entry.hasExpirationTokens()
+                && this.diskSpillStore.spill(entry);
+    }
+
+    //内存中未命中时从磁盘溢出存储查找缓存项，未过期时提升回内存（重新参与淘汰策略，被淘汰时会再次写入磁盘）。
+    private CacheEntry promoteEntry(Object key, long now) {
+        DiskSpillStore.Record record = this.diskSpillStore.get(key);
+        if (record == null) {
+            return null;
+        }
+        CacheEntry entry = record.entry;
+        if (entry.checkExpired(now)) {
+            this.diskSpillStore.remove(record, EvictionReason.Expired);
+            return null;
+        }
+        long stamp = this.diskSpillStore.getModificationStamp(key);
+        Object value = this.diskSpillStore.read(record);
+        if (value == null) {
+            //无法反序列化的值不再保留（所在段已经被回收时缓存项已经不在磁盘索引中）。
+            this.diskSpillStore.remove(record, EvictionReason.Capacity);
+            return null;
+        }
+        if (!this.diskSpillStore.claim(record)) {
+            return null;
+        }
+        entry.restoreValue(value);
+        this.addEntry(entry, true);
+        if (!this.diskSpillStore.validateModifications(key, stamp)) {
+            //提升过程中同一个键有并发的写入或移除，提升的值可能已经过时，放弃该缓存项（按未命中处理）。
+            if (this.entries.remove(key, entry)) {
+                this.onEntryRemoved(entry);
+                entry.setExpired(EvictionReason.Removed);
+                entry.invokeEvictionCallbacks();
+            }
+            return null;
+        }
+        //提升的缓存项被准入策略拒绝时会立即重新写入磁盘，按未命中处理（每次提升都会增加访问频率，访问频繁的项最终会被准入）。
+        return this.entries.get(key) == entry ? entry : null;
+    }
+
     /// 在内存紧张时通过调用此方法来回收内存，但是内存真正回收时间取决于下一次的GC.
-    /// 回收 10% 条目以压缩内存。
-    private boolean doMemoryPreassureCollection(Object state) {
+    /// 收缩比例由 MemoryPressureController 根据堆占用率超出目标的程度计算。
+    void compactForMemoryPressure(double percentage) {
         if (closed) {
-            return false;
+            return;
         }
+        this.memoryPressureCompactions.increment();
+        compact(percentage);
+    }
 
-        compact(0.10);
-
-        return true;
+    /**
+     * 获取因为堆占用率超过目标（MemoryCacheOptions.setHeapOccupancyTarget）而执行 compact 的次数。
+     * @return
+     */
+    public long getMemoryPressureCompactionCount() {
+        return this.memoryPressureCompactions.sum();
     }
 
     /**
      * 指定一个百分比 (0.10 for 10%) 元素数（或者内存？）对缓存, 移除使用以下策略:
      * 1. 移除所有已过期的缓存项。
-     * 2.  不同的 CacheItemPriority 按桶分装。
-     * 3. 排列出“最不活跃”（最后一次使用时间距离现在最远）的项.
+     * 2.  不同的 CacheItemPriority 按桶分装（NeverRemove 永远不会被移除）。
+     * 3. 每个桶内按 Window-TinyLFU 的淘汰顺序移除（访问频率低、最近未被访问的项优先）.
      * 可以考虑的策略： 最接近的绝对过期时间优先清理。
      * 可以考虑的策略： 最接近的滑动过期时间优先清理。
      * 可以考虑的策略： 占用内存最大的对象优先清理。
@@ -315,10 +1144,18 @@ public class MemoryCache implements AutoCloseable {
         List<CacheEntry> normalPriEntries = new ArrayList<>();
         List<CacheEntry> highPriEntries = new ArrayList<>();
 
-        //  按缓存项优先级和是否过期装桶。
-        LocalDateTime utcNow = LocalDateTime.now(ZoneOffset.UTC);
-        for (CacheEntry entry : this.entries.values()) {
-            if (entry.checkExpired(utcNow)) {
+        //  按淘汰顺序遍历，按缓存项优先级和是否过期装桶（桶内保持淘汰顺序）。
+        long now = this.ticker.read();
+        List<CacheEntry> evictionOrder;
+        this.evictionLock.lock();
+        try {
+            this.drainReadBuffer();
+            evictionOrder = this.policy.evictionOrder();
+        } finally {
+            this.evictionLock.unlock();
+        }
+        for (CacheEntry entry : evictionOrder) {
+            if (entry.checkExpired(now)) {
                 entriesToRemove.add(entry);
             } else {
                 switch (entry.getPriority()) {
@@ -364,14 +1201,7 @@ public class MemoryCache implements AutoCloseable {
             return;
         }
 
-        //桶中的元素数量超出了移除指标，事实 LRU 算法（先排序，在移除）
-        priorityEntries.sort(new Comparator<CacheEntry>() {
-            @Override
-            public int compare(CacheEntry o1, CacheEntry o2) {
-                return o1.getLastAccessed().compareTo(o2.getLastAccessed());
-            }
-        });
-
+        //桶中的元素数量超出了移除指标，桶内已经是 Window-TinyLFU 的淘汰顺序，依次移除。
         for (CacheEntry entry : priorityEntries) {
             entry.setExpired(EvictionReason.Capacity);
             entriesToRemove.add(entry);
@@ -382,10 +1212,26 @@ public class MemoryCache implements AutoCloseable {
     }
 
     @Override
-    public void close() throws Exception {
+    public void close() {
         if(!this.closed) {
             this.closed = true;
+            JmxUtil.unregister(this.objectName);
+            if (this.memoryPressureRegistration != null) {
+                this.memoryPressureRegistration.close();
+            }
             this.entries.clear();
+            this.tokenEntries.clear();
+            this.expiredEntries.clear();
+            if (this.diskSpillStore != null) {
+                this.diskSpillStore.close();
+            }
+            this.evictionDispatcher.close();
+            if (this.ownedExecutor != null) {
+                this.ownedExecutor.shutdown();
+            }
+            if (this.ownedRefreshExecutor != null) {
+                this.ownedRefreshExecutor.shutdown();
+            }
         }
     }
 }
@@ -10,7 +10,6 @@ import com.labijie.caching.*;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,10 +19,12 @@ import java.util.List;
 public class MemoryCacheEntryOptions
 {
     private LocalDateTime absoluteExpiration;
+    private Long absoluteExpirationRelativeToNow;
     private Long slidingExpiration;
     private List<IChangeToken> expirationTokens;
     private List<PostEvictionCallbackRegistration> postEvictionCallbacks;
     private CacheItemPriority priority;
+    private ValueStrength valueStrength;
 
     public MemoryCacheEntryOptions() {
         this.expirationTokens = new ArrayList<>();
@@ -32,9 +33,17 @@ public class MemoryCacheEntryOptions
     }
 
     static final void configureCacheEntry(CacheEntry entry, MemoryCacheEntryOptions options){
-        entry.setAbsoluteExpiration(options.getAbsoluteExpiration());
+        if (options.absoluteExpirationRelativeToNow != null) {
+            //相对过期时间在缓存项上直接换算为时钟刻度，不需要经过 LocalDateTime。
+            entry.setAbsoluteExpirationRelativeToNowMS(options.absoluteExpirationRelativeToNow);
+        } else {
+            entry.setAbsoluteExpiration(options.absoluteExpiration);
+        }
         entry.setSlidingExpirationMilliseconds(options.getSlidingExpirationMilliseconds());
         entry.setPriority(options.getPriority());
+        if (options.valueStrength != null) {
+            entry.setValueStrength(options.valueStrength);
+        }
 
         List<IChangeToken> tokens = entry.getExpirationTokens();
         for (IChangeToken token : options.getExpirationTokens()) {
@@ -62,6 +71,22 @@ public class MemoryCacheEntryOptions
         this.priority = priority;
     }
 
+    /**
+     * 获取缓存项值的引用强度。
+     * @return
+     */
+    public ValueStrength getValueStrength() {
+        return valueStrength;
+    }
+
+    /**
+     * 设置缓存项值的引用强度，为空时使用缓存的设置（MemoryCacheOptions.setValueStrength）。
+     * @param valueStrength
+     */
+    public void setValueStrength(ValueStrength valueStrength) {
+        this.valueStrength = valueStrength;
+    }
+
     /**
      * 获取缓存项令牌集合。
      * @return
@@ -83,6 +108,9 @@ public class MemoryCacheEntryOptions
      * @return
      */
     public LocalDateTime getAbsoluteExpiration() {
+        if (this.absoluteExpirationRelativeToNow != null) {
+            return LocalDateTime.now(ZoneOffset.UTC).plusNanos(this.absoluteExpirationRelativeToNow * 1000000L);
+        }
         return absoluteExpiration;
     }
 
@@ -92,6 +120,15 @@ public class MemoryCacheEntryOptions
      */
     public void setAbsoluteExpiration(LocalDateTime absoluteExpiration) {
         this.absoluteExpiration = absoluteExpiration;
+        this.absoluteExpirationRelativeToNow = null;
+    }
+
+    /**
+     * 获取相对于缓存项加入时间的绝对过期时间（单位：毫秒）。
+     * @return
+     */
+    public Long getAbsoluteExpirationRelativeToNow() {
+        return absoluteExpirationRelativeToNow;
     }
 
     /**
@@ -121,11 +158,8 @@ public class MemoryCacheEntryOptions
         if (milliseconds != null && milliseconds.intValue() <= 0) {
             throw new IllegalArgumentException("MemoryCacheEntryOptions.setAbsoluteExpirationRelativeToNowMS 方法参数 milliseconds 必须大于 0 或为空。");
         }
-        if (milliseconds == null) {
-            this.absoluteExpiration = null;
-        } else {
-            LocalDateTime exp = LocalDateTime.now(ZoneOffset.UTC).plus(milliseconds, ChronoUnit.MILLIS);
-            this.absoluteExpiration = exp;
-        }
+        //只记录相对时间，在配置缓存项时才换算为时钟刻度。
+        this.absoluteExpirationRelativeToNow = milliseconds;
+        this.absoluteExpiration = null;
     }
 }
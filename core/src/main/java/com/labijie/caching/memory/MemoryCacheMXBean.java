@@ -0,0 +1,99 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+import java.util.Map;
+
+/**
+ * MemoryCache 的 JMX 管理接口：查看大小、统计信息和维护任务耗时，在运行时收缩缓存或者调整容量上限。
+ */
+public interface MemoryCacheMXBean {
+
+    int getSize();
+
+    /**
+     * 获取缓存项的总权重（未设置 maximumWeight 时为缓存项数量）。
+     * @return
+     */
+    long getWeightedSize();
+
+    /**
+     * 获取容量上限（maximumSize 或 maximumWeight），不限制时为 -1。
+     * @return
+     */
+    long getMaximum();
+
+    long getScanFrequencyMilliseconds();
+
+    long getOffHeapSize();
+
+    int getDiskSpillCount();
+
+    long getDiskSpillSize();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getLoadCount();
+
+    /**
+     * 获取平均每次加载的耗时（纳秒）。
+     * @return
+     */
+    double getAverageLoadPenalty();
+
+    long getEvictionCount();
+
+    /**
+     * 获取按原因（EvictionReason 名称）分类的淘汰次数。
+     * @return
+     */
+    Map<String, Long> getEvictionCounts();
+
+    /**
+     * 获取等待投递的淘汰通知数量。
+     * @return
+     */
+    int getEvictionQueueSize();
+
+    long getDroppedEvictionNotificationCount();
+
+    long getBlockedEvictionNotificationCount();
+
+    /**
+     * 获取维护任务（过期扫描和令牌过期处理）的执行次数。
+     * @return
+     */
+    long getMaintenanceCount();
+
+    /**
+     * 获取最近一次维护任务的耗时（纳秒）。
+     * @return
+     */
+    long getLastMaintenanceTime();
+
+    /**
+     * 获取维护任务的总耗时（纳秒）。
+     * @return
+     */
+    long getTotalMaintenanceTime();
+
+    /**
+     * 按百分比收缩缓存，参考 {@link MemoryCache#compact(double)}。
+     * @param percentage 收缩百分比，1 表示全部收缩。
+     */
+    void compact(double percentage);
+
+    /**
+     * 调整容量上限，缩小时超出的缓存项按淘汰策略立即淘汰。
+     * @param maximum 新的容量上限，小于 0 表示不限制。
+     */
+    void resize(long maximum);
+}
@@ -0,0 +1,141 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+import com.labijie.caching.EvictionReason;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 把 MemoryCache 适配为 {@link MemoryCacheMXBean}。
+ */
+final class MemoryCacheMXBeanAdapter implements MemoryCacheMXBean {
+    private final MemoryCache cache;
+
+    MemoryCacheMXBeanAdapter(MemoryCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public int getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public long getWeightedSize() {
+        return cache.getWeightedSize();
+    }
+
+    @Override
+    public long getMaximum() {
+        Long maximum = cache.getMaximum();
+        return maximum == null ? -1 : maximum;
+    }
+
+    @Override
+    public long getScanFrequencyMilliseconds() {
+        return cache.getScanFrequencyMilliseconds();
+    }
+
+    @Override
+    public long getOffHeapSize() {
+        return cache.getOffHeapSize();
+    }
+
+    @Override
+    public int getDiskSpillCount() {
+        return cache.getDiskSpillCount();
+    }
+
+    @Override
+    public long getDiskSpillSize() {
+        return cache.getDiskSpillSize();
+    }
+
+    @Override
+    public long getHitCount() {
+        return cache.getStats().getHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.getStats().getMissCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return cache.getStats().getHitRate();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return cache.getStats().getLoadCount();
+    }
+
+    @Override
+    public double getAverageLoadPenalty() {
+        return cache.getStats().getAverageLoadPenalty();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.getStats().getEvictionCount();
+    }
+
+    @Override
+    public Map<String, Long> getEvictionCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<EvictionReason, Long> kv : cache.getStats().getEvictionCounts().entrySet()) {
+            counts.put(kv.getKey().name(), kv.getValue());
+        }
+        return counts;
+    }
+
+    @Override
+    public int getEvictionQueueSize() {
+        return cache.getEvictionQueueSize();
+    }
+
+    @Override
+    public long getDroppedEvictionNotificationCount() {
+        return cache.getDroppedEvictionNotificationCount();
+    }
+
+    @Override
+    public long getBlockedEvictionNotificationCount() {
+        return cache.getBlockedEvictionNotificationCount();
+    }
+
+    @Override
+    public long getMaintenanceCount() {
+        return cache.getMaintenanceCount();
+    }
+
+    @Override
+    public long getLastMaintenanceTime() {
+        return cache.getLastMaintenanceTime();
+    }
+
+    @Override
+    public long getTotalMaintenanceTime() {
+        return cache.getTotalMaintenanceTime();
+    }
+
+    @Override
+    public void compact(double percentage) {
+        if (percentage < 0 || percentage > 1) {
+            throw new IllegalArgumentException("compact 参数 percentage 必须在 0 到 1 之间。");
+        }
+        cache.compact(percentage);
+    }
+
+    @Override
+    public void resize(long maximum) {
+        cache.resize(maximum < 0 ? null : maximum);
+    }
+}
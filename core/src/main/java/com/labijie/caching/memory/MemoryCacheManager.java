@@ -8,18 +8,35 @@ package com.labijie.caching.memory;
 
 import com.labijie.caching.*;
 
-import java.util.Enumeration;
-import java.util.HashSet;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Created by ax03 on 2017/3/6.
  */
-public class MemoryCacheManager implements ICacheManager {
+public class MemoryCacheManager implements ICacheManager, AutoCloseable {
 
     public final static String DEFAULT_CACHE_NAME = "mozart.default";
-    private ConcurrentHashMap<String, HashSet<String>> caches;
+    //区域索引：区域名称 -> (完整缓存键 -> 缓存项)。缓存项被添加和离开缓存时（MemoryCache 的添加和移除监听器，同步执行）
+    //按缓存中当前的缓存项更新索引项，被替换或重新写入的缓存键不会被旧缓存项误删，索引的大小与存活的缓存项数量一致。
+    private ConcurrentHashMap<String, ConcurrentHashMap<RegionKey, CacheEntry>> caches;
     private MemoryCache cache = null;
+    //按区域设置的值引用强度（MemoryCacheOptions.setRegionValueStrength）。
+    private Map<String, ValueStrength> regionValueStrengths = Collections.emptyMap();
+    private ObjectName objectName;
+    //所有加载（getOrSet 的两个重载、getOrSetAsync 和 getAllOrSet）共用的去重表。
+    private final SingleFlight<RegionKey> loads = new SingleFlight<>();
 
     public MemoryCacheManager(MemoryCacheOptions options) {
         Guard.argumentNotNull(options, "options");
@@ -31,8 +48,16 @@ public class MemoryCacheManager implements ICacheManager {
         if(options == null){
             options = new MemoryCacheOptions();
         }
-        caches = new ConcurrentHashMap<String, HashSet<String>>();
+        JmxUtil.unregister(objectName);
+        objectName = null;
+        caches = new ConcurrentHashMap<String, ConcurrentHashMap<RegionKey, CacheEntry>>();
         cache = new MemoryCache(options);
+        cache.setRemovalListener(this::onEntryChanged);
+        cache.setAdditionListener(this::onEntryChanged);
+        regionValueStrengths = new HashMap<>(options.getRegionValueStrengths());
+        if (options.isJmxEnabled()) {
+            objectName = JmxUtil.register("MemoryCacheManager", cache.getName(), new CacheManagerMXBeanAdapter(this));
+        }
     }
 
     private void validateRegion(String region) {
@@ -44,19 +69,15 @@ public class MemoryCacheManager implements ICacheManager {
         }
     }
 
-    private String getFullKey(String region, String key) {
-        region = getRegionName(region);
-        return region + "|" + key;
+    //name 必须是已经通过 getRegionName 解析的区域名称。
+    private RegionKey getFullKey(String name, String key) {
+        return new RegionKey(name, key);
     }
 
     private String getRegionName(String region) {
         return StringUtil.isNullOrWhiteSpace(region) ? DEFAULT_CACHE_NAME : region.trim();
     }
 
-    private String getRegionNameFormFullKey(String fullKey) {
-        return fullKey.split("|")[0];
-    }
-
     private MemoryCacheEntryOptions createTimeoutOptions(Long cacheTime, boolean useSlidingExpiration) {
         MemoryCacheEntryOptions options = new MemoryCacheEntryOptions();
         if (!useSlidingExpiration) {
@@ -67,21 +88,25 @@ public class MemoryCacheManager implements ICacheManager {
         return options;
     }
 
-    private void callback(Object key, Object item, EvictionReason reason, Object state) {
-        String stringKey = key == null ? "" : key.toString();
-        String region = this.getRegionNameFormFullKey(stringKey);
-        switch (reason) {
-            case Capacity:
-            case Removed:
-            case Expired:
-                HashSet<String> regionKeys = caches.get(stringKey);
-                if (regionKeys != null) {
-                    regionKeys.remove(stringKey);
-                }
-                break;
-            default:
-                break;
+    //缓存项被添加或者离开缓存后，按缓存中当前的缓存项更新区域索引。
+    //同一个键的更新在 compute 中串行执行，最后一次更新发生在最后一次修改之后，所以并发的写入、替换和移除以任意顺序交错时索引都与缓存一致。
+    private void onEntryChanged(CacheEntry entry) {
+        Object key = entry.getKey();
+        if (!(key instanceof RegionKey)) {
+            return;
         }
+        RegionKey fullKey = (RegionKey) key;
+        ConcurrentHashMap<RegionKey, CacheEntry> regionKeys = caches.computeIfAbsent(fullKey.region, k -> new ConcurrentHashMap<RegionKey, CacheEntry>());
+        regionKeys.compute(fullKey, (k, indexed) -> cache.peekEntry(k));
+    }
+
+    /**
+     * 获取绑定到指定缓存区域的操作句柄，区域名称只在创建时校验和解析一次，之后的读写不再拼接字符串键。
+     */
+    @Override
+    public ICacheRegion region(String region) {
+        this.validateRegion(region);
+        return new Region(getRegionName(region));
     }
 
     @Override
@@ -89,75 +114,336 @@ public class MemoryCacheManager implements ICacheManager {
         Guard.argumentNullOrWhiteSpaceString(key, "key");
         this.validateRegion(region);
 
-        String name = getRegionName(region);
-        String fullKey = this.getFullKey(name, key);
+        return this.getCore(getRegionName(region), key);
+    }
 
-        return cache.get(fullKey);
+    private Object getCore(String name, String key) {
+        return cache.get(this.getFullKey(name, key));
     }
 
     @Override
     public void set(String key, Object data, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
         Guard.argumentNullOrWhiteSpaceString(key, "key");
         this.validateRegion(region);
+
+        this.setCore(this.getFullKey(getRegionName(region), key), data, timeoutMilliseconds, useSlidingExpiration);
+    }
+
+    private void setCore(RegionKey fullKey, Object data, Long timeoutMilliseconds, boolean useSlidingExpiration) {
         if (data == null) {
-            this.remove(key, region);
+            cache.remove(fullKey);
             return;
         }
+        CacheEntry entry = cache.createEntry(fullKey);
+        try {
+            this.configureEntry(fullKey, entry, timeoutMilliseconds, useSlidingExpiration);
+            entry.setValue(data);
+            entry.commit();
+        } finally {
+            entry.discard();
+        }
+    }
+
+    //设置缓存项的过期策略，缓存项添加到缓存之后由添加监听器记录到区域索引中。
+    private void configureEntry(RegionKey fullKey, CacheEntry entry, Long timeoutMilliseconds, boolean useSlidingExpiration) {
+        MemoryCacheEntryOptions options = createTimeoutOptions(timeoutMilliseconds, useSlidingExpiration);
+        options.setValueStrength(regionValueStrengths.get(fullKey.region));
+        MemoryCacheEntryOptions.configureCacheEntry(entry, options);
+    }
+
+    @Override
+    public <T> T getOrSet(String key, Function<String, T> factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        if (factory == null) {
+            throw new IllegalArgumentException("ICacheManager.getOrSet 参数 factory 不能为空。");
+        }
+        Guard.argumentNullOrWhiteSpaceString(key, "key");
+        this.validateRegion(region);
+
+        return this.getOrSetCore(this.getFullKey(getRegionName(region), key), factory, timeoutMilliseconds, useSlidingExpiration);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getOrSetCore(RegionKey fullKey, Function<String, T> factory, Long timeoutMilliseconds, boolean useSlidingExpiration) {
+        Object data = cache.get(fullKey);
+        if (data == null) {
+            data = this.loads.execute(fullKey, () -> {
+                Object value = cache.getWithoutStats(fullKey);
+                if (value == null) {
+                    value = cache.getStatsCounter().recordLoad(fullKey.region, () -> factory.apply(fullKey.key));
+                    if (value != null) {
+                        this.setCore(fullKey, value, timeoutMilliseconds, useSlidingExpiration);
+                    }
+                }
+                return value;
+            });
+        }
+        return (T) data;
+    }
+
+    @Override
+    public <T> T getOrSet(String key, Function<String, T> factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration, Long refreshAfterWriteMilliseconds) {
+        if (refreshAfterWriteMilliseconds == null || refreshAfterWriteMilliseconds <= 0) {
+            return this.getOrSet(key, factory, timeoutMilliseconds, region, useSlidingExpiration);
+        }
+        if (factory == null) {
+            throw new IllegalArgumentException("ICacheManager.getOrSet 参数 factory 不能为空。");
+        }
+        Guard.argumentNullOrWhiteSpaceString(key, "key");
+        this.validateRegion(region);
+
+        RegionKey fullKey = this.getFullKey(getRegionName(region), key);
+        return cache.getOrCreate(fullKey, entry -> {
+            T value = factory.apply(key);
+            if (value != null) {
+                this.configureEntry(fullKey, entry, timeoutMilliseconds, useSlidingExpiration);
+            }
+            return value;
+        }, refreshAfterWriteMilliseconds, this.loads);
+    }
+
+    /**
+     * 异步获取缓存项，不存在时使用异步工厂方法创建并加入缓存。
+     * 内存缓存的读写都在调用线程上同步完成，同一个键的并发调用共享同一次加载。
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> getOrSetAsync(String key, Function<String, CompletionStage<T>> factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        if (factory == null) {
+            throw new IllegalArgumentException("ICacheManager.getOrSetAsync 参数 factory 不能为空。");
+        }
+        Guard.argumentNullOrWhiteSpaceString(key, "key");
+        this.validateRegion(region);
+
+        RegionKey fullKey = this.getFullKey(getRegionName(region), key);
+        Object data = cache.get(fullKey);
+        if (data != null) {
+            return CompletableFuture.completedFuture((T) data);
+        }
+        return this.loads.executeAsync(fullKey, () -> {
+            Object value = cache.getWithoutStats(fullKey);
+            if (value != null) {
+                return CompletableFuture.completedFuture((T) value);
+            }
+            StatsCounter stats = cache.getStatsCounter();
+            long start = System.nanoTime();
+            return factory.apply(key).whenComplete((v, ex) -> {
+                if (v != null) {
+                    stats.recordLoadSuccess(fullKey.region, System.nanoTime() - start);
+                } else {
+                    stats.recordLoadFailure(fullKey.region, System.nanoTime() - start);
+                }
+            }).thenApply(v -> {
+                if (v != null) {
+                    this.setCore(fullKey, v, timeoutMilliseconds, useSlidingExpiration);
+                }
+                return v;
+            });
+        });
+    }
+
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys, String region) {
+        Guard.argumentNotNull(keys, "keys");
+        this.validateRegion(region);
 
         String name = getRegionName(region);
-        String fullKey = this.getFullKey(name, key);
+        Map<String, Object> result = new HashMap<>(Math.max(16, keys.size() * 2));
+        for (String key : keys) {
+            Guard.argumentNullOrWhiteSpaceString(key, "key");
+            Object data = this.getCore(name, key);
+            if (data != null) {
+                result.put(key, data);
+            }
+        }
+        return result;
+    }
 
-        HashSet<String> regionKeys = caches.computeIfAbsent(name, k -> new HashSet<String>());
-        regionKeys.add(fullKey);
-        MemoryCacheEntryOptions options = createTimeoutOptions(timeoutMilliseconds, useSlidingExpiration);
-        options.getPostEvictionCallbacks().add(new PostEvictionCallbackRegistration(new IPostEvictionCallback() {
-            @Override
-            public void callback(Object key, Object value, EvictionReason reason, Object state) {
-                ((MemoryCacheManager) state).callback(key, value, reason, state);
+    @Override
+    public void setAll(Map<String, ?> data, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        Guard.argumentNotNull(data, "data");
+        this.validateRegion(region);
+
+        String name = getRegionName(region);
+        for (Map.Entry<String, ?> kv : data.entrySet()) {
+            Guard.argumentNullOrWhiteSpaceString(kv.getKey(), "key");
+            this.setCore(this.getFullKey(name, kv.getKey()), kv.getValue(), timeoutMilliseconds, useSlidingExpiration);
+        }
+    }
+
+    /**
+     * 批量获取缓存项，缓存中不存在的键与正在进行中的加载（包括 getOrSet）去重后，通过一次 batchLoader 调用创建并批量写入缓存。
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAllOrSet(Collection<String> keys, Function<Set<String>, Map<String, T>> batchLoader, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        if (batchLoader == null) {
+            throw new IllegalArgumentException("ICacheManager.getAllOrSet 参数 batchLoader 不能为空。");
+        }
+        Map<String, T> result = new HashMap<>((Map<String, T>) (Map<String, ?>) this.getAll(keys, region));
+        String name = getRegionName(region);
+        List<RegionKey> missing = new ArrayList<>();
+        for (String key : keys) {
+            if (!result.containsKey(key)) {
+                missing.add(this.getFullKey(name, key));
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        Map<RegionKey, T> loaded = this.loads.executeAll(missing, owned -> {
+            Set<String> ownedKeys = new LinkedHashSet<>();
+            for (RegionKey fullKey : owned) {
+                ownedKeys.add(fullKey.key);
+            }
+            //等待加载期间其他线程可能已经写入了缓存。
+            Map<String, T> values = new HashMap<>(Math.max(16, ownedKeys.size() * 2));
+            for (String key : ownedKeys) {
+                Object value = cache.getWithoutStats(this.getFullKey(name, key));
+                if (value != null) {
+                    values.put(key, (T) value);
+                }
+            }
+            ownedKeys.removeAll(values.keySet());
+            if (!ownedKeys.isEmpty()) {
+                Map<String, T> created = cache.getStatsCounter().recordLoad(name, () -> CacheLoadUtil.loadMissing(ownedKeys, batchLoader));
+                if (!created.isEmpty()) {
+                    this.setAll(created, timeoutMilliseconds, region, useSlidingExpiration);
+                    values.putAll(created);
+                }
             }
-        }, this));
-        cache.set(fullKey, data, options);
+            Map<RegionKey, T> byFullKey = new HashMap<>(Math.max(16, values.size() * 2));
+            for (Map.Entry<String, T> kv : values.entrySet()) {
+                byFullKey.put(this.getFullKey(name, kv.getKey()), kv.getValue());
+            }
+            return byFullKey;
+        });
+        for (Map.Entry<RegionKey, T> kv : loaded.entrySet()) {
+            result.put(kv.getKey().key, kv.getValue());
+        }
+        return result;
     }
 
     @Override
-    public void remove(String key, String region) {
+    public void removeAll(Collection<String> keys, String region) {
+        Guard.argumentNotNull(keys, "keys");
         this.validateRegion(region);
 
         String name = getRegionName(region);
-        String fullKey = this.getFullKey(name, key);
+        List<RegionKey> fullKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Guard.argumentNullOrWhiteSpaceString(key, "key");
+            fullKeys.add(this.getFullKey(name, key));
+        }
+        cache.removeAll(fullKeys);
+    }
 
-        cache.remove(fullKey);
+    /**
+     * 关闭缓存并注销 JMX MBean。
+     */
+    @Override
+    public void close() {
+        JmxUtil.unregister(objectName);
+        cache.close();
+    }
+
+    @Override
+    public void remove(String key, String region) {
+        Guard.argumentNullOrWhiteSpaceString(key, "key");
+        this.validateRegion(region);
+
+        cache.remove(this.getFullKey(getRegionName(region), key));
     }
 
     @Override
     public boolean refresh(String key, String region) {
-        Object result = this.get(key, region);
-        return result != null;
+        Guard.argumentNullOrWhiteSpaceString(key, "key");
+        this.validateRegion(region);
+
+        return cache.getWithoutStats(this.getFullKey(getRegionName(region), key)) != null;
+    }
+
+    @Override
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+
+    @Override
+    public Map<String, CacheStats> getRegionStats() {
+        return cache.getRegionStats();
     }
 
     @Override
     public void clearRegion(String region) {
         this.validateRegion(region);
 
-        String name = getRegionName(region);
-        HashSet<String> regionKeys = caches.getOrDefault(name, null);
+        this.clearRegionCore(getRegionName(region));
+    }
+
+    private void clearRegionCore(String name) {
+        ConcurrentHashMap<RegionKey, CacheEntry> regionKeys = caches.get(name);
         if (regionKeys != null) {
-            for (String v : regionKeys) {
-                cache.remove(v);
-            }
+            //按快照批量移除，索引项由移除监听器清理；清理过程中并发写入的缓存项仍然记录在索引中。
+            cache.removeAll(new ArrayList<>(regionKeys.keySet()));
         }
     }
 
     @Override
     public void clear() {
-        Enumeration<String> keys = this.caches.keys();
-        while (keys.hasMoreElements()) {
-            HashSet<String> values = this.caches.getOrDefault(keys.nextElement(), null);
-            if (values != null) {
-                for (String v : values) {
-                    cache.remove(v);
-                }
+        List<RegionKey> fullKeys = new ArrayList<>();
+        for (ConcurrentHashMap<RegionKey, CacheEntry> regionKeys : this.caches.values()) {
+            fullKeys.addAll(regionKeys.keySet());
+        }
+        cache.removeAll(fullKeys);
+    }
+
+    //区域句柄：区域名称已经解析，读写直接使用 RegionKey，不再校验区域名称和拼接字符串。
+    private final class Region implements ICacheRegion {
+        private final String name;
+
+        Region(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public Object get(String key) {
+            Guard.argumentNullOrWhiteSpaceString(key, "key");
+            return MemoryCacheManager.this.getCore(this.name, key);
+        }
+
+        @Override
+        public void set(String key, Object data, Long timeoutMilliseconds, boolean useSlidingExpiration) {
+            Guard.argumentNullOrWhiteSpaceString(key, "key");
+            MemoryCacheManager.this.setCore(getFullKey(this.name, key), data, timeoutMilliseconds, useSlidingExpiration);
+        }
+
+        @Override
+        public void remove(String key) {
+            Guard.argumentNullOrWhiteSpaceString(key, "key");
+            cache.remove(getFullKey(this.name, key));
+        }
+
+        @Override
+        public boolean refresh(String key) {
+            return this.get(key) != null;
+        }
+
+        @Override
+        public <T> T getOrSet(String key, Function<String, T> factory, Long timeoutMilliseconds, boolean useSlidingExpiration) {
+            if (factory == null) {
+                throw new IllegalArgumentException("ICacheRegion.getOrSet 参数 factory 不能为空。");
             }
+            Guard.argumentNullOrWhiteSpaceString(key, "key");
+            return MemoryCacheManager.this.getOrSetCore(getFullKey(this.name, key), factory, timeoutMilliseconds, useSlidingExpiration);
+        }
+
+        @Override
+        public void clear() {
+            MemoryCacheManager.this.clearRegionCore(this.name);
         }
     }
 }
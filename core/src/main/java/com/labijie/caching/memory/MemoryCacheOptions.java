@@ -6,14 +6,55 @@
  */
 package com.labijie.caching.memory;
 
+import com.labijie.caching.IBulkEvictionListener;
+import com.labijie.caching.ICacheDataSerializer;
+import com.labijie.caching.StringUtil;
+import com.labijie.caching.Ticker;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
 public class MemoryCacheOptions {
 
     private Long scanFrequency;
     private boolean compact;
+    private double heapOccupancyTarget;
+    private boolean recordStats;
+    private String name;
+    private boolean jmxEnabled;
+    private int evictionQueueCapacity;
+    private boolean dropEvictionNotificationsWhenFull;
+    private IBulkEvictionListener bulkEvictionListener;
+    private boolean trackEntryScopes;
+    private ValueStrength valueStrength;
+    private final Map<String, ValueStrength> regionValueStrengths = new HashMap<>();
+    private Ticker ticker;
+    private Long maximumSize;
+    private Long maximumWeight;
+    private Weigher weigher;
+    private Executor executor;
+    private Long offHeapCapacity;
+    private int offHeapSlabSize;
+    private ICacheDataSerializer offHeapSerializer;
+    private Long diskSpillCapacity;
+    private int diskSpillSegmentSize;
+    private Path diskSpillDirectory;
+    private ICacheDataSerializer diskSpillSerializer;
 
     public MemoryCacheOptions() {
         this.compact = true;
+        this.heapOccupancyTarget = 0.85d;
+        this.trackEntryScopes = true;
+        this.valueStrength = ValueStrength.Strong;
         this.scanFrequency = 1 * 1000L;
+        this.ticker = Ticker.SYSTEM;
+        this.offHeapSlabSize = OffHeapStore.DEFAULT_SLAB_SIZE;
+        this.diskSpillSegmentSize = DiskSpillStore.DEFAULT_SEGMENT_SIZE;
+        this.evictionQueueCapacity = EvictionDispatcher.DEFAULT_QUEUE_CAPACITY;
+        this.diskSpillDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "labijie-caching");
     }
 
     /**
@@ -41,10 +82,413 @@ public class MemoryCacheOptions {
     }
 
     /**
-     * 设置是否启用收缩内存。
+     * 设置是否启用收缩内存：GC 之后的堆占用率超过 heapOccupancyTarget 时按超出的比例收缩缓存。
      * @param compact
      */
     public void setCompact(boolean compact) {
         this.compact = compact;
     }
+
+    /**
+     * 获取收缩内存的目标堆占用率。
+     * @return
+     */
+    public double getHeapOccupancyTarget() {
+        return heapOccupancyTarget;
+    }
+
+    /**
+     * 设置收缩内存的目标堆占用率（默认 0.85），GC 之后的堆占用率超过该值时，
+     * 缓存按 (占用率 - 目标) / 占用率 的比例收缩（单次最多 50%）。
+     * @param heapOccupancyTarget 0 到 1 之间（不包括 0）。
+     */
+    public void setHeapOccupancyTarget(double heapOccupancyTarget) {
+        if (heapOccupancyTarget <= 0 || heapOccupancyTarget > 1) {
+            throw new IllegalArgumentException("MemoryCacheOptions.setHeapOccupancyTarget 参数 heapOccupancyTarget 必须大于 0 并且不大于 1。");
+        }
+        this.heapOccupancyTarget = heapOccupancyTarget;
+    }
+
+    /**
+     * 是否记录命中、加载和淘汰统计。
+     * @return
+     */
+    public boolean isRecordStats() {
+        return recordStats;
+    }
+
+    /**
+     * 设置是否记录命中、加载和淘汰统计（默认不记录，不记录时统计没有任何开销）。
+     * @param recordStats
+     */
+    public void setRecordStats(boolean recordStats) {
+        this.recordStats = recordStats;
+    }
+
+    /**
+     * 获取缓存内部计时使用的时钟。
+     * @return
+     */
+    public Ticker getTicker() {
+        return ticker;
+    }
+
+    /**
+     * 设置缓存内部计时使用的时钟（例如使用 CoarseTicker 降低读操作的计时开销）。
+     * @param ticker
+     */
+    public void setTicker(Ticker ticker) {
+        this.ticker = ticker == null ? Ticker.SYSTEM : ticker;
+    }
+
+    /**
+     * 获取缓存项数量的上限，为空表示不限制。
+     * @return
+     */
+    public Long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * 设置缓存项数量的上限（不能与 maximumWeight 同时使用），写入使缓存超出上限时会按淘汰策略持续淘汰缓存项。
+     * @param maximumSize 缓存项数量上限，为空表示不限制。
+     */
+    public void setMaximumSize(Long maximumSize) {
+        if (maximumSize != null && maximumSize < 0) {
+            throw new IllegalArgumentException("MemoryCacheOptions.setMaximumSize 参数 maximumSize 不能小于 0。");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * 获取缓存项总权重的上限，为空表示不限制。
+     * @return
+     */
+    public Long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * 设置缓存项总权重的上限（必须同时设置 weigher，不能与 maximumSize 同时使用）。
+     * @param maximumWeight 总权重上限，为空表示不限制。
+     */
+    public void setMaximumWeight(Long maximumWeight) {
+        if (maximumWeight != null && maximumWeight < 0) {
+            throw new IllegalArgumentException("MemoryCacheOptions.setMaximumWeight 参数 maximumWeight 不能小于 0。");
+        }
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * 获取计算缓存项权重的对象。
+     * @return
+     */
+    public Weigher getWeigher() {
+        return weigher;
+    }
+
+    /**
+     * 设置计算缓存项权重的对象。
+     * @param weigher
+     */
+    public void setWeigher(Weigher weigher) {
+        this.weigher = weigher;
+    }
+
+    /**
+     * 获取缓存执行过期扫描和令牌过期处理使用的线程池。
+     * @return
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * 设置缓存执行过期扫描、令牌过期处理和写入后刷新（refreshAfterWrite）使用的线程池。
+     * 为空时每个 MemoryCache 创建自己的有界维护线程池和刷新线程池并在 close 时关闭；外部传入的线程池由调用方负责关闭。
+     * 外部传入的线程池满时应该拒绝任务（RejectedExecutionException，放弃本次刷新），使用 CallerRunsPolicy 会让刷新在读取线程上同步执行。
+     * @param executor
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 获取堆外存储的容量（单位：字节），为空表示不使用堆外存储。
+     * @return
+     */
+    public Long getOffHeapCapacity() {
+        return offHeapCapacity;
+    }
+
+    /**
+     * 设置堆外存储的容量（必须同时设置 offHeapSerializer）。
+     * 启用后缓存值在写入时序列化到直接内存中，堆上只保留缓存项和索引，读取时反序列化（每次读取得到新的对象）；
+     * 过期和淘汰规则与堆上的缓存项相同。堆外空间不足、值过大或无法序列化时值仍然保存在堆上。
+     * @param offHeapCapacity 堆外存储容量（单位：字节），为空表示不使用堆外存储。
+     */
+    public void setOffHeapCapacity(Long offHeapCapacity) {
+        if (offHeapCapacity != null && offHeapCapacity <= 0) {
+            throw new IllegalArgumentException("MemoryCacheOptions.setOffHeapCapacity 参数 offHeapCapacity 必须大于 0。");
+        }
+        this.offHeapCapacity = offHeapCapacity;
+    }
+
+    /**
+     * 获取堆外存储每个 slab 的大小（单位：字节）。
+     * @return
+     */
+    public int getOffHeapSlabSize() {
+        return offHeapSlabSize;
+    }
+
+    /**
+     * 设置堆外存储每个 slab 的大小（单位：字节，向下取整为 2 的幂，默认 1 MB），序列化后超过该大小的值保存在堆上。
+     * @param offHeapSlabSize
+     */
+    public void setOffHeapSlabSize(int offHeapSlabSize) {
+        if (offHeapSlabSize < 64) {
+            throw new IllegalArgumentException("MemoryCacheOptions.setOffHeapSlabSize 参数 offHeapSlabSize 不能小于 64。");
+        }
+        this.offHeapSlabSize = offHeapSlabSize;
+    }
+
+    /**
+     * 获取堆外存储使用的序列化器。
+     * @return
+     */
+    public ICacheDataSerializer getOffHeapSerializer() {
+        return offHeapSerializer;
+    }
+
+    /**
+     * 设置堆外存储使用的序列化器（例如 redis 模块中的 JacksonCacheDataSerializer）。
+     * @param offHeapSerializer
+     */
+    public void setOffHeapSerializer(ICacheDataSerializer offHeapSerializer) {
+        this.offHeapSerializer = offHeapSerializer;
+    }
+
+    /**
+     * 获取磁盘溢出存储的容量（单位：字节），为空表示不使用磁盘溢出存储。
+     * @return
+     */
+    public Long getDiskSpillCapacity() {
+        return diskSpillCapacity;
+    }
+
+    /**
+     * 设置磁盘溢出存储的容量（必须同时设置 diskSpillSerializer）。
+     * 启用后因容量（maximumSize、maximumWeight 或 compact）被淘汰的缓存项会序列化到内存映射文件中，命中时提升回内存，
+     * 在磁盘上仍然按原来的绝对过期时间和滑动过期时间过期，磁盘空间写满后最早写入的缓存项才会真正被淘汰。
+     * 带有过期令牌的缓存项、过大或无法序列化的值不会写入磁盘。
+     * @param diskSpillCapacity 磁盘溢出存储容量（单位：字节），为空表示不使用磁盘溢出存储。
+     */
+    public void setDiskSpillCapacity(Long diskSpillCapacity) {
+        if (diskSpillCapacity != null && diskSpillCapacity <= 0) {
+            throw new IllegalArgumentException("MemoryCacheOptions.setDiskSpillCapacity 参数 diskSpillCapacity 必须大于 0。");
+        }
+        this.diskSpillCapacity = diskSpillCapacity;
+    }
+
+    /**
+     * 获取磁盘溢出存储每个段文件的大小（单位：字节）。
+     * @return
+     */
+    public int getDiskSpillSegmentSize() {
+        return diskSpillSegmentSize;
+    }
+
+    /**
+     * 设置磁盘溢出存储每个段文件的大小（单位：字节），超过段大小的值不会写入磁盘，默认为 16M。
+     * @param diskSpillSegmentSize
+     */
+    public void setDiskSpillSegmentSize(int diskSpillSegmentSize) {
+        if (diskSpillSegmentSize <= 0) {
+            throw new IllegalArgumentException("MemoryCacheOptions.setDiskSpillSegmentSize 参数 diskSpillSegmentSize 必须大于 0。");
+        }
+        this.diskSpillSegmentSize = diskSpillSegmentSize;
+    }
+
+    /**
+     * 获取磁盘溢出存储的目录。
+     * @return
+     */
+    public Path getDiskSpillDirectory() {
+        return diskSpillDirectory;
+    }
+
+    /**
+     * 设置磁盘溢出存储的目录，默认为临时目录下的 labijie-caching 目录（段文件在缓存关闭或进程退出时删除）。
+     * @param diskSpillDirectory
+     */
+    public void setDiskSpillDirectory(Path diskSpillDirectory) {
+        if (diskSpillDirectory == null) {
+            throw new IllegalArgumentException("MemoryCacheOptions.setDiskSpillDirectory 参数 diskSpillDirectory 不能为空。");
+        }
+        this.diskSpillDirectory = diskSpillDirectory;
+    }
+
+    /**
+     * 获取磁盘溢出存储使用的序列化器。
+     * @return
+     */
+    public ICacheDataSerializer getDiskSpillSerializer() {
+        return diskSpillSerializer;
+    }
+
+    /**
+     * 设置磁盘溢出存储使用的序列化器。
+     * @param diskSpillSerializer
+     */
+    public void setDiskSpillSerializer(ICacheDataSerializer diskSpillSerializer) {
+        this.diskSpillSerializer = diskSpillSerializer;
+    }
+
+    /**
+     * 获取缓存名称。
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 设置缓存名称（用作 JMX ObjectName 中的 name），未设置时自动生成（MemoryCache-序号）。
+     * @param name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 是否注册 JMX MBean。
+     * @return
+     */
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    /**
+     * 设置是否在创建缓存时注册 JMX MBean（MemoryCacheMXBean，MemoryCacheManager 同时注册 CacheManagerMXBean），
+     * 缓存关闭时注销，默认不注册。
+     * @param jmxEnabled
+     */
+    public void setJmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    /**
+     * 获取淘汰通知队列的容量。
+     * @return
+     */
+    public int getEvictionQueueCapacity() {
+        return evictionQueueCapacity;
+    }
+
+    /**
+     * 设置淘汰通知队列的容量（默认 8192），淘汰回调和批量监听器由通知线程从队列中分批取出执行。
+     * @param evictionQueueCapacity
+     */
+    public void setEvictionQueueCapacity(int evictionQueueCapacity) {
+        if (evictionQueueCapacity <= 0) {
+            throw new IllegalArgumentException("MemoryCacheOptions.setEvictionQueueCapacity 参数 evictionQueueCapacity 必须大于 0。");
+        }
+        this.evictionQueueCapacity = evictionQueueCapacity;
+    }
+
+    /**
+     * 淘汰通知队列已满时是否丢弃通知。
+     * @return
+     */
+    public boolean isDropEvictionNotificationsWhenFull() {
+        return dropEvictionNotificationsWhenFull;
+    }
+
+    /**
+     * 设置淘汰通知队列已满时是否丢弃通知（不执行淘汰回调），默认不丢弃，淘汰线程等待队列有空位（背压）。
+     * @param dropEvictionNotificationsWhenFull
+     */
+    public void setDropEvictionNotificationsWhenFull(boolean dropEvictionNotificationsWhenFull) {
+        this.dropEvictionNotificationsWhenFull = dropEvictionNotificationsWhenFull;
+    }
+
+    /**
+     * 获取批量淘汰监听器。
+     * @return
+     */
+    public IBulkEvictionListener getBulkEvictionListener() {
+        return bulkEvictionListener;
+    }
+
+    /**
+     * 设置批量淘汰监听器，缓存中每个被淘汰的缓存项（不只是注册了淘汰回调的缓存项）都会分批通知该监听器。
+     * @param bulkEvictionListener
+     */
+    public void setBulkEvictionListener(IBulkEvictionListener bulkEvictionListener) {
+        this.bulkEvictionListener = bulkEvictionListener;
+    }
+
+    /**
+     * 是否跟踪缓存项作用域。
+     * @return
+     */
+    public boolean isTrackEntryScopes() {
+        return trackEntryScopes;
+    }
+
+    /**
+     * 设置是否跟踪缓存项作用域（默认跟踪）。
+     * 跟踪时，在创建缓存项的工厂方法中读取或创建的其他缓存项，会把过期令牌和绝对过期时间传递给外层缓存项（依赖传递）；
+     * 不需要依赖传递时可以关闭，关闭后创建和读取缓存项不访问 ThreadLocal，命中时也不需要加锁。
+     * @param trackEntryScopes
+     */
+    public void setTrackEntryScopes(boolean trackEntryScopes) {
+        this.trackEntryScopes = trackEntryScopes;
+    }
+
+    /**
+     * 获取缓存项值的默认引用强度。
+     * @return
+     */
+    public ValueStrength getValueStrength() {
+        return valueStrength;
+    }
+
+    /**
+     * 设置缓存项值的默认引用强度（默认 Strong），缓存项可以通过 MemoryCacheEntryOptions.setValueStrength 单独设置。
+     * 软引用或弱引用的值被 GC 回收后，缓存项在下一次读取或者维护任务中以 EvictionReason.Collected 移除。
+     * 软引用或弱引用的值不会移到堆外存储。
+     * @param valueStrength
+     */
+    public void setValueStrength(ValueStrength valueStrength) {
+        if (valueStrength == null) {
+            throw new IllegalArgumentException("MemoryCacheOptions.setValueStrength 参数 valueStrength 不能为空。");
+        }
+        this.valueStrength = valueStrength;
+    }
+
+    /**
+     * 获取 MemoryCacheManager 中按区域设置的值引用强度。
+     * @return
+     */
+    public Map<String, ValueStrength> getRegionValueStrengths() {
+        return regionValueStrengths;
+    }
+
+    /**
+     * 设置 MemoryCacheManager 中指定区域的值引用强度，未设置的区域使用 valueStrength。
+     * @param region 区域名称。
+     * @param valueStrength 为空时移除该区域的设置。
+     */
+    public void setRegionValueStrength(String region, ValueStrength valueStrength) {
+        if (StringUtil.isNullOrWhiteSpace(region)) {
+            throw new IllegalArgumentException("MemoryCacheOptions.setRegionValueStrength 参数 region 不能为空。");
+        }
+        if (valueStrength == null) {
+            this.regionValueStrengths.remove(region.trim());
+        } else {
+            this.regionValueStrengths.put(region.trim(), valueStrength);
+        }
+    }
 }
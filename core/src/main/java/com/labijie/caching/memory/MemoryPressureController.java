@@ -0,0 +1,197 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 根据堆占用率收缩缓存：监听所有垃圾收集器的 GC 通知（不再按收集器名称过滤，G1、ZGC、Shenandoah 同样有效），
+ * 每次 GC 之后计算堆占用率（各堆内存池 getCollectionUsage 之和 / 最大堆），超过缓存配置的目标占用率时，
+ * 按超出的比例（(占用率 - 目标) / 占用率，单次最多 50%）在缓存的维护线程池中执行 compact。
+ * 只保留缓存的弱引用，未关闭的缓存被回收后自动移除。
+ * 不修改内存池的用量阈值（MemoryPoolMXBean.setCollectionUsageThreshold 是 JVM 全局的设置，会影响应用自己的监控）。
+ */
+final class MemoryPressureController {
+    static final MemoryPressureController SHARED = new MemoryPressureController();
+
+    //单次收缩的最大比例。
+    static final double MAX_COMPACT_PERCENTAGE = 0.5d;
+    //同一个缓存两次收缩之间的最小间隔，避免连续的 GC 通知反复收缩。
+    private static final long MIN_COMPACT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Set<Registration> registrations = ConcurrentHashMap.newKeySet();
+    private boolean installed;
+
+    private MemoryPressureController() {
+    }
+
+    /**
+     * 注册需要根据堆占用率收缩的缓存。
+     * @param cache 缓存。
+     * @param heapOccupancyTarget 目标堆占用率（0 到 1 之间）。
+     * @return 注销时调用 close。
+     */
+    Registration register(MemoryCache cache, double heapOccupancyTarget) {
+        Registration registration = new Registration(cache, heapOccupancyTarget);
+        this.registrations.add(registration);
+        this.install();
+        return registration;
+    }
+
+    //首次注册时安装 GC 通知的监听器。
+    private synchronized void install() {
+        if (!this.installed) {
+            this.installed = true;
+            NotificationListener listener = this::handleNotification;
+            for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (bean instanceof NotificationEmitter) {
+                    ((NotificationEmitter) bean).addNotificationListener(listener, null, null);
+                }
+            }
+        }
+    }
+
+    private void handleNotification(Notification notification, Object handback) {
+        if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            //各个内存池的 getCollectionUsage 只在回收了该内存池时才会更新（如 G1 的老年代只在 Full GC 时更新），
+            //所以直接使用本次 GC 通知中携带的 GC 之后的内存使用情况。
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            double occupancy = getHeapOccupancyAfterGc(info.getGcInfo().getMemoryUsageAfterGc());
+            if (occupancy > 0) {
+                this.onHeapOccupancy(occupancy);
+            }
+        }
+    }
+
+    /**
+     * 根据 GC 之后各内存池的使用情况计算堆占用率，无法计算时返回 0。
+     * @param usageAfterGc GC 之后各内存池的使用情况，键为内存池名称。
+     * @return
+     */
+    static double getHeapOccupancyAfterGc(Map<String, MemoryUsage> usageAfterGc) {
+        Set<String> heapPools = new HashSet<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        return heapOccupancy(usageAfterGc, heapPools, max);
+    }
+
+    /**
+     * 汇总堆内存池在 GC 之后的使用量，计算占最大堆内存的比例。
+     * @param usageAfterGc GC 之后各内存池的使用情况，键为内存池名称。
+     * @param heapPools 属于堆内存的内存池名称。
+     * @param maxHeap 最大堆内存，小于等于 0 时返回 0。
+     * @return
+     */
+    static double heapOccupancy(Map<String, MemoryUsage> usageAfterGc, Set<String> heapPools, long maxHeap) {
+        if (maxHeap <= 0 || usageAfterGc == null) {
+            return 0;
+        }
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> entry : usageAfterGc.entrySet()) {
+            if (entry.getValue() != null && heapPools.contains(entry.getKey())) {
+                used += entry.getValue().getUsed();
+            }
+        }
+        return (double) used / maxHeap;
+    }
+
+    /**
+     * 计算收缩比例：超出目标的部分占当前占用的比例，最多 {@link #MAX_COMPACT_PERCENTAGE}。
+     * @param occupancy 当前堆占用率。
+     * @param target 目标堆占用率。
+     * @return 未超出目标时为 0。
+     */
+    static double compactPercentage(double occupancy, double target) {
+        if (occupancy <= target) {
+            return 0;
+        }
+        return Math.min(MAX_COMPACT_PERCENTAGE, (occupancy - target) / occupancy);
+    }
+
+    void onHeapOccupancy(double occupancy) {
+        for (Registration registration : this.registrations) {
+            if (!registration.onHeapOccupancy(occupancy)) {
+                this.registrations.remove(registration);
+            }
+        }
+    }
+
+    final class Registration implements AutoCloseable {
+        private final WeakReference<MemoryCache> cache;
+        private final double heapOccupancyTarget;
+        private final AtomicBoolean compacting = new AtomicBoolean();
+        private volatile long lastCompaction;
+        private volatile boolean hasCompacted;
+
+        private Registration(MemoryCache cache, double heapOccupancyTarget) {
+            this.cache = new WeakReference<>(cache);
+            this.heapOccupancyTarget = heapOccupancyTarget;
+        }
+
+        //缓存已经被回收时返回 false。
+        private boolean onHeapOccupancy(double occupancy) {
+            MemoryCache c = this.cache.get();
+            if (c == null) {
+                return false;
+            }
+            double percentage = compactPercentage(occupancy, this.heapOccupancyTarget);
+            if (percentage <= 0) {
+                return true;
+            }
+            long now = System.nanoTime();
+            if (this.hasCompacted && now - this.lastCompaction < MIN_COMPACT_INTERVAL_NANOS) {
+                return true;
+            }
+            if (!this.compacting.compareAndSet(false, true)) {
+                return true;
+            }
+            this.hasCompacted = true;
+            this.lastCompaction = now;
+            try {
+                c.getExecutor().execute(() -> {
+                    try {
+                        c.compactForMemoryPressure(percentage);
+                    } finally {
+                        this.compacting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                this.compacting.set(false);
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            registrations.remove(this);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+import com.labijie.caching.ICacheDataSerializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 堆外缓存值存储：缓存值序列化后写入直接内存（DirectByteBuffer）中的 slab，堆上只保留 {@link Value} 索引。
+ * 每个 slab 只属于一个大小级别（64 字节起按 2 的幂递增，最大为 slab 大小），被切分为等长的块，
+ * 释放的块进入所属级别的空闲栈复用。总容量用完或序列化结果超过 slab 大小时返回 null，由调用方把值保留在堆上。
+ */
+final class OffHeapStore {
+    private static final int MIN_CHUNK_SHIFT = 6;
+    static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    private final ICacheDataSerializer serializer;
+    private final int slabSize;
+    private final int maxSlabs;
+    private final SizeClass[] sizeClasses;
+    private final AtomicInteger slabCount;
+    private final AtomicLong usedBytes;
+
+    OffHeapStore(long capacity, int slabSize, ICacheDataSerializer serializer) {
+        this.serializer = serializer;
+        this.slabSize = Integer.highestOneBit(Math.max(slabSize, 1 << MIN_CHUNK_SHIFT));
+        this.maxSlabs = (int) Math.max(1, Math.min(Integer.MAX_VALUE, capacity / this.slabSize));
+        this.sizeClasses = new SizeClass[Integer.numberOfTrailingZeros(this.slabSize) - MIN_CHUNK_SHIFT + 1];
+        for (int i = 0; i < this.sizeClasses.length; i++) {
+            this.sizeClasses[i] = new SizeClass(1 << (MIN_CHUNK_SHIFT + i));
+        }
+        this.slabCount = new AtomicInteger();
+        this.usedBytes = new AtomicLong();
+    }
+
+    /**
+     * 把缓存值写入堆外内存。
+     * @param value 缓存值。
+     * @return 堆外值索引，无法保存到堆外时返回 null。
+     */
+    Value store(Object value) {
+        String data = this.serializer.serializeData(value, false);
+        if (data == null) {
+            return null;
+        }
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > this.slabSize) {
+            return null;
+        }
+        SizeClass sizeClass = this.sizeClasses[sizeClassIndex(bytes.length)];
+        Chunk chunk = this.allocate(sizeClass);
+        if (chunk == null) {
+            return null;
+        }
+        ByteBuffer buffer = chunk.slab.duplicate();
+        buffer.position(chunk.offset);
+        buffer.put(bytes);
+        this.usedBytes.addAndGet(sizeClass.chunkSize);
+        return new Value(this, sizeClass, chunk, bytes.length, value.getClass());
+    }
+
+    /**
+     * 获取已经分配的堆外内存（按块大小计算，单位：字节）。
+     * @return
+     */
+    long getUsedBytes() {
+        return this.usedBytes.get();
+    }
+
+    private static int sizeClassIndex(int length) {
+        if (length <= (1 << MIN_CHUNK_SHIFT)) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(length - 1) - MIN_CHUNK_SHIFT;
+    }
+
+    private Chunk allocate(SizeClass sizeClass) {
+        synchronized (sizeClass) {
+            Chunk chunk = sizeClass.free.pollLast();
+            if (chunk != null) {
+                return chunk;
+            }
+            if (sizeClass.current == null || sizeClass.next + sizeClass.chunkSize > this.slabSize) {
+                if (this.slabCount.incrementAndGet() > this.maxSlabs) {
+                    this.slabCount.decrementAndGet();
+                    return null;
+                }
+                try {
+                    sizeClass.current = ByteBuffer.allocateDirect(this.slabSize);
+                } catch (OutOfMemoryError e) {
+                    //直接内存不足（-XX:MaxDirectMemorySize），值保留在堆上。
+                    this.slabCount.decrementAndGet();
+                    return null;
+                }
+                sizeClass.next = 0;
+            }
+            chunk = new Chunk(sizeClass.current, sizeClass.next);
+            sizeClass.next += sizeClass.chunkSize;
+            return chunk;
+        }
+    }
+
+    private void free(SizeClass sizeClass, Chunk chunk) {
+        synchronized (sizeClass) {
+            sizeClass.free.addLast(chunk);
+        }
+        this.usedBytes.addAndGet(-sizeClass.chunkSize);
+    }
+
+    private byte[] read(Value value) {
+        byte[] bytes = new byte[value.length];
+        ByteBuffer buffer = value.chunk.slab.duplicate();
+        buffer.position(value.chunk.offset);
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static final class SizeClass {
+        final int chunkSize;
+        final ArrayDeque<Chunk> free;
+        ByteBuffer current;
+        int next;
+
+        SizeClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+            this.free = new ArrayDeque<>();
+        }
+    }
+
+    private static final class Chunk {
+        final ByteBuffer slab;
+        final int offset;
+
+        Chunk(ByteBuffer slab, int offset) {
+            this.slab = slab;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * 堆外值在堆上的索引，使用引用计数保证读取过程中块不会被释放和复用。
+     * 缓存项持有一个引用，缓存项被移除（并且淘汰回调执行完成）后释放该引用，最后一个引用释放时归还块。
+     */
+    static final class Value {
+        private static final AtomicIntegerFieldUpdater<Value> REF_COUNT =
+                AtomicIntegerFieldUpdater.newUpdater(Value.class, "refCount");
+        private static final AtomicIntegerFieldUpdater<Value> RELEASED =
+                AtomicIntegerFieldUpdater.newUpdater(Value.class, "released");
+
+        private final OffHeapStore store;
+        private final SizeClass sizeClass;
+        private final Chunk chunk;
+        private final int length;
+        private final Class<?> type;
+        private volatile int refCount = 1;
+        private volatile int released;
+
+        private Value(OffHeapStore store, SizeClass sizeClass, Chunk chunk, int length, Class<?> type) {
+            this.store = store;
+            this.sizeClass = sizeClass;
+            this.chunk = chunk;
+            this.length = length;
+            this.type = type;
+        }
+
+        /**
+         * 读取并反序列化缓存值，值已经被释放或无法反序列化时返回 null（按缓存未命中处理）。
+         * @return
+         */
+        Object read() {
+            if (!this.retain()) {
+                return null;
+            }
+            byte[] bytes;
+            try {
+                bytes = this.store.read(this);
+            } finally {
+                this.release();
+            }
+            try {
+                return this.store.serializer.deserializeData(this.type, new String(bytes, StandardCharsets.UTF_8), false);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        /**
+         * 释放缓存项持有的引用，可以重复调用。
+         */
+        void free() {
+            if (RELEASED.compareAndSet(this, 0, 1)) {
+                this.release();
+            }
+        }
+
+        private boolean retain() {
+            for (; ; ) {
+                int count = this.refCount;
+                if (count <= 0) {
+                    return false;
+                }
+                if (REF_COUNT.compareAndSet(this, count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            if (REF_COUNT.decrementAndGet(this) == 0) {
+                this.store.free(this.sizeClass, this.chunk);
+            }
+        }
+    }
+}
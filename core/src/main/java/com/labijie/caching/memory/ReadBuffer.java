@@ -0,0 +1,97 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 分段的有损读缓冲区，用于记录缓存项的访问顺序。
+ * 读线程按线程 ID 散列到不同的环形缓冲区，写入只需要一次 CAS；缓冲区已满或 CAS 失败时直接丢弃本次记录，
+ * 读操作永远不会等待淘汰策略。缓冲区由持有 MemoryCache.evictionLock 的线程批量排空并更新淘汰策略。
+ * 丢失少量访问记录只会影响淘汰策略的精度，不影响正确性（滑动过期时间由缓存项自身维护）。
+ */
+final class ReadBuffer {
+    //每个环形缓冲区的容量（必须是 2 的幂）。
+    static final int BUFFER_SIZE = 16;
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+    private static final int MAXIMUM_STRIPES = 64;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    ReadBuffer() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int count = Math.min(MAXIMUM_STRIPES, ceilingPowerOfTwo(Math.max(1, processors)));
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeMask = count - 1;
+    }
+
+    /**
+     * 记录一次访问。
+     * @param entry 被访问的缓存项。
+     * @return 当前线程所在的缓冲区已满需要排空时返回 true。
+     */
+    boolean offer(CacheEntry entry) {
+        Stripe stripe = this.stripes[spread(Thread.currentThread().getId()) & this.stripeMask];
+        long head = stripe.readCounter;
+        long tail = stripe.writeCounter.get();
+        long size = tail - head;
+        if (size >= BUFFER_SIZE) {
+            return true;
+        }
+        if (stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+            stripe.buffer.lazySet((int) (tail & BUFFER_MASK), entry);
+            return size + 1 >= BUFFER_SIZE;
+        }
+        //与其他线程竞争失败，放弃本次记录。
+        return false;
+    }
+
+    /**
+     * 排空所有缓冲区，调用方必须持有 MemoryCache 的 evictionLock。
+     * @param consumer 处理每一条访问记录。
+     */
+    void drainTo(Consumer<CacheEntry> consumer) {
+        for (Stripe stripe : this.stripes) {
+            long head = stripe.readCounter;
+            long tail = stripe.writeCounter.get();
+            while (head != tail) {
+                int index = (int) (head & BUFFER_MASK);
+                CacheEntry entry = stripe.buffer.get(index);
+                if (entry == null) {
+                    //写入线程已经占位但还没有发布，下次排空时再处理。
+                    break;
+                }
+                stripe.buffer.lazySet(index, null);
+                consumer.accept(entry);
+                head++;
+            }
+            stripe.readCounter = head;
+        }
+    }
+
+    private static int spread(long id) {
+        int x = (int) (id ^ (id >>> 32));
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(x - 1);
+    }
+
+    private static final class Stripe {
+        final AtomicReferenceArray<CacheEntry> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+        final AtomicLong writeCounter = new AtomicLong();
+        volatile long readCounter;
+    }
+}
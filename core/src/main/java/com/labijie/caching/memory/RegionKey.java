@@ -0,0 +1,54 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+/**
+ * MemoryCacheManager 使用的复合缓存键（区域名称 + 缓存键），代替 "region|key" 字符串拼接。
+ * 哈希值在创建时由两个字符串的（已缓存的）哈希值计算，不需要复制字符或重新计算整个字符串的哈希。
+ */
+final class RegionKey {
+    final String region;
+    final String key;
+    private final int hash;
+
+    RegionKey(String region, String key) {
+        this.region = region;
+        this.key = key;
+        this.hash = 31 * region.hashCode() + key.hashCode();
+    }
+
+    /**
+     * 获取缓存键所属的区域，不是 RegionKey 的缓存键（直接使用 MemoryCache 时）返回 null。
+     * @param key 缓存键。
+     * @return
+     */
+    static String regionOf(Object key) {
+        return key instanceof RegionKey ? ((RegionKey) key).region : null;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof RegionKey)) {
+            return false;
+        }
+        RegionKey other = (RegionKey) obj;
+        return this.hash == other.hash && this.key.equals(other.key) && this.region.equals(other.region);
+    }
+
+    @Override
+    public String toString() {
+        return this.region + "|" + this.key;
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+import java.util.List;
+
+/**
+ * 分层时间轮，用于按过期时间组织缓存项，使过期扫描只访问已经到期的桶。
+ * 每一层的桶跨度是 2 的幂（纳秒），越往上层跨度越大，到期的上层桶会把缓存项重新下放到更精细的层。
+ * 滑动过期采用惰性重排：访问缓存项时不会修改时间轮，桶到期时重新计算过期时间，未过期的项会被重新放入时间轮。
+ * 注意：该类不是线程安全的，所有调用方必须持有 MemoryCache 的 evictionLock。
+ * 每层桶的数量沿用 Caffeine 的 com.github.benmanes.caffeine.cache.TimerWheel（Copyright Ben Manes，Apache License 2.0），见项目根目录的 NOTICE。
+ */
+final class TimerWheel {
+    //每层桶的数量（必须是 2 的幂）。
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    //每层单个桶的跨度位移（纳秒）：~1.07s、~1.14m、~1.22h、~19.5h、~3.3d。
+    //顶层的跨度必须等于下一层所有桶覆盖的范围（4 × 2^46 = 2^48），否则下一层会发生回绕，缓存项会被提前处理并重新调度。
+    private static final int[] SHIFT = {30, 36, 42, 46, 48};
+
+    //每层单个桶的跨度，最后一项重复用于计算顶层的上界。
+    private static final long[] SPANS = {
+            1L << SHIFT[0],
+            1L << SHIFT[1],
+            1L << SHIFT[2],
+            1L << SHIFT[3],
+            1L << SHIFT[4],
+            1L << SHIFT[4]
+    };
+
+    private final CacheEntry[][] wheel;
+    private long time;
+
+    /**
+     * 创建时间轮。
+     * @param time 时间轮的起始时钟刻度（纳秒）。
+     */
+    TimerWheel(long time) {
+        this.time = time;
+        this.wheel = new CacheEntry[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; i++) {
+            this.wheel[i] = new CacheEntry[BUCKETS[i]];
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                this.wheel[i][j] = CacheEntry.createSentinel();
+            }
+        }
+    }
+
+    /**
+     * 获取时间轮最后一次推进到的时钟刻度（纳秒）。
+     * @return
+     */
+    long getTime() {
+        return time;
+    }
+
+    /**
+     * 将缓存项按当前的过期时间放入时间轮，不会过期的缓存项会被忽略。
+     * @param entry 要放入时间轮的缓存项。
+     */
+    void schedule(CacheEntry entry) {
+        long expirationTime = entry.getExpirationTime();
+        if (expirationTime == Long.MAX_VALUE) {
+            return;
+        }
+        if (entry.wheelNext != null) {
+            unlink(entry);
+        }
+        link(findBucket(expirationTime), entry);
+    }
+
+    /**
+     * 从时间轮中移除缓存项（缓存项不在时间轮中时无操作）。
+     * @param entry 要移除的缓存项。
+     */
+    void deschedule(CacheEntry entry) {
+        if (entry.wheelNext != null) {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * 将时间轮推进到指定时间，所有到期桶中已经过期的缓存项会被放入 expired 列表，未过期的项重新放入时间轮。
+     * @param now 当前时钟刻度（纳秒）。
+     * @param expired 用于接收已过期缓存项的列表。
+     */
+    void advance(long now, List<CacheEntry> expired) {
+        long previous = this.time;
+        if (now - previous <= 0L) {
+            //时钟回拨或者时间未前进，等待下一次推进。
+            return;
+        }
+        this.time = now;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previous >>> SHIFT[i];
+            long currentTicks = now >>> SHIFT[i];
+            long delta = currentTicks - previousTicks;
+            if (delta <= 0L) {
+                break;
+            }
+            expire(i, previousTicks, delta, expired);
+        }
+    }
+
+    //处理一层中从 previousTicks 到当前刻度（含）之间的所有桶。
+    private void expire(int level, long previousTicks, long delta, List<CacheEntry> expired) {
+        CacheEntry[] buckets = this.wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(1L + delta, buckets.length);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+        for (int i = start; i < end; i++) {
+            CacheEntry sentinel = buckets[i & mask];
+            CacheEntry node = sentinel.wheelNext;
+            //先整体摘下桶中的链表，重新调度的项可能会回到同一个桶。
+            sentinel.wheelNext = sentinel;
+            sentinel.wheelPrevious = sentinel;
+
+            while (node != sentinel) {
+                CacheEntry next = node.wheelNext;
+                node.wheelNext = null;
+                node.wheelPrevious = null;
+
+                long expirationTime = node.getExpirationTime();
+                if (expirationTime == Long.MAX_VALUE) {
+                    //过期设置被移除，不再需要时间轮跟踪。
+                } else if (expirationTime - this.time <= 0L) {
+                    expired.add(node);
+                } else {
+                    link(findBucket(expirationTime), node);
+                }
+                node = next;
+            }
+        }
+    }
+
+    private CacheEntry findBucket(long expirationTime) {
+        long duration = expirationTime - this.time;
+        if (duration < 0L) {
+            //已经过期的项放入当前刻度的桶，下次推进时立即处理。
+            expirationTime = this.time;
+            duration = 0L;
+        }
+        int length = this.wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = expirationTime >>> SHIFT[i];
+                int index = (int) (ticks & (this.wheel[i].length - 1));
+                return this.wheel[i][index];
+            }
+        }
+        return this.wheel[length][0];
+    }
+
+    private static void link(CacheEntry sentinel, CacheEntry entry) {
+        entry.wheelPrevious = sentinel.wheelPrevious;
+        entry.wheelNext = sentinel;
+
+        sentinel.wheelPrevious.wheelNext = entry;
+        sentinel.wheelPrevious = entry;
+    }
+
+    private static void unlink(CacheEntry entry) {
+        CacheEntry next = entry.wheelNext;
+        if (next != null) {
+            CacheEntry previous = entry.wheelPrevious;
+            next.wheelPrevious = previous;
+            previous.wheelNext = next;
+        }
+        entry.wheelNext = null;
+        entry.wheelPrevious = null;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+
+/**
+ * 以软引用或弱引用保存的缓存项的值，被 GC 回收后进入所属缓存的 ReferenceQueue，
+ * 由维护任务通过 {@link #getEntry()} 找到缓存项并移除（EvictionReason.Collected）。
+ */
+interface ValueReference {
+    Object get();
+
+    CacheEntry getEntry();
+
+    static ValueReference create(ValueStrength strength, Object value, CacheEntry entry, ReferenceQueue<Object> queue) {
+        switch (strength) {
+            case Soft:
+                return new Soft(value, entry, queue);
+            case Weak:
+                return new Weak(value, entry, queue);
+            default:
+                throw new IllegalArgumentException("ValueReference 不支持的引用强度：" + strength + "。");
+        }
+    }
+
+    final class Soft extends SoftReference<Object> implements ValueReference {
+        private final CacheEntry entry;
+
+        Soft(Object value, CacheEntry entry, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.entry = entry;
+        }
+
+        @Override
+        public CacheEntry getEntry() {
+            return entry;
+        }
+    }
+
+    final class Weak extends WeakReference<Object> implements ValueReference {
+        private final CacheEntry entry;
+
+        Weak(Object value, CacheEntry entry, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.entry = entry;
+        }
+
+        @Override
+        public CacheEntry getEntry() {
+            return entry;
+        }
+    }
+}
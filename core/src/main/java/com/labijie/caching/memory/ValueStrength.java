@@ -0,0 +1,27 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+/**
+ * 缓存项值的引用强度。
+ */
+public enum ValueStrength {
+    /**
+     * 强引用：值一直保留，直到过期、移除或者因为容量被淘汰。
+     */
+    Strong,
+
+    /**
+     * 软引用：内存不足时由 GC 回收（JVM 在抛出 OutOfMemoryError 之前一定会回收软引用）。
+     */
+    Soft,
+
+    /**
+     * 弱引用：值没有其他强引用时，下一次 GC 即可回收。
+     */
+    Weak,
+}
@@ -0,0 +1,22 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+/**
+ * 计算缓存项权重（成本）的接口，配合 MemoryCacheOptions.setMaximumWeight 使用。
+ * 权重在缓存项加入缓存时计算一次，之后不会再变化。
+ */
+@FunctionalInterface
+public interface Weigher {
+    /**
+     * 计算缓存项的权重。
+     * @param key 缓存键。
+     * @param value 缓存对象。
+     * @return 缓存项的权重，必须大于等于 0。
+     */
+    int weigh(Object key, Object value);
+}
@@ -0,0 +1,366 @@
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Anders Xiao
+ * @date 2026-10-18
+ */
+package com.labijie.caching.memory;
+
+import com.labijie.caching.CacheItemPriority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Window-TinyLFU 淘汰策略。
+ * 新加入的缓存项先进入很小的准入窗口（LRU），窗口溢出的项进入主空间的试用区；
+ * 主空间是分段 LRU：试用区中再次被访问的项晋升到保护区，保护区溢出时最久未访问的项降级回试用区。
+ * 淘汰时用频率草图比较窗口候选项与试用区的牺牲项，频率低的一方先被淘汰，从而抵御一次性扫描流量；
+ * 保护区中的项只有在窗口和试用区都被淘汰完之后才会被淘汰。
+ * 所有容量按权重计算（未设置 Weigher 时每项权重为 1），NeverRemove 优先级的项只计入权重，不参与淘汰。
+ * 注意：该类不是线程安全的，所有调用方必须持有 MemoryCache 的 evictionLock。
+ */
+final class WindowTinyLfuPolicy {
+    static final byte QUEUE_NONE = 0;
+    static final byte QUEUE_WINDOW = 1;
+    static final byte QUEUE_PROBATION = 2;
+    static final byte QUEUE_PROTECTED = 3;
+    static final byte QUEUE_PINNED = 4;
+
+    static final long UNBOUNDED = -1L;
+
+    //准入窗口占总容量的比例。
+    private static final double WINDOW_PERCENTAGE = 0.01d;
+    //保护区占主空间的比例。
+    private static final double PROTECTED_PERCENTAGE = 0.80d;
+
+    private final FrequencySketch sketch;
+    private final CacheEntry window;
+    private final CacheEntry probation;
+    private final CacheEntry protectedQueue;
+
+    //是否按 Weigher 计算权重，此时总权重上限不代表缓存项数量，频率草图只按实际的缓存项数量扩充。
+    private final boolean weighted;
+    private long maximum;
+    private long count;
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+    private long pinnedWeight;
+
+    /**
+     * 创建淘汰策略。
+     * @param maximum 总权重上限，UNBOUNDED 表示不限制（只在 compact 时淘汰）。
+     * @param weighted 是否设置了 Weigher（权重上限不是缓存项数量）。
+     */
+    WindowTinyLfuPolicy(long maximum, boolean weighted) {
+        this.sketch = new FrequencySketch();
+        this.window = CacheEntry.createSentinel();
+        this.probation = CacheEntry.createSentinel();
+        this.protectedQueue = CacheEntry.createSentinel();
+        this.weighted = weighted;
+        this.maximum = maximum;
+        if (maximum != UNBOUNDED && !weighted) {
+            this.sketch.ensureCapacity(maximum);
+        }
+    }
+
+    /**
+     * 获取策略中跟踪的缓存项的总权重。
+     * @return
+     */
+    long weightedSize() {
+        return this.windowWeight + this.probationWeight + this.protectedWeight + this.pinnedWeight;
+    }
+
+    /**
+     * 获取总权重上限，UNBOUNDED 表示不限制。
+     * @return
+     */
+    long getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * 调整总权重上限，缩小上限时超出的缓存项会被放入 evicted 列表。
+     * @param maximum 新的总权重上限，UNBOUNDED 表示不限制。
+     * @param evicted 用于接收被淘汰缓存项的列表。
+     */
+    void setMaximum(long maximum, List<CacheEntry> evicted) {
+        this.maximum = maximum;
+        if (maximum != UNBOUNDED) {
+            if (!this.weighted) {
+                this.sketch.ensureCapacity(maximum);
+            }
+            this.evictFromMain(this.evictFromWindow(), evicted);
+        }
+    }
+
+    /**
+     * 获取缓存键的估算访问频率。
+     * @param key 缓存键。
+     * @return
+     */
+    int frequency(Object key) {
+        return this.sketch.frequency(key);
+    }
+
+    /**
+     * 缓存项加入缓存时调用，新项进入准入窗口；有容量上限时，超出上限的缓存项会被放入 evicted 列表。
+     * @param entry 新加入的缓存项。
+     * @param evicted 用于接收被淘汰缓存项的列表。
+     */
+    void onAdd(CacheEntry entry, List<CacheEntry> evicted) {
+        if (entry.queueType != QUEUE_NONE) {
+            return;
+        }
+        this.sketch.increment(entry.getKey());
+        this.count++;
+        if (this.count > this.sketch.capacity()) {
+            //缓存增长后按 2 倍扩充草图，避免频繁重建。
+            this.sketch.ensureCapacity(this.count << 1);
+        }
+
+        if (entry.getPriority() == CacheItemPriority.NeverRemove) {
+            entry.queueType = QUEUE_PINNED;
+            this.pinnedWeight += entry.weight;
+        } else {
+            entry.queueType = QUEUE_WINDOW;
+            linkLast(this.window, entry);
+            this.windowWeight += entry.weight;
+        }
+
+        CacheEntry candidates = this.evictFromWindow();
+        if (this.maximum != UNBOUNDED) {
+            this.evictFromMain(candidates, evicted);
+        }
+    }
+
+    /**
+     * 缓存项被访问时调用，更新频率和访问顺序。
+     * @param entry 被访问的缓存项。
+     */
+    void onAccess(CacheEntry entry) {
+        switch (entry.queueType) {
+            case QUEUE_WINDOW:
+                this.sketch.increment(entry.getKey());
+                moveToLast(this.window, entry);
+                break;
+            case QUEUE_PROBATION:
+                this.sketch.increment(entry.getKey());
+                unlink(entry);
+                this.probationWeight -= entry.weight;
+                entry.queueType = QUEUE_PROTECTED;
+                linkLast(this.protectedQueue, entry);
+                this.protectedWeight += entry.weight;
+                this.demoteFromProtected();
+                break;
+            case QUEUE_PROTECTED:
+                this.sketch.increment(entry.getKey());
+                moveToLast(this.protectedQueue, entry);
+                break;
+            case QUEUE_PINNED:
+                this.sketch.increment(entry.getKey());
+                break;
+            default:
+                //已经移除的缓存项。
+                break;
+        }
+    }
+
+    /**
+     * 缓存项移出缓存时调用。
+     * @param entry 被移除的缓存项。
+     */
+    void onRemove(CacheEntry entry) {
+        switch (entry.queueType) {
+            case QUEUE_WINDOW:
+                this.windowWeight -= entry.weight;
+                break;
+            case QUEUE_PROBATION:
+                this.probationWeight -= entry.weight;
+                break;
+            case QUEUE_PROTECTED:
+                this.protectedWeight -= entry.weight;
+                break;
+            case QUEUE_PINNED:
+                this.pinnedWeight -= entry.weight;
+                break;
+            default:
+                return;
+        }
+        unlink(entry);
+        entry.queueType = QUEUE_NONE;
+        this.count--;
+    }
+
+    /**
+     * 按淘汰的先后顺序列出所有可淘汰的缓存项（越靠前越应该被淘汰），用于批量收缩。
+     * 批量收缩时窗口候选项与试用区牺牲项按 TinyLFU 规则比较频率：把两者按估算频率从低到高排列，
+     * 频率相同时窗口中的项在前（与逐个淘汰时“候选项频率不高于牺牲项则淘汰候选项”一致），同一队列内保持 LRU 顺序；
+     * 保护区中的项最后按 LRU 顺序排列。
+     * @return
+     */
+    List<CacheEntry> evictionOrder() {
+        List<CacheEntry> order = new ArrayList<>((int) Math.min(this.count, Integer.MAX_VALUE - 8));
+
+        //频率只有 0 - 15，使用计数排序。
+        List<List<CacheEntry>> frequencies = new ArrayList<>(Collections.nCopies(16, null));
+        this.collectByFrequency(this.window, frequencies);
+        this.collectByFrequency(this.probation, frequencies);
+        for (List<CacheEntry> entries : frequencies) {
+            if (entries != null) {
+                order.addAll(entries);
+            }
+        }
+        for (CacheEntry entry = this.protectedQueue.accessNext; entry != this.protectedQueue; entry = entry.accessNext) {
+            order.add(entry);
+        }
+        return order;
+    }
+
+    private void collectByFrequency(CacheEntry sentinel, List<List<CacheEntry>> frequencies) {
+        for (CacheEntry entry = sentinel.accessNext; entry != sentinel; entry = entry.accessNext) {
+            int frequency = this.sketch.frequency(entry.getKey());
+            List<CacheEntry> entries = frequencies.get(frequency);
+            if (entries == null) {
+                entries = new ArrayList<>();
+                frequencies.set(frequency, entries);
+            }
+            entries.add(entry);
+        }
+    }
+
+    private long windowMaximum() {
+        long total = (this.maximum == UNBOUNDED) ? this.weightedSize() : this.maximum;
+        return Math.max(1L, (long) (total * WINDOW_PERCENTAGE));
+    }
+
+    private long protectedMaximum() {
+        long main = (this.maximum == UNBOUNDED)
+                ? this.probationWeight + this.protectedWeight
+                : this.maximum - this.windowMaximum();
+        return Math.max(1L, (long) (main * PROTECTED_PERCENTAGE));
+    }
+
+    /**
+     * 窗口超出容量时，把最久未访问的项移入试用区尾部成为候选项。
+     * @return 第一个候选项，没有候选项时返回 null。
+     */
+    private CacheEntry evictFromWindow() {
+        CacheEntry first = null;
+        long maximum = this.windowMaximum();
+        while (this.windowWeight > maximum) {
+            CacheEntry node = this.window.accessNext;
+            if (node == this.window) {
+                break;
+            }
+            unlink(node);
+            this.windowWeight -= node.weight;
+            node.queueType = QUEUE_PROBATION;
+            linkLast(this.probation, node);
+            this.probationWeight += node.weight;
+            if (first == null) {
+                first = node;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * 总权重超出上限时淘汰缓存项：从试用区头部取牺牲项，从候选项开始向尾部取候选项，频率低的一方被淘汰；
+     * 候选项用完后依次淘汰试用区、保护区、窗口中最久未访问的项。
+     * @param candidate 第一个候选项，可以为 null。
+     * @param evicted 用于接收被淘汰缓存项的列表。
+     */
+    private void evictFromMain(CacheEntry candidate, List<CacheEntry> evicted) {
+        while (this.weightedSize() > this.maximum) {
+            CacheEntry victim = firstOrNull(this.probation);
+            if (victim == null) {
+                victim = firstOrNull(this.protectedQueue);
+            }
+            if (victim == null) {
+                victim = firstOrNull(this.window);
+            }
+            if (victim == null) {
+                //剩下的都是 NeverRemove 的缓存项。
+                break;
+            }
+
+            if (candidate == null || candidate.queueType != QUEUE_PROBATION || candidate == victim) {
+                if (candidate == victim) {
+                    candidate = nextOrNull(this.probation, candidate);
+                }
+                this.evict(victim, evicted);
+                continue;
+            }
+
+            //候选项的权重超过上限或者频率不高于牺牲项时淘汰候选项，否则淘汰牺牲项。
+            CacheEntry next = nextOrNull(this.probation, candidate);
+            if ((candidate.weight > this.maximum)
+                    || (this.sketch.frequency(candidate.getKey()) <= this.sketch.frequency(victim.getKey()))) {
+                this.evict(candidate, evicted);
+                candidate = next;
+            } else {
+                this.evict(victim, evicted);
+            }
+        }
+    }
+
+    private void evict(CacheEntry entry, List<CacheEntry> evicted) {
+        this.onRemove(entry);
+        evicted.add(entry);
+    }
+
+    //保护区超出容量时，把最久未访问的项降级到试用区。
+    private void demoteFromProtected() {
+        long maximum = this.protectedMaximum();
+        while (this.protectedWeight > maximum) {
+            CacheEntry first = this.protectedQueue.accessNext;
+            if (first == this.protectedQueue) {
+                break;
+            }
+            unlink(first);
+            this.protectedWeight -= first.weight;
+            first.queueType = QUEUE_PROBATION;
+            linkLast(this.probation, first);
+            this.probationWeight += first.weight;
+        }
+    }
+
+    private static CacheEntry firstOrNull(CacheEntry sentinel) {
+        CacheEntry first = sentinel.accessNext;
+        return first == sentinel ? null : first;
+    }
+
+    private static CacheEntry nextOrNull(CacheEntry sentinel, CacheEntry entry) {
+        CacheEntry next = entry.accessNext;
+        return next == sentinel ? null : next;
+    }
+
+    private static void linkLast(CacheEntry sentinel, CacheEntry entry) {
+        entry.accessPrevious = sentinel.accessPrevious;
+        entry.accessNext = sentinel;
+        sentinel.accessPrevious.accessNext = entry;
+        sentinel.accessPrevious = entry;
+    }
+
+    private static void unlink(CacheEntry entry) {
+        CacheEntry next = entry.accessNext;
+        if (next != null) {
+            CacheEntry previous = entry.accessPrevious;
+            next.accessPrevious = previous;
+            previous.accessNext = next;
+        }
+        entry.accessNext = null;
+        entry.accessPrevious = null;
+    }
+
+    private static void moveToLast(CacheEntry sentinel, CacheEntry entry) {
+        if (sentinel.accessPrevious != entry) {
+            unlink(entry);
+            linkLast(sentinel, entry);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.labijie.caching.testing;
+
+import com.labijie.caching.CacheItemPriority;
+import com.labijie.caching.IChangeToken;
+import com.labijie.caching.PostEvictionCallbackRegistration;
+import com.labijie.caching.memory.LongMemoryCache;
+import com.labijie.caching.memory.MemoryCacheEntryOptions;
+import com.labijie.caching.memory.MemoryCacheOptions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LongMemoryCacheTest {
+
+    private static MemoryCacheOptions createOptions(AtomicLong nanos) {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setTicker(nanos::get);
+        //淘汰回调和过期扫描在调用线程上执行，便于断言。
+        options.setExecutor(Runnable::run);
+        return options;
+    }
+
+    /**
+     * 随机的写入和移除（包括相同的哈希槽位上的连续探测链）结果与 HashMap 一致。
+     */
+    @Test
+    public void testSetGetRemove() throws Exception {
+        try (LongMemoryCache cache = new LongMemoryCache(createOptions(new AtomicLong()))) {
+            Map<Long, Long> expected = new HashMap<>();
+            Random random = new Random(42);
+            for (int i = 0; i < 100000; i++) {
+                long key = random.nextInt(5000) - 2500L;
+                if (random.nextInt(3) == 0) {
+                    cache.remove(key);
+                    expected.remove(key);
+                } else {
+                    cache.set(key, i, (Long) null);
+                    expected.put(key, (long) i);
+                }
+            }
+            Assert.assertEquals(expected.size(), cache.size());
+            for (long key = -2500; key < 2500; key++) {
+                Integer value = cache.get(key);
+                Long e = expected.get(key);
+                Assert.assertEquals(e == null ? null : e.intValue(), value);
+            }
+            Assert.assertNull(cache.get(Long.MIN_VALUE));
+            Assert.assertEquals("default", cache.getOrDefault(Long.MAX_VALUE, "default"));
+        }
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        try (LongMemoryCache cache = new LongMemoryCache(createOptions(nanos))) {
+            MemoryCacheEntryOptions absolute = new MemoryCacheEntryOptions();
+            absolute.setAbsoluteExpirationRelativeToNow(1000L);
+            cache.set(1L, "absolute", absolute);
+            cache.set(2L, "sliding", 1000L);
+            AtomicBoolean changed = new AtomicBoolean();
+            cache.set(3L, "token", new IChangeToken() {
+                @Override
+                public boolean hasChanged() {
+                    return changed.get();
+                }
+
+                @Override
+                public boolean enableActiveChangeCallbacks() {
+                    return false;
+                }
+            });
+
+            nanos.addAndGet(800_000_000L);
+            Assert.assertEquals("sliding", cache.get(2L));
+            nanos.addAndGet(800_000_000L);
+            Assert.assertNull("超过绝对过期时间后应该过期。", cache.get(1L));
+            Assert.assertEquals("读取后滑动过期时间应该延长。", "sliding", cache.get(2L));
+            Assert.assertEquals("token", cache.get(3L));
+
+            changed.set(true);
+            Assert.assertNull("令牌变化后应该过期。", cache.get(3L));
+            nanos.addAndGet(2_000_000_000L);
+            Assert.assertNull(cache.get(2L));
+            Assert.assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void testSlidingExpirationWithRepeatedReads() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        try (LongMemoryCache cache = new LongMemoryCache(createOptions(nanos))) {
+            cache.set(1L, "sliding", 64_000L);
+            //每次读取都应该推迟过期时间，即使两次读取的间隔很短。
+            for (int i = 0; i < 100; i++) {
+                nanos.addAndGet(10_000_000L);
+                Assert.assertEquals("sliding", cache.get(1L));
+            }
+            nanos.addAndGet(63_999_000_000L);
+            Assert.assertEquals("滑动过期缓存项在距上次读取未满滑动过期时间时失效。", "sliding", cache.get(1L));
+
+            nanos.addAndGet(64_001_000_000L);
+            Assert.assertNull(cache.get(1L));
+        }
+    }
+
+    /**
+     * 过期扫描只处理到期的缓存项：被读取延长的滑动过期、重新写入的缓存项和没有变化的令牌需要重新排队。
+     */
+    @Test
+    public void testExpirationScan() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        MemoryCacheOptions options = createOptions(nanos);
+        options.setScanFrequency(100L);
+        try (LongMemoryCache cache = new LongMemoryCache(options)) {
+            MemoryCacheEntryOptions shortLived = new MemoryCacheEntryOptions();
+            shortLived.setAbsoluteExpirationRelativeToNow(1000L);
+            MemoryCacheEntryOptions longLived = new MemoryCacheEntryOptions();
+            longLived.setAbsoluteExpirationRelativeToNow(5000L);
+            for (long i = 0; i < 1000; i++) {
+                cache.set(i, i, i % 2 == 0 ? shortLived : longLived);
+            }
+            //重新写入时检查时间推迟或者取消过期时间。
+            cache.set(0L, "extended", longLived);
+            cache.set(2L, "forever", (MemoryCacheEntryOptions) null);
+            cache.set(1000L, "sliding", 1000L);
+            AtomicBoolean changed = new AtomicBoolean();
+            cache.set(1001L, "token", new IChangeToken() {
+                @Override
+                public boolean hasChanged() {
+                    return changed.get();
+                }
+
+                @Override
+                public boolean enableActiveChangeCallbacks() {
+                    return false;
+                }
+            });
+
+            nanos.addAndGet(800_000_000L);
+            Assert.assertEquals("sliding", cache.get(1000L));
+            nanos.addAndGet(800_000_000L);
+            //触发过期扫描，不读取被扫描的缓存项。
+            cache.get(-1L);
+            Assert.assertEquals(504, cache.size());
+            Assert.assertEquals("extended", cache.getOrDefault(0L, null));
+            Assert.assertEquals("forever", cache.getOrDefault(2L, null));
+
+            changed.set(true);
+            nanos.addAndGet(200_000_000L);
+            cache.get(-1L);
+            Assert.assertNull("令牌变化后过期扫描应该移除缓存项。", cache.getOrDefault(1001L, null));
+
+            nanos.addAndGet(5_000_000_000L);
+            cache.get(-1L);
+            Assert.assertEquals(1, cache.size());
+            Assert.assertEquals("forever", cache.get(2L));
+        }
+    }
+
+    @Test
+    public void testEvictionCallbacks() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        try (LongMemoryCache cache = new LongMemoryCache(createOptions(nanos))) {
+            List<String> events = new ArrayList<>();
+            MemoryCacheEntryOptions options = new MemoryCacheEntryOptions();
+            options.setAbsoluteExpirationRelativeToNow(1000L);
+            options.getPostEvictionCallbacks().add(new PostEvictionCallbackRegistration(
+                    (key, value, reason, state) -> events.add(key + ":" + value + ":" + reason + ":" + state), "s"));
+
+            cache.set(1L, "a", options);
+            cache.set(1L, "b", options);
+            cache.remove(1L);
+            cache.set(2L, "c", options);
+            nanos.addAndGet(2_000_000_000L);
+            //过期扫描在下一次操作时触发。
+            cache.get(3L);
+
+            List<String> expected = new ArrayList<>();
+            expected.add("1:a:Replaced:s");
+            expected.add("1:b:Removed:s");
+            expected.add("2:c:Expired:s");
+            Assert.assertEquals(expected, events);
+        }
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        try (LongMemoryCache cache = new LongMemoryCache(createOptions(nanos))) {
+            MemoryCacheEntryOptions low = new MemoryCacheEntryOptions();
+            low.setPriority(CacheItemPriority.Low);
+            MemoryCacheEntryOptions high = new MemoryCacheEntryOptions();
+            high.setPriority(CacheItemPriority.High);
+            MemoryCacheEntryOptions never = new MemoryCacheEntryOptions();
+            never.setPriority(CacheItemPriority.NeverRemove);
+            for (long i = 0; i < 10; i++) {
+                nanos.incrementAndGet();
+                cache.set(i, i, high);
+                cache.set(100 + i, i, low);
+                cache.set(200 + i, i, never);
+            }
+
+            cache.compact(0.5);
+            Assert.assertEquals(15, cache.size());
+            for (long i = 0; i < 10; i++) {
+                Assert.assertNull("低优先级的缓存项应该先被移除。", cache.get(100 + i));
+                Assert.assertNotNull(cache.get(200 + i));
+            }
+            //高优先级桶内按最后访问时间从早到晚移除。
+            for (long i = 0; i < 5; i++) {
+                Assert.assertNull(cache.get(i));
+                Assert.assertNotNull(cache.get(5 + i));
+            }
+
+            cache.compact(1);
+            Assert.assertEquals("NeverRemove 的缓存项不会被移除。", 10, cache.size());
+        }
+    }
+
+    @Test
+    public void testGetOrCreate() throws Exception {
+        MemoryCacheOptions options = createOptions(new AtomicLong());
+        options.setRecordStats(true);
+        try (LongMemoryCache cache = new LongMemoryCache(options)) {
+            AtomicInteger loads = new AtomicInteger();
+            for (int i = 0; i < 3; i++) {
+                String value = cache.getOrCreate(7L, key -> {
+                    loads.incrementAndGet();
+                    return "v" + key;
+                }, null);
+                Assert.assertEquals("v7", value);
+            }
+            Assert.assertEquals(1, loads.get());
+            Assert.assertNull(cache.getOrCreate(8L, key -> null, null));
+            Assert.assertNull(cache.getOrDefault(8L, null));
+
+            Assert.assertEquals(2, cache.getStats().getHitCount());
+            Assert.assertEquals(1, cache.getStats().getLoadSuccessCount());
+            Assert.assertEquals(1, cache.getStats().getLoadFailureCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedOptions() throws Exception {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setMaximumSize(10L);
+        new LongMemoryCache(options).close();
+    }
+}
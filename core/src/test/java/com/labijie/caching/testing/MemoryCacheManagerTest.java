@@ -1,5 +1,8 @@
 package com.labijie.caching.testing;
 
+import com.labijie.caching.CacheStats;
+import com.labijie.caching.EvictionReason;
+import com.labijie.caching.ICacheRegion;
 import com.labijie.caching.memory.MemoryCacheManager;
 import com.labijie.caching.memory.MemoryCacheOptions;
 import org.junit.After;
@@ -7,8 +10,23 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 
 public class MemoryCacheManagerTest {
@@ -132,22 +150,395 @@ public class MemoryCacheManagerTest {
     }
 
     /**
-     * Method: getRegionNameFormFullKey(String fullKey)
+     * Method: getOrSet(String key, Function factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration)
      */
     @Test
-    public void testGetRegionNameFormFullKey() throws Exception {
+    public void testGetOrSetLoadsOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return memoryCache.getOrSet("a", k -> {
+                        loads.incrementAndGet();
+                        try {
+                            Thread.sleep(200);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "value";
+                    }, 5000L, "region1", false);
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                Assert.assertEquals("value", result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        Assert.assertEquals("getOrSet 并发调用时工厂方法被执行了多次。", 1, loads.get());
+    }
+
+    /**
+     * getOrSet 的两个重载（包括 refreshAfterWrite）对同一个键的并发加载只执行一次工厂方法。
+     */
+    @Test
+    public void testGetOrSetOverloadsShareLoads() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> pending = executor.submit(() -> memoryCache.getOrSet("a", k -> {
+                loads.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "value";
+            }, 5000L, "region1", false));
+            started.await();
+            Future<Object> refreshing = executor.submit(() -> memoryCache.getOrSet("a", k -> {
+                loads.incrementAndGet();
+                return "other";
+            }, 5000L, "region1", false, 1000L));
+            Thread.sleep(100);
+            release.countDown();
+            Assert.assertEquals("value", pending.get());
+            Assert.assertEquals("value", refreshing.get());
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals("getOrSet 的两个重载并发调用时工厂方法被执行了多次。", 1, loads.get());
+    }
+
+    @Test
+    public void testGetOrSetDoesNotCacheException() throws Exception {
+        try {
+            memoryCache.getOrSet("a", k -> {
+                throw new IllegalStateException("load failed");
+            }, 5000L, "region1", false);
+            Assert.fail("getOrSet 未抛出工厂方法的异常。");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("load failed", e.getMessage());
+        }
+        Object value = memoryCache.getOrSet("a", k -> "value", 5000L, "region1", false);
+        Assert.assertEquals("getOrSet 缓存了工厂方法的异常。", "value", value);
+    }
+
+    /**
+     * Method: getOrSetAsync(String key, Function factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration)
+     */
+    @Test
+    public void testGetOrSetAsync() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> load = new CompletableFuture<>();
+        CompletableFuture<String> first = memoryCache.getOrSetAsync("a", k -> {
+            loads.incrementAndGet();
+            return load;
+        }, 5000L, "region1", false);
+        CompletableFuture<String> second = memoryCache.getOrSetAsync("a", k -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        }, 5000L, "region1", false);
+
+        Assert.assertFalse(first.isDone());
+        load.complete("value");
+        Assert.assertEquals("value", first.get());
+        Assert.assertEquals("value", second.get());
+        Assert.assertEquals("getOrSetAsync 并发调用时工厂方法被执行了多次。", 1, loads.get());
+
+        CompletableFuture<Object> cached = memoryCache.getAsync("a", "region1");
+        Assert.assertTrue("内存缓存的 getAsync 应该同步完成。", cached.isDone());
+        Assert.assertEquals("value", cached.get());
+
+        memoryCache.removeAsync("a", "region1").get();
+        Assert.assertNull(memoryCache.get("a", "region1"));
+    }
+
+    /**
+     * Method: getAll / setAll / removeAll
+     */
+    @Test
+    public void testBulkOperations() throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("a", "1");
+        data.put("b", "2");
+        data.put("c", "3");
+        memoryCache.setAll(data, 5000L, "region1", false);
+
+        Map<String, Object> values = memoryCache.getAll(Arrays.asList("a", "b", "c", "d"), "region1");
+        Assert.assertEquals("getAll 只应该返回存在的键。", 3, values.size());
+        Assert.assertEquals("2", values.get("b"));
+        Assert.assertFalse(values.containsKey("d"));
+        Assert.assertTrue("getAll 不应该返回其他区域的缓存。", memoryCache.getAll(Arrays.asList("a", "b"), "region2").isEmpty());
+
+        memoryCache.removeAll(Arrays.asList("a", "b"), "region1");
+        Assert.assertNull(memoryCache.get("a", "region1"));
+        Assert.assertNull(memoryCache.get("b", "region1"));
+        Assert.assertEquals("3", memoryCache.get("c", "region1"));
+
+        memoryCache.clearRegion("region1");
+        Assert.assertNull("setAll 写入的缓存项应该属于指定的区域。", memoryCache.get("c", "region1"));
+    }
+
+    /**
+     * Method: getAllOrSet(Collection keys, Function batchLoader, Long timeoutMilliseconds, String region, boolean useSlidingExpiration)
+     */
+    @Test
+    public void testGetAllOrSet() throws Exception {
+        memoryCache.set("a", "1", 5000L, "region1", false);
+        List<Set<String>> requests = new ArrayList<>();
+        Function<Set<String>, Map<String, String>> loader = missing -> {
+            requests.add(new HashSet<>(missing));
+            Map<String, String> values = new HashMap<>();
+            if (missing.contains("b")) {
+                values.put("b", "2");
+            }
+            values.put("x", "不属于请求的键");
+            return values;
+        };
+
+        Map<String, String> values = memoryCache.getAllOrSet(Arrays.asList("a", "b", "c"), loader, 5000L, "region1", false);
+        Assert.assertEquals(2, values.size());
+        Assert.assertEquals("1", values.get("a"));
+        Assert.assertEquals("2", values.get("b"));
+        Assert.assertEquals("缺失的键应该通过一次调用加载。", 1, requests.size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("b", "c")), requests.get(0));
+        Assert.assertEquals("2", memoryCache.get("b", "region1"));
+        Assert.assertNull("加载结果中不属于请求的键不应该写入缓存。", memoryCache.get("x", "region1"));
+
+        //正在通过 getOrSet 加载的键不应该再次加载。
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> pending = executor.submit(() -> memoryCache.getOrSet("d", k -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "4";
+            }, 5000L, "region1", false));
+            started.await();
+            requests.clear();
+            executor.submit(() -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                release.countDown();
+            });
+            values = memoryCache.getAllOrSet(Arrays.asList("c", "d"), loader, 5000L, "region1", false);
+            Assert.assertEquals("4", values.get("d"));
+            Assert.assertEquals("4", pending.get());
+            Assert.assertEquals(1, requests.size());
+            Assert.assertEquals(new HashSet<>(Arrays.asList("c")), requests.get(0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 区域索引在缓存项被移除后应该被清理。
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRegionIndexIsCleaned() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            memoryCache.set("k" + i, "v" + i, 5000L, "region1", false);
+        }
+        //重新写入的缓存项不能被旧缓存项的移除回调从索引中删除。
+        memoryCache.set("k0", "new", 5000L, "region1", false);
+        for (int i = 1; i < 50; i++) {
+            memoryCache.remove("k" + i, "region1");
+        }
+
+        Field field = MemoryCacheManager.class.getDeclaredField("caches");
+        field.setAccessible(true);
+        Map<String, Map<String, Object>> caches = (Map<String, Map<String, Object>>) field.get(memoryCache);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (caches.get("region1").size() > 51 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals("移除的缓存键应该从区域索引中删除。", 51, caches.get("region1").size());
+
+        memoryCache.clearRegion("region1");
+        Assert.assertNull(memoryCache.get("k0", "region1"));
+        Assert.assertNull(memoryCache.get("k99", "region1"));
+    }
+
+    /**
+     * 同一个键上并发的写入、替换和移除以任意顺序交错后，clearRegion 都应该移除缓存中存活的缓存项。
+     */
+    @Test
+    public void testClearRegionAfterConcurrentSets() throws Exception {
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < 50; i++) {
+                            String key = "k" + (i % 5);
+                            if (thread == 0 && i % 7 == 0) {
+                                memoryCache.remove(key, "region1");
+                            } else {
+                                memoryCache.set(key, thread + ":" + i, 5000L, "region1", false);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+
+                memoryCache.clearRegion("region1");
+                for (int i = 0; i < 5; i++) {
+                    Assert.assertNull("区域索引漏掉了存活的缓存项。", memoryCache.get("k" + i, "region1"));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
+    /**
+     * 淘汰通知队列已满并丢弃通知时，区域索引仍然应该被清理。
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRegionIndexIsCleanedWhenNotificationsAreDropped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setEvictionQueueCapacity(1);
+        options.setDropEvictionNotificationsWhenFull(true);
+        options.setBulkEvictionListener(notifications -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        MemoryCacheManager manager = new MemoryCacheManager(options);
         try {
-            Method method = MemoryCacheManager.class.getDeclaredMethod("getRegionNameFormFullKey", String.class);
-            method.setAccessible(true);
-            String regionName = (String) method.invoke(memoryCache, "a|b");
-            Assert.assertEquals("a", regionName);
-
-        } catch (NoSuchMethodException e) {
-        } catch (IllegalAccessException e) {
-        } catch (InvocationTargetException e) {
+            for (int i = 0; i < 100; i++) {
+                manager.set("k" + i, "v" + i, 5000L, "region1", false);
+            }
+            for (int i = 0; i < 100; i++) {
+                manager.remove("k" + i, "region1");
+            }
+
+            Field field = MemoryCacheManager.class.getDeclaredField("caches");
+            field.setAccessible(true);
+            Map<String, Map<String, Object>> caches = (Map<String, Map<String, Object>>) field.get(manager);
+            Assert.assertEquals("丢弃淘汰通知时区域索引项没有被删除。", 0, caches.get("region1").size());
+        } finally {
+            release.countDown();
+            manager.close();
         }
+    }
+
+    /**
+     * 启用 recordStats 后应该按区域记录命中、未命中、加载和淘汰次数。
+     */
+    @Test
+    public void testStats() throws Exception {
+        Assert.assertEquals("未启用统计时应该返回空统计。", CacheStats.EMPTY.toString(), memoryCache.getStats().toString());
+
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setRecordStats(true);
+        MemoryCacheManager cache = new MemoryCacheManager(options);
+        Assert.assertNull(cache.get("a", "region1"));
+        cache.set("a", "1", 5000L, "region1", false);
+        Assert.assertEquals("1", cache.get("a", "region1"));
+        Assert.assertEquals("b", cache.getOrSet("b", k -> k, 5000L, "region2", false));
+        Assert.assertEquals("b", cache.getOrSet("b", k -> "other", 5000L, "region2", false));
+        Assert.assertNull(cache.getOrSet("c", k -> null, 5000L, "region2", false));
+        cache.set("a", "2", 5000L, "region1", false);
+        cache.remove("a", "region1");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getStats().getEvictionCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        CacheStats stats = cache.getStats();
+        Assert.assertEquals(2, stats.getHitCount());
+        Assert.assertEquals(3, stats.getMissCount());
+        Assert.assertEquals(1, stats.getLoadSuccessCount());
+        Assert.assertEquals("工厂方法返回 null 应该记为加载失败。", 1, stats.getLoadFailureCount());
+        Assert.assertEquals(1, stats.getEvictionCount(EvictionReason.Replaced));
+        Assert.assertEquals(1, stats.getEvictionCount(EvictionReason.Removed));
+
+        Map<String, CacheStats> regions = cache.getRegionStats();
+        Assert.assertEquals(1, regions.get("region1").getHitCount());
+        Assert.assertEquals(1, regions.get("region1").getMissCount());
+        Assert.assertEquals(2, regions.get("region2").getLoadCount());
+        Assert.assertEquals(0.4, stats.getHitRate(), 0.0001);
+    }
+
+    /**
+     * Method: region(String region)
+     */
+    @Test
+    public void testRegion() throws Exception {
+        ICacheRegion region = memoryCache.region(" region1 ");
+        Assert.assertEquals("region1", region.getName());
+        Assert.assertEquals(MemoryCacheManager.DEFAULT_CACHE_NAME, memoryCache.region(null).getName());
+
+        region.set("a", "1", 5000L, false);
+        Assert.assertEquals("区域句柄和 ICacheManager 应该访问同一个缓存项。", "1", memoryCache.get("a", "region1"));
+        memoryCache.set("b", "2", 5000L, "region1", false);
+        Assert.assertEquals("2", region.get("b"));
+        Assert.assertNull(memoryCache.region("region2").get("a"));
+        Assert.assertEquals("1", region.getOrSet("a", k -> "other", 5000L, false));
+        Assert.assertEquals("c", region.getOrSet("c", k -> k, 5000L, false));
+
+        region.remove("a");
+        Assert.assertNull(memoryCache.get("a", "region1"));
+        region.clear();
+        Assert.assertNull(memoryCache.get("b", "region1"));
+        Assert.assertNull(region.get("c"));
+    }
+
+    /**
+     * RegionKey 按区域和缓存键比较，包含分隔符的区域或缓存键不会与其他组合冲突。
+     */
+    @Test
+    public void testRegionKey() throws Exception {
+        Class<?> regionKeyClass = Class.forName("com.labijie.caching.memory.RegionKey");
+        Constructor<?> constructor = regionKeyClass.getDeclaredConstructor(String.class, String.class);
+        constructor.setAccessible(true);
+        Method regionOf = regionKeyClass.getDeclaredMethod("regionOf", Object.class);
+        regionOf.setAccessible(true);
+
+        Object key = constructor.newInstance("region1", "b");
+        Object same = constructor.newInstance("region1", "b");
+        Assert.assertEquals(key, same);
+        Assert.assertEquals(key.hashCode(), same.hashCode());
+        Assert.assertNotEquals(key, constructor.newInstance("region2", "b"));
+        Assert.assertNotEquals(key, constructor.newInstance("region1", "c"));
+        Assert.assertNotEquals("拼接后相同的区域和缓存键不应该相等。",
+                constructor.newInstance("a|b", "c"), constructor.newInstance("a", "b|c"));
 
+        Assert.assertEquals("region1", regionOf.invoke(null, key));
+        Assert.assertEquals("a|b", regionOf.invoke(null, constructor.newInstance("a|b", "c")));
+        Assert.assertNull("不是 RegionKey 的缓存键没有区域。", regionOf.invoke(null, "region1|b"));
     }
 
 } 
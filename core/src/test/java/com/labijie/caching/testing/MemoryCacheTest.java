@@ -1,24 +1,78 @@
 package com.labijie.caching.testing;
 
+import com.labijie.caching.CacheItemPriority;
+import com.labijie.caching.EvictionNotification;
+import com.labijie.caching.EvictionReason;
+import com.labijie.caching.ICacheDataSerializer;
 import com.labijie.caching.IChangeToken;
+import com.labijie.caching.PostEvictionCallbackRegistration;
 import com.labijie.caching.memory.CacheEntry;
 import com.labijie.caching.memory.MemoryCache;
 import com.labijie.caching.memory.MemoryCacheEntryOptions;
 import com.labijie.caching.memory.MemoryCacheOptions;
+import com.labijie.caching.memory.ValueStrength;
+import com.sun.management.GarbageCollectionNotificationInfo;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.management.MBeanServer;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class MemoryCacheTest {
+    private static final ICacheDataSerializer STRING_BUILDER_SERIALIZER = new ICacheDataSerializer() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T deserializeData(Class<T> type, String data, boolean gzipCompress) {
+            return (T) new StringBuilder(data);
+        }
+
+        @Override
+        public String serializeData(Object data, boolean gzipCompress) {
+            return data.toString();
+        }
+    };
+
     private MemoryCache memoryCache = null;
 
     @Before
@@ -61,6 +115,16 @@ public class MemoryCacheTest {
     public void testCreateEntry() throws Exception {
         CacheEntry entry = memoryCache.createEntry("cc");
         Assert.assertNotNull("创建 createEntry 返回了空值。", entry);
+        entry.setValue("value");
+        entry.discard();
+        entry.commit();
+        Assert.assertNull("放弃的缓存项不应该被提交。", memoryCache.get("cc"));
+
+        entry = memoryCache.createEntry("dd");
+        entry.setValue("value");
+        Assert.assertNull("提交之前缓存项不应该加入缓存。", memoryCache.get("dd"));
+        entry.commit();
+        Assert.assertEquals("value", memoryCache.get("dd"));
     }
 
     /**
@@ -204,6 +268,574 @@ public class MemoryCacheTest {
         Assert.assertEquals("compact 收缩内存未生效。", 7, memoryCache.size());
     }
 
+    /**
+     * Method: compact(double percentage) keeps frequently used items after a scan
+     */
+    @Test
+    public void testCompactIsScanResistant() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            memoryCache.set("hot" + i, new Object(), 10 * 60 * 1000L);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 1; i <= 5; i++) {
+                Assert.assertNotNull(memoryCache.get("hot" + i));
+            }
+        }
+        //一次性扫描流量，纯 LRU 会优先淘汰更早被访问的热点项。
+        for (int i = 1; i <= 5; i++) {
+            memoryCache.set("scan" + i, new Object(), 10 * 60 * 1000L);
+        }
+
+        memoryCache.compact(0.5);
+
+        Assert.assertEquals("compact 收缩内存未生效。", 5, memoryCache.size());
+        for (int i = 1; i <= 5; i++) {
+            Assert.assertNotNull("compact 淘汰了访问频率高的缓存项。", memoryCache.get("hot" + i));
+        }
+    }
+
+    @Test
+    public void testMaximumSize() throws Exception {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setMaximumSize(10L);
+        try (MemoryCache cache = new MemoryCache(options)) {
+            for (int i = 1; i <= 5; i++) {
+                cache.set("hot" + i, new Object(), 10 * 60 * 1000L);
+            }
+            for (int round = 0; round < 5; round++) {
+                for (int i = 1; i <= 5; i++) {
+                    cache.get("hot" + i);
+                }
+            }
+            for (int i = 1; i <= 100; i++) {
+                cache.set("scan" + i, new Object(), 10 * 60 * 1000L);
+            }
+
+            Assert.assertEquals("maximumSize 未限制缓存项数量。", 10, cache.size());
+            Assert.assertEquals(10L, cache.getWeightedSize());
+            for (int i = 1; i <= 5; i++) {
+                Assert.assertNotNull("超出 maximumSize 时淘汰了访问频率高的缓存项。", cache.get("hot" + i));
+            }
+        }
+    }
+
+    @Test
+    public void testTrackEntryScopes() throws Exception {
+        for (boolean track : new boolean[]{true, false}) {
+            AtomicLong nanos = new AtomicLong();
+            MemoryCacheOptions options = new MemoryCacheOptions();
+            options.setTicker(nanos::get);
+            options.setTrackEntryScopes(track);
+            try (MemoryCache cache = new MemoryCache(options)) {
+                cache.getOrCreate("outer", entry -> {
+                    entry.setAbsoluteExpirationRelativeToNowMS(10 * 1000L);
+                    return cache.getOrCreate("inner", inner -> {
+                        inner.setAbsoluteExpirationRelativeToNowMS(1000L);
+                        return "value";
+                    });
+                });
+                nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+                Assert.assertNull(cache.get("inner"));
+                if (track) {
+                    Assert.assertNull("跟踪作用域时内层缓存项的绝对过期时间应该传递给外层缓存项。", cache.get("outer"));
+                } else {
+                    Assert.assertEquals("不跟踪作用域时不应该传递过期设置。", "value", cache.get("outer"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBulkEvictionListener() throws Exception {
+        List<EvictionNotification> notifications = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger batches = new AtomicInteger();
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setBulkEvictionListener(list -> {
+            batches.incrementAndGet();
+            notifications.addAll(list);
+        });
+        try (MemoryCache cache = new MemoryCache(options)) {
+            for (int i = 0; i < 3; i++) {
+                cache.set("k", "v" + i, 10 * 60 * 1000L);
+            }
+            for (int i = 0; i < 1000; i++) {
+                cache.set("c" + i, new Object(), 10 * 60 * 1000L);
+            }
+            cache.compact(1);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (notifications.size() < 1003 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(1003, notifications.size());
+            Assert.assertTrue("淘汰通知应该分批投递。", batches.get() < 1003);
+            List<Object> values = new ArrayList<>();
+            for (EvictionNotification n : notifications) {
+                if ("k".equals(n.getKey())) {
+                    values.add(n.getValue());
+                }
+            }
+            Assert.assertEquals("同一个缓存键的淘汰通知应该保持顺序。", Arrays.asList("v0", "v1", "v2"), values);
+        }
+    }
+
+    @Test
+    public void testEvictionQueueDropsWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setEvictionQueueCapacity(1);
+        options.setDropEvictionNotificationsWhenFull(true);
+        options.setBulkEvictionListener(list -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try (MemoryCache cache = new MemoryCache(options)) {
+            for (int i = 0; i < 10; i++) {
+                cache.set("k", i, 10 * 60 * 1000L);
+            }
+            Assert.assertTrue("队列已满时应该丢弃淘汰通知。", cache.getDroppedEvictionNotificationCount() > 0);
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setName("jmx-test");
+        options.setJmxEnabled(true);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("com.labijie.caching:type=\"MemoryCache\",name=\"jmx-test\"");
+        try (MemoryCache cache = new MemoryCache(options)) {
+            for (int i = 0; i < 20; i++) {
+                cache.set("k" + i, new Object(), 10 * 60 * 1000L);
+            }
+            Assert.assertTrue("创建缓存时应该注册 MBean。", server.isRegistered(name));
+            Assert.assertEquals(20, server.getAttribute(name, "Size"));
+            Assert.assertEquals(-1L, server.getAttribute(name, "Maximum"));
+
+            server.invoke(name, "resize", new Object[]{10L}, new String[]{long.class.getName()});
+            Assert.assertEquals("resize 缩小容量后应该立即淘汰超出的缓存项。", 10, cache.size());
+            Assert.assertEquals(10L, server.getAttribute(name, "Maximum"));
+
+            server.invoke(name, "compact", new Object[]{0.5d}, new String[]{double.class.getName()});
+            Assert.assertEquals(5, cache.size());
+        }
+        Assert.assertFalse("关闭缓存时应该注销 MBean。", server.isRegistered(name));
+    }
+
+    @Test
+    public void testHeapOccupancyAfterGc() throws Exception {
+        Class<?> controllerType = Class.forName("com.labijie.caching.memory.MemoryPressureController");
+        Method heapOccupancy = controllerType.getDeclaredMethod("heapOccupancy", Map.class, Set.class, long.class);
+        heapOccupancy.setAccessible(true);
+
+        Map<String, MemoryUsage> usageAfterGc = new HashMap<>();
+        usageAfterGc.put("G1 Eden Space", new MemoryUsage(0, 0, 400, 1000));
+        usageAfterGc.put("G1 Old Gen", new MemoryUsage(0, 300, 600, 1000));
+        usageAfterGc.put("G1 Survivor Space", new MemoryUsage(0, 100, 200, 1000));
+        usageAfterGc.put("Metaspace", new MemoryUsage(0, 500, 600, -1));
+        Set<String> heapPools = new HashSet<>(Arrays.asList("G1 Eden Space", "G1 Old Gen", "G1 Survivor Space"));
+
+        //只统计堆内存池：(0 + 300 + 100) / 1000
+        Assert.assertEquals(0.4d, (Double) heapOccupancy.invoke(null, usageAfterGc, heapPools, 1000L), 1e-9);
+        Assert.assertEquals(0d, (Double) heapOccupancy.invoke(null, usageAfterGc, heapPools, -1L), 1e-9);
+
+        //使用真实的 GC 通知计算。
+        Method getHeapOccupancyAfterGc = controllerType.getDeclaredMethod("getHeapOccupancyAfterGc", Map.class);
+        getHeapOccupancyAfterGc.setAccessible(true);
+        BlockingQueue<Map<String, MemoryUsage>> notifications = new LinkedBlockingQueue<>();
+        NotificationListener listener = (notification, handback) -> {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                notifications.add(info.getGcInfo().getMemoryUsageAfterGc());
+            }
+        };
+        List<NotificationEmitter> emitters = new ArrayList<>();
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                ((NotificationEmitter) bean).addNotificationListener(listener, null, null);
+                emitters.add((NotificationEmitter) bean);
+            }
+        }
+        try {
+            System.gc();
+            Map<String, MemoryUsage> afterGc = notifications.poll(5, TimeUnit.SECONDS);
+            Assert.assertNotNull("应该收到 GC 通知。", afterGc);
+            double occupancy = (Double) getHeapOccupancyAfterGc.invoke(null, afterGc);
+            Assert.assertTrue(occupancy > 0 && occupancy < 1);
+        } finally {
+            for (NotificationEmitter emitter : emitters) {
+                emitter.removeNotificationListener(listener);
+            }
+        }
+    }
+
+    @Test
+    public void testMemoryPressureCompaction() throws Exception {
+        Class<?> controllerType = Class.forName("com.labijie.caching.memory.MemoryPressureController");
+        Field shared = controllerType.getDeclaredField("SHARED");
+        shared.setAccessible(true);
+        Method onHeapOccupancy = controllerType.getDeclaredMethod("onHeapOccupancy", double.class);
+        onHeapOccupancy.setAccessible(true);
+        Object controller = shared.get(null);
+
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setHeapOccupancyTarget(0.6d);
+        try (MemoryCache cache = new MemoryCache(options)) {
+            for (int i = 0; i < 100; i++) {
+                cache.set("k" + i, new Object(), 10 * 60 * 1000L);
+            }
+            onHeapOccupancy.invoke(controller, 0.5d);
+            Thread.sleep(200);
+            Assert.assertEquals("堆占用率未超过目标时不应该收缩。", 100, cache.size());
+
+            //(0.8 - 0.6) / 0.8 = 25%
+            onHeapOccupancy.invoke(controller, 0.8d);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.getMemoryPressureCompactionCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            Assert.assertEquals(1, cache.getMemoryPressureCompactionCount());
+            Assert.assertEquals(75, cache.size());
+
+            onHeapOccupancy.invoke(controller, 0.99d);
+            Thread.sleep(200);
+            Assert.assertEquals("两次收缩之间应该有最小间隔。", 1, cache.getMemoryPressureCompactionCount());
+        }
+    }
+
+    @Test
+    public void testWeakValues() throws Exception {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setValueStrength(ValueStrength.Weak);
+        options.setScanFrequency(10L);
+        try (MemoryCache cache = new MemoryCache(options)) {
+            List<EvictionReason> reasons = Collections.synchronizedList(new ArrayList<>());
+            MemoryCacheEntryOptions weak = new MemoryCacheEntryOptions();
+            weak.getPostEvictionCallbacks().add(new PostEvictionCallbackRegistration((key, value, reason, state) -> reasons.add(reason), null));
+            cache.set("weak", new Object(), weak);
+
+            MemoryCacheEntryOptions strong = new MemoryCacheEntryOptions();
+            strong.setValueStrength(ValueStrength.Strong);
+            cache.set("strong", new Object(), strong);
+
+            Object held = new Object();
+            cache.set("held", held, (Long) null);
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while (cache.size() > 2 && System.currentTimeMillis() < deadline) {
+                System.gc();
+                Thread.sleep(20);
+                //写入触发维护任务，由维护任务从 ReferenceQueue 中移除被回收的缓存项。
+                cache.set("touch", held, strong);
+                cache.remove("touch");
+            }
+            Assert.assertNull("弱引用的值被回收后缓存项应该被移除。", cache.get("weak"));
+            Assert.assertNotNull("强引用的值不应该被回收。", cache.get("strong"));
+            Assert.assertSame(held, cache.get("held"));
+
+            deadline = System.currentTimeMillis() + 5000;
+            while (reasons.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(Collections.singletonList(EvictionReason.Collected), reasons);
+        }
+    }
+
+    @Test
+    public void testMaximumWeight() throws Exception {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setMaximumWeight(100L);
+        options.setWeigher((key, value) -> ((String) value).length());
+        try (MemoryCache cache = new MemoryCache(options)) {
+            MemoryCacheEntryOptions pinned = new MemoryCacheEntryOptions();
+            pinned.setPriority(CacheItemPriority.NeverRemove);
+            cache.set("pinned", "0123456789", pinned);
+            for (int i = 0; i < 50; i++) {
+                cache.set("k" + i, "0123456789", 10 * 60 * 1000L);
+            }
+
+            Assert.assertTrue("maximumWeight 未限制缓存项的总权重。", cache.getWeightedSize() <= 100L);
+            Assert.assertEquals(10, cache.size());
+            Assert.assertNotNull("NeverRemove 的缓存项不应该被淘汰。", cache.get("pinned"));
+        }
+    }
+
+    /**
+     * 按权重限制容量时，频率草图按实际的缓存项数量扩充，而不是按权重上限预先分配。
+     */
+    @Test
+    public void testLargeMaximumWeight() throws Exception {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setMaximumWeight(1L << 40);
+        options.setWeigher((key, value) -> ((String) value).length());
+        try (MemoryCache cache = new MemoryCache(options)) {
+            cache.resize(1L << 41);
+            for (int i = 0; i < 100; i++) {
+                cache.set("k" + i, "0123456789", 10 * 60 * 1000L);
+            }
+            Assert.assertEquals(100, cache.size());
+
+            Field policyField = MemoryCache.class.getDeclaredField("policy");
+            policyField.setAccessible(true);
+            Object policy = policyField.get(cache);
+            Field sketchField = policy.getClass().getDeclaredField("sketch");
+            sketchField.setAccessible(true);
+            Object sketch = sketchField.get(policy);
+            Method capacity = sketch.getClass().getDeclaredMethod("capacity");
+            capacity.setAccessible(true);
+            Assert.assertTrue("频率草图不应该按权重上限分配。", (Integer) capacity.invoke(sketch) <= 256);
+        }
+    }
+
+    @Test
+    public void testExecutor() throws Exception {
+        ExecutorService shared = Executors.newSingleThreadExecutor();
+        try {
+            MemoryCacheOptions options = new MemoryCacheOptions();
+            options.setExecutor(shared);
+            MemoryCache cache = new MemoryCache(options);
+            Assert.assertSame(shared, cache.getExecutor());
+            cache.close();
+            Assert.assertFalse("MemoryCache.close 不应该关闭外部传入的线程池。", shared.isShutdown());
+        } finally {
+            shared.shutdown();
+        }
+
+        MemoryCache cache = new MemoryCache(new MemoryCacheOptions());
+        ExecutorService owned = (ExecutorService) cache.getExecutor();
+        cache.close();
+        Assert.assertTrue("MemoryCache.close 未关闭缓存自己创建的线程池。", owned.isShutdown());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaximumWeightRequiresWeigher() throws Exception {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setMaximumWeight(100L);
+        new MemoryCache(options).close();
+    }
+
+    @Test
+    public void testOffHeap() throws Exception {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setOffHeapCapacity(8192L);
+        options.setOffHeapSlabSize(4096);
+        options.setOffHeapSerializer(STRING_BUILDER_SERIALIZER);
+        MemoryCache cache = new MemoryCache(options);
+        try {
+            StringBuilder value = new StringBuilder("off-heap");
+            cache.set("a", value, (Long) null);
+            Object cached = cache.get("a");
+            Assert.assertEquals("off-heap", cached.toString());
+            Assert.assertNotSame("堆外存储的值读取时应该重新反序列化。", value, cached);
+            Assert.assertEquals(64, cache.getOffHeapSize());
+
+            //超过 slab 大小的值保留在堆上。
+            StringBuilder large = new StringBuilder();
+            for (int i = 0; i < 5000; i++) {
+                large.append('x');
+            }
+            cache.set("b", large, (Long) null);
+            Assert.assertSame(large, cache.get("b"));
+
+            cache.set("a", new StringBuilder("replaced"), (Long) null);
+            Assert.assertEquals("replaced", cache.get("a").toString());
+            Assert.assertEquals("被替换的值应该归还堆外内存。", 64, cache.getOffHeapSize());
+
+            cache.remove("a");
+            Assert.assertNull(cache.get("a"));
+            Assert.assertEquals("被移除的值应该归还堆外内存。", 0, cache.getOffHeapSize());
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffHeapRequiresSerializer() throws Exception {
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setOffHeapCapacity(1024L);
+        new MemoryCache(options).close();
+    }
+
+    @Test
+    public void testDiskSpill() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        AtomicInteger evictions = new AtomicInteger();
+        Path directory = Files.createTempDirectory("memory-cache-spill-test");
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setTicker(nanos::get);
+        options.setExecutor(Runnable::run);
+        options.setMaximumSize(1L);
+        options.setDiskSpillCapacity(1024L);
+        options.setDiskSpillSegmentSize(512);
+        options.setDiskSpillDirectory(directory);
+        options.setDiskSpillSerializer(STRING_BUILDER_SERIALIZER);
+        MemoryCache cache = new MemoryCache(options);
+        try {
+            MemoryCacheEntryOptions entryOptions = new MemoryCacheEntryOptions();
+            entryOptions.setSlidingExpirationMilliseconds(1000L);
+            entryOptions.getPostEvictionCallbacks().add(new PostEvictionCallbackRegistration(
+                    (key, value, reason, state) -> evictions.incrementAndGet(), null));
+            cache.set("a", new StringBuilder("value-a"), entryOptions);
+            cache.set("b", new StringBuilder("value-b"), entryOptions);
+            Assert.assertEquals(1, cache.size());
+            Assert.assertEquals("因容量被淘汰的缓存项未写入磁盘。", 1, cache.getDiskSpillCount());
+            Assert.assertEquals("写入磁盘的缓存项不应该执行淘汰回调。", 0, evictions.get());
+
+            //磁盘上的缓存项命中后提升回内存，内存中的缓存项被淘汰到磁盘。
+            Assert.assertEquals("value-a", cache.get("a").toString());
+            Assert.assertEquals("value-b", cache.get("b").toString());
+            Assert.assertEquals(1, cache.getDiskSpillCount());
+
+            //磁盘上的缓存项按相同的滑动过期规则过期。
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+            Assert.assertNull(cache.get("a"));
+            Assert.assertNull(cache.get("b"));
+            Assert.assertEquals(0, cache.getDiskSpillCount());
+            //淘汰回调由淘汰通知线程异步执行。
+            long deadline = System.currentTimeMillis() + 5000;
+            while (evictions.get() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(2, evictions.get());
+
+            cache.set("c", new StringBuilder("value-c"), (Long) null);
+            cache.set("d", new StringBuilder("value-d"), (Long) null);
+            Assert.assertEquals(1, cache.getDiskSpillCount());
+            cache.remove("c");
+            cache.remove("d");
+            Assert.assertEquals("移除缓存项时未移除磁盘上的值。", 0, cache.getDiskSpillCount());
+            Assert.assertNull(cache.get("c"));
+            Assert.assertNull(cache.get("d"));
+            Assert.assertEquals(0, cache.getDiskSpillSize());
+        } finally {
+            cache.close();
+            deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * 过期扫描按过期时间移除磁盘上已经到期的缓存项，没有过期时间的缓存项保留。
+     */
+    @Test
+    public void testDiskSpillExpiration() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        Path directory = Files.createTempDirectory("memory-cache-spill-test");
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setTicker(nanos::get);
+        options.setExecutor(Runnable::run);
+        options.setMaximumSize(1L);
+        options.setDiskSpillCapacity(4096L);
+        options.setDiskSpillSegmentSize(1024);
+        options.setDiskSpillDirectory(directory);
+        options.setDiskSpillSerializer(STRING_BUILDER_SERIALIZER);
+        MemoryCache cache = new MemoryCache(options);
+        try {
+            Method scan = MemoryCache.class.getDeclaredMethod("scanForExpiredItems", MemoryCache.class);
+            scan.setAccessible(true);
+
+            cache.set("forever", new StringBuilder("forever"), (Long) null);
+            for (int i = 4; i >= 0; i--) {
+                MemoryCacheEntryOptions entryOptions = new MemoryCacheEntryOptions();
+                entryOptions.setAbsoluteExpirationRelativeToNow((i + 1) * 1000L);
+                cache.set("k" + i, new StringBuilder("value-" + i), entryOptions);
+            }
+            cache.set("last", new StringBuilder("last"), (Long) null);
+            Assert.assertEquals(6, cache.getDiskSpillCount());
+
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(2500));
+            scan.invoke(null, cache);
+            Assert.assertEquals("到期的缓存项应该从磁盘移除。", 5, cache.size() + cache.getDiskSpillCount());
+
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(10000));
+            scan.invoke(null, cache);
+            Assert.assertEquals("没有过期时间的缓存项不应该被移除。", 2, cache.size() + cache.getDiskSpillCount());
+            Assert.assertEquals("forever", cache.get("forever").toString());
+            Assert.assertEquals("last", cache.get("last").toString());
+        } finally {
+            cache.close();
+            deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * 读取磁盘上的缓存项时并发写入同一个键，写入的值不能被提升的旧值覆盖。
+     */
+    @Test
+    public void testDiskSpillPromotionDoesNotOverwriteConcurrentSet() throws Exception {
+        Path directory = Files.createTempDirectory("memory-cache-spill-test");
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        AtomicReference<MemoryCache> cacheReference = new AtomicReference<>();
+        AtomicBoolean armed = new AtomicBoolean();
+        AtomicBoolean written = new AtomicBoolean();
+        AtomicInteger replaced = new AtomicInteger();
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setExecutor(Runnable::run);
+        options.setMaximumWeight(1L);
+        //提升的旧值计算权重时（已经从磁盘 claim，还没有加入 HASH 表）在另一个线程写入同一个键；新值的权重为 0，不会被淘汰到磁盘。
+        options.setWeigher((key, value) -> {
+            if ("fresh".equals(value.toString())) {
+                return 0;
+            }
+            if ("value-a".equals(value.toString()) && armed.get() && written.compareAndSet(false, true)) {
+                try {
+                    writer.submit(() -> cacheReference.get().set("a", new StringBuilder("fresh"), (Long) null)).get();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return 1;
+        });
+        options.setDiskSpillCapacity(1024L);
+        options.setDiskSpillSegmentSize(512);
+        options.setDiskSpillDirectory(directory);
+        options.setDiskSpillSerializer(STRING_BUILDER_SERIALIZER);
+        MemoryCache cache = new MemoryCache(options);
+        cacheReference.set(cache);
+        try {
+            MemoryCacheEntryOptions entryOptions = new MemoryCacheEntryOptions();
+            entryOptions.getPostEvictionCallbacks().add(new PostEvictionCallbackRegistration(
+                    (key, value, reason, state) -> {
+                        if (reason == EvictionReason.Replaced && "value-a".equals(value.toString())) {
+                            replaced.incrementAndGet();
+                        }
+                    }, null));
+            cache.set("a", new StringBuilder("value-a"), entryOptions);
+            cache.set("b", new StringBuilder("value-b"), (Long) null);
+            Assert.assertEquals(1, cache.getDiskSpillCount());
+
+            armed.set(true);
+            cache.get("a");
+            Assert.assertTrue(written.get());
+            Object value = cache.get("a");
+            Assert.assertNotNull("并发写入的值被提升的旧值覆盖后丢失。", value);
+            Assert.assertEquals("fresh", value.toString());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (replaced.get() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals("被新值代替的旧值应该按 Replaced 执行一次淘汰回调。", 1, replaced.get());
+        } finally {
+            cache.close();
+            writer.shutdownNow();
+            deleteRecursively(directory);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            List<Path> files = paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
 
     /**
      * Method: checkClosed()
@@ -278,6 +910,263 @@ public class MemoryCacheTest {
 
     }
 
+    /**
+     * Method: scanForExpiredItems(MemoryCache cache) with sliding expiration refreshed by get
+     */
+    @Test
+    public void testScanForExpiredItemsWithSlidingAccess() throws Exception {
+        Method method = MemoryCache.class.getDeclaredMethod("scanForExpiredItems", MemoryCache.class);
+        method.setAccessible(true);
+
+        //使用可控的时钟：时间轮最底层的桶跨度约 1.07 秒，桶结束前不会处理其中的缓存项。
+        AtomicLong nanos = new AtomicLong();
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setTicker(nanos::get);
+        options.setExecutor(Runnable::run);
+        try (MemoryCache cache = new MemoryCache(options)) {
+            cache.set("a", new Object(), 3000L);
+            cache.set("b", new Object(), 3000L);
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(2000));
+            Assert.assertNotNull("滑动过期缓存项意外过期。", cache.get("a"));
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(2200));
+            method.invoke(null, cache);
+
+            Assert.assertEquals("scanForExpiredItems 未正确处理滑动过期。", 1, cache.size());
+            Assert.assertNotNull("scanForExpiredItems 移除了被访问过的滑动过期缓存项。", cache.get("a"));
+        }
+    }
+
+    @Test
+    public void testSlidingExpirationWithRepeatedReads() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setTicker(nanos::get);
+        try (MemoryCache cache = new MemoryCache(options)) {
+            cache.set("sliding", new Object(), 64 * 1000L);
+            //每次读取都应该推迟过期时间，即使两次读取的间隔很短。
+            for (int i = 0; i < 100; i++) {
+                nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+                Assert.assertNotNull("滑动过期缓存项在读取期间意外失效。", cache.get("sliding"));
+            }
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(64 * 1000L - 1));
+            Assert.assertNotNull("滑动过期缓存项在距上次读取未满滑动过期时间时失效。", cache.get("sliding"));
+
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(64 * 1000L + 1));
+            Assert.assertNull("滑动过期缓存项在时钟到期后未失效。", cache.get("sliding"));
+        }
+    }
+
+    @Test
+    public void testReadBufferDrain() throws Exception {
+        Class<?> bufferType = Class.forName("com.labijie.caching.memory.ReadBuffer");
+        Constructor<?> constructor = bufferType.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        Method offer = bufferType.getDeclaredMethod("offer", CacheEntry.class);
+        offer.setAccessible(true);
+        Method drainTo = bufferType.getDeclaredMethod("drainTo", Consumer.class);
+        drainTo.setAccessible(true);
+        Field bufferSize = bufferType.getDeclaredField("BUFFER_SIZE");
+        bufferSize.setAccessible(true);
+        int size = bufferSize.getInt(null);
+
+        Object buffer = constructor.newInstance();
+        List<CacheEntry> entries = new ArrayList<>();
+        for (int i = 0; i < size * 3; i++) {
+            CacheEntry entry = new CacheEntry("k" + i, e -> {}, e -> {});
+            entry.close();
+            entries.add(entry);
+        }
+
+        //同一个线程写入同一个环形缓冲区，写满时要求排空，之后的记录被丢弃。
+        for (int i = 0; i < size - 1; i++) {
+            Assert.assertFalse((Boolean) offer.invoke(buffer, entries.get(i)));
+        }
+        Assert.assertTrue("缓冲区写满时应该要求排空。", (Boolean) offer.invoke(buffer, entries.get(size - 1)));
+        Assert.assertTrue("缓冲区已满时应该丢弃记录并要求排空。", (Boolean) offer.invoke(buffer, entries.get(size)));
+
+        List<CacheEntry> drained = new ArrayList<>();
+        drainTo.invoke(buffer, (Consumer<CacheEntry>) drained::add);
+        Assert.assertEquals(entries.subList(0, size), drained);
+
+        drained.clear();
+        drainTo.invoke(buffer, (Consumer<CacheEntry>) drained::add);
+        Assert.assertTrue("已经排空的缓冲区不应该重复处理记录。", drained.isEmpty());
+
+        //排空后环形缓冲区可以继续循环使用。
+        for (int i = size; i < size * 3; i++) {
+            offer.invoke(buffer, entries.get(i));
+            if (i % 5 == 0) {
+                drainTo.invoke(buffer, (Consumer<CacheEntry>) drained::add);
+            }
+        }
+        drainTo.invoke(buffer, (Consumer<CacheEntry>) drained::add);
+        Assert.assertEquals(entries.subList(size, size * 3), drained);
+    }
+
+    /**
+     * 过期时间超过第 4 层时间轮覆盖范围（约 3.3 天）的缓存项放在顶层，不会回绕到第 4 层被提前处理。
+     */
+    @Test
+    public void testTimerWheelLongDeadline() throws Exception {
+        Method scan = MemoryCache.class.getDeclaredMethod("scanForExpiredItems", MemoryCache.class);
+        scan.setAccessible(true);
+        AtomicLong nanos = new AtomicLong();
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setTicker(nanos::get);
+        options.setExecutor(Runnable::run);
+        try (MemoryCache cache = new MemoryCache(options)) {
+            MemoryCacheEntryOptions entryOptions = new MemoryCacheEntryOptions();
+            entryOptions.setAbsoluteExpirationRelativeToNow(TimeUnit.DAYS.toMillis(5));
+            cache.set("long", new Object(), entryOptions);
+            Assert.assertEquals("5 天后过期的缓存项应该放在时间轮的顶层。", 4, timerWheelLevelOf(cache, "long"));
+
+            nanos.set(TimeUnit.DAYS.toNanos(2));
+            scan.invoke(null, cache);
+            Assert.assertEquals(1, cache.size());
+            Assert.assertEquals("未到顶层桶的边界时不应该重新调度缓存项。", 4, timerWheelLevelOf(cache, "long"));
+
+            nanos.set(TimeUnit.DAYS.toNanos(4));
+            scan.invoke(null, cache);
+            Assert.assertEquals(1, cache.size());
+            Assert.assertEquals(3, timerWheelLevelOf(cache, "long"));
+
+            nanos.set(TimeUnit.DAYS.toNanos(5) - TimeUnit.SECONDS.toNanos(2));
+            scan.invoke(null, cache);
+            Assert.assertEquals(1, cache.size());
+
+            nanos.set(TimeUnit.DAYS.toNanos(5) + TimeUnit.SECONDS.toNanos(2));
+            scan.invoke(null, cache);
+            Assert.assertEquals("缓存项到期后应该被时间轮移除。", 0, cache.size());
+        }
+    }
+
+    //查找缓存项所在的时间轮层级，不在时间轮中时返回 -1。
+    private static int timerWheelLevelOf(MemoryCache cache, Object key) throws Exception {
+        Field wheelField = MemoryCache.class.getDeclaredField("timerWheel");
+        wheelField.setAccessible(true);
+        Object timerWheel = wheelField.get(cache);
+        Field bucketsField = timerWheel.getClass().getDeclaredField("wheel");
+        bucketsField.setAccessible(true);
+        Field nextField = CacheEntry.class.getDeclaredField("wheelNext");
+        nextField.setAccessible(true);
+        CacheEntry[][] wheel = (CacheEntry[][]) bucketsField.get(timerWheel);
+        for (int level = 0; level < wheel.length; level++) {
+            for (CacheEntry sentinel : wheel[level]) {
+                for (Object node = nextField.get(sentinel); node != sentinel; node = nextField.get(node)) {
+                    if (key.equals(((CacheEntry) node).getKey())) {
+                        return level;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Method: MemoryCacheOptions.setTicker(Ticker ticker)
+     */
+    @Test
+    public void testCustomTicker() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setTicker(nanos::get);
+        MemoryCache cache = new MemoryCache(options);
+        try {
+            cache.set("sliding", new Object(), 1000L);
+            MemoryCacheEntryOptions entryOptions = new MemoryCacheEntryOptions();
+            entryOptions.setAbsoluteExpirationRelativeToNow(1500L);
+            cache.set("absolute", new Object(), entryOptions);
+
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(800));
+            Assert.assertNotNull("滑动过期缓存项在时钟未到期时失效。", cache.get("sliding"));
+            Assert.assertNotNull("绝对过期缓存项在时钟未到期时失效。", cache.get("absolute"));
+
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(800));
+            Assert.assertNotNull("访问后的滑动过期缓存项意外失效。", cache.get("sliding"));
+            Assert.assertNull("绝对过期缓存项在时钟到期后未失效。", cache.get("absolute"));
+
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+            Assert.assertNull("滑动过期缓存项在时钟到期后未失效。", cache.get("sliding"));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testGetOrCreateRefreshAfterWrite() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        AtomicInteger loads = new AtomicInteger();
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setTicker(nanos::get);
+        //后台刷新在调用线程上执行，便于断言。
+        options.setExecutor(Runnable::run);
+        MemoryCache cache = new MemoryCache(options);
+        try {
+            Function<CacheEntry, String> factory = entry -> {
+                entry.setAbsoluteExpirationRelativeToNowMS(10 * 1000L);
+                return "v" + loads.incrementAndGet();
+            };
+            Assert.assertEquals("v1", cache.getOrCreate("a", factory, 1000L));
+
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+            Assert.assertEquals("v1", cache.getOrCreate("a", factory, 1000L));
+            Assert.assertEquals("未到刷新时间时不应该重新加载。", 1, loads.get());
+
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+            Assert.assertEquals("刷新时应该先返回当前的值。", "v1", cache.getOrCreate("a", factory, 1000L));
+            Assert.assertEquals(2, loads.get());
+            Assert.assertEquals("后台刷新的结果未替换缓存项。", "v2", cache.get("a"));
+        } finally {
+            cache.close();
+        }
+    }
+
+    /**
+     * 默认的刷新线程池满时放弃刷新，getOrCreate 不能在读取线程上同步执行工厂方法。
+     */
+    @Test
+    public void testRefreshAfterWriteNeverRunsOnReaderWhenSaturated() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        AtomicInteger inlineRefreshes = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Thread reader = Thread.currentThread();
+        MemoryCacheOptions options = new MemoryCacheOptions();
+        options.setTicker(nanos::get);
+        MemoryCache cache = new MemoryCache(options);
+        try {
+            AtomicBoolean refreshing = new AtomicBoolean();
+            Function<CacheEntry, String> factory = entry -> {
+                if (refreshing.get()) {
+                    if (Thread.currentThread() == reader) {
+                        inlineRefreshes.incrementAndGet();
+                    } else {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return "refreshed";
+                }
+                return "initial";
+            };
+            int keys = 1200;
+            for (int i = 0; i < keys; i++) {
+                cache.getOrCreate("k" + i, factory, 1000L);
+            }
+
+            refreshing.set(true);
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+            for (int i = 0; i < keys; i++) {
+                Assert.assertEquals("initial", cache.getOrCreate("k" + i, factory, 1000L));
+            }
+            Assert.assertEquals("刷新线程池满时刷新在读取线程上同步执行。", 0, inlineRefreshes.get());
+        } finally {
+            release.countDown();
+            cache.close();
+        }
+    }
+
     private void add10ItemToCacheManager() {
         memoryCache.set("1", new Object(), 1000L);
         memoryCache.set("2", new Object(), 2000L);
@@ -8,6 +8,7 @@ class CacheHashData {
     public String data;
     private boolean compressed;
     private String serializer;
+    private Long writeTime;
 
     public CacheHashData(String type, String data) {
         this(type, data, null, false);
@@ -51,4 +52,16 @@ class CacheHashData {
     public void setSerializer(String serializer) {
         this.serializer = serializer;
     }
+
+    /**
+     * 获取缓存写入时间（Unix 毫秒），旧版本写入的缓存没有该字段时为空。
+     * @return
+     */
+    public Long getWriteTime() {
+        return writeTime;
+    }
+
+    public void setWriteTime(Long writeTime) {
+        this.writeTime = writeTime;
+    }
 }
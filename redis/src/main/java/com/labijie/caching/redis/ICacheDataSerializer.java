@@ -1,4 +1,3 @@
-
 package com.labijie.caching.redis;
 
 /**
@@ -7,7 +6,5 @@ package com.labijie.caching.redis;
  * @author Anders Xiao
  * @date 2018-11-21
  */
-public interface ICacheDataSerializer {
-    <T> T deserializeData(Class<T> type, String data, boolean gzipCompress);
-    String serializeData(Object data, boolean gzipCompress);
+public interface ICacheDataSerializer extends com.labijie.caching.ICacheDataSerializer {
 }
@@ -1,24 +1,36 @@
 package com.labijie.caching.redis;
 
+import com.labijie.caching.CacheManagerMXBeanAdapter;
+import com.labijie.caching.CacheStats;
 import com.labijie.caching.Guard;
 import com.labijie.caching.ICacheManager;
+import com.labijie.caching.JmxUtil;
+import com.labijie.caching.StatsCounter;
 import com.labijie.caching.StringUtil;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisCommands;
 import redis.clients.jedis.JedisPool;
 
+import javax.management.ObjectName;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Created by ax03 on 2017/7/11.
  */
-public abstract class RedisCacheManager implements ICacheManager {
+public abstract class RedisCacheManager implements ICacheManager, AutoCloseable {
 
     private static Logger log = null;
 
@@ -28,11 +40,62 @@ public abstract class RedisCacheManager implements ICacheManager {
     private Set<HostAndPort> hostAndPort;
 
     private RedisCacheOptions options;
+    private volatile RedisPipelineBatcher pipelineBatcher;
+    private volatile Executor refreshExecutor;
+    //由管理器自己创建的线程池（未配置 asyncExecutor 时），close 时关闭。
+    private ThreadPoolExecutor ownedAsyncExecutor;
+    private ThreadPoolExecutor ownedRefreshExecutor;
+    private final StatsCounter statsCounter;
+    private final ObjectName objectName;
 
     public RedisCacheManager(RedisCacheOptions redisOptions) {
         Guard.argumentNotNull(redisOptions, "redisOptions");
         Guard.argumentNotNullOrEmptyString(redisOptions.getServer(), "redisOptions.server");
         this.options = redisOptions;
+        this.statsCounter = StatsCounter.create(redisOptions.isRecordStats());
+        String name = StringUtil.isNullOrWhiteSpace(redisOptions.getName()) ? JmxUtil.nextName("RedisCacheManager") : redisOptions.getName().trim();
+        this.objectName = redisOptions.isJmxEnabled() ? JmxUtil.register("RedisCacheManager", name, new CacheManagerMXBeanAdapter(this)) : null;
+    }
+
+    /**
+     * 注销 JMX MBean，关闭管理器自己创建的线程池和连接池。
+     * 线程池中已经排队的命令仍会执行，之后提交的异步命令以 RejectedExecutionException 失败。
+     */
+    @Override
+    public void close() {
+        JmxUtil.unregister(this.objectName);
+        synchronized (this) {
+            if (this.ownedAsyncExecutor != null) {
+                this.ownedAsyncExecutor.shutdown();
+                this.ownedAsyncExecutor = null;
+            }
+            if (this.ownedRefreshExecutor != null) {
+                this.ownedRefreshExecutor.shutdown();
+                this.ownedRefreshExecutor = null;
+            }
+            if (this.pool != null) {
+                this.pool.close();
+                this.pool = null;
+            }
+        }
+    }
+
+    /**
+     * 获取统计计数器，未启用统计（RedisCacheOptions.setRecordStats）时为空操作的计数器。
+     * @return
+     */
+    protected StatsCounter getStatsCounter() {
+        return this.statsCounter;
+    }
+
+    @Override
+    public CacheStats getStats() {
+        return this.statsCounter.snapshot();
+    }
+
+    @Override
+    public Map<String, CacheStats> getRegionStats() {
+        return this.statsCounter.regionSnapshots();
     }
 
 
@@ -103,6 +166,80 @@ public abstract class RedisCacheManager implements ICacheManager {
         return pool;
     }
 
+    /**
+     * 获取异步 API 使用的 pipeline 批处理器。
+     * @return
+     */
+    RedisPipelineBatcher getPipelineBatcher() {
+        if (pipelineBatcher == null) {
+            synchronized (this) {
+                if (pipelineBatcher == null) {
+                    Executor executor = this.getOptions().getAsyncExecutor();
+                    if (executor == null) {
+                        this.ownedAsyncExecutor = createDefaultAsyncExecutor();
+                        executor = this.ownedAsyncExecutor;
+                    }
+                    Executor completionExecutor = this.getOptions().getCompletionExecutor();
+                    pipelineBatcher = new RedisPipelineBatcher(
+                            () -> this.createCommand(Jedis.class),
+                            executor,
+                            completionExecutor == null ? ForkJoinPool.commonPool() : completionExecutor,
+                            this.getOptions().getPipelineBatchSize());
+                }
+            }
+        }
+        return pipelineBatcher;
+    }
+
+    /**
+     * 获取执行后台刷新（refreshAfterWrite）的线程池，未配置 asyncExecutor 时使用一个有界线程池，队列满时放弃本次刷新。
+     * @return
+     */
+    protected Executor getRefreshExecutor() {
+        if (refreshExecutor == null) {
+            synchronized (this) {
+                if (refreshExecutor == null) {
+                    Executor executor = this.getOptions().getAsyncExecutor();
+                    if (executor == null) {
+                        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                                1,
+                                4,
+                                60L,
+                                TimeUnit.SECONDS,
+                                new ArrayBlockingQueue<>(256),
+                                r -> {
+                                    Thread thread = new Thread(r, "redis-cache-refresh");
+                                    thread.setDaemon(true);
+                                    return thread;
+                                });
+                        pool.allowCoreThreadTimeOut(true);
+                        this.ownedRefreshExecutor = pool;
+                        executor = pool;
+                    }
+                    refreshExecutor = executor;
+                }
+            }
+        }
+        return refreshExecutor;
+    }
+
+    //默认的异步 I/O 线程池：单个守护线程，批处理任务同一时间只有一个，队列有上限。
+    private static ThreadPoolExecutor createDefaultAsyncExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                1,
+                1,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(16),
+                r -> {
+                    Thread thread = new Thread(r, "redis-cache-io");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     protected <T extends JedisCommands> T createCommand(Class<T> c){
         JedisPool pool = this.getConnectionPool();
         switch (this.options.getMode()){
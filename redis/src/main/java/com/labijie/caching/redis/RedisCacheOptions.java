@@ -4,6 +4,8 @@ import com.labijie.caching.StringUtil;
 import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.Protocol;
 
+import java.util.concurrent.Executor;
+
 /**
  * Created by ax03 on 2017/7/11.
  */
@@ -17,6 +19,12 @@ public class RedisCacheOptions {
     private String serializer;
     private String password;
     private Integer database;
+    private Executor asyncExecutor;
+    private Executor completionExecutor;
+    private int pipelineBatchSize = 64;
+    private boolean recordStats;
+    private String name;
+    private boolean jmxEnabled;
 
     public String getSerializer() {
         return StringUtil.isNullOrWhiteSpace(serializer) ? "json" : serializer.trim();
@@ -85,10 +93,110 @@ public class RedisCacheOptions {
     }
 
     public Integer getDatabase() {
-        return Math.max(Protocol.DEFAULT_DATABASE, this.database);
+        return this.database == null ? Protocol.DEFAULT_DATABASE : Math.max(Protocol.DEFAULT_DATABASE, this.database);
     }
 
     public void setDatabase(Integer database) {
         this.database =  database;
     }
+
+    /**
+     * 获取异步 API 执行 Redis 命令使用的线程池。
+     * @return
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * 设置异步 API 执行 Redis 命令使用的线程池，为空时使用一个有界的单线程 I/O 线程池。
+     * @param asyncExecutor
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * 获取异步 API 转换命令结果和完成 CompletableFuture 使用的线程池。
+     * @return
+     */
+    public Executor getCompletionExecutor() {
+        return completionExecutor;
+    }
+
+    /**
+     * 设置异步 API 转换命令结果（反序列化等）和完成 CompletableFuture 使用的线程池，为空时使用 ForkJoinPool.commonPool()。
+     * 非 *Async 的后续操作也在这个线程池上执行，不会占用执行 Redis 命令的 I/O 线程。
+     * @param completionExecutor
+     */
+    public void setCompletionExecutor(Executor completionExecutor) {
+        this.completionExecutor = completionExecutor;
+    }
+
+    /**
+     * 获取异步 API 每个 pipeline 最多合并的命令数量。
+     * @return
+     */
+    public int getPipelineBatchSize() {
+        return pipelineBatchSize;
+    }
+
+    /**
+     * 设置异步 API 每个 pipeline 最多合并的命令数量。
+     * @param pipelineBatchSize
+     */
+    public void setPipelineBatchSize(int pipelineBatchSize) {
+        if (pipelineBatchSize <= 0) {
+            throw new IllegalArgumentException("RedisCacheOptions.setPipelineBatchSize 参数 pipelineBatchSize 必须大于 0。");
+        }
+        this.pipelineBatchSize = pipelineBatchSize;
+    }
+
+    /**
+     * 是否记录命中和加载统计。
+     * @return
+     */
+    public boolean isRecordStats() {
+        return recordStats;
+    }
+
+    /**
+     * 设置是否记录命中和加载统计（默认不记录）。
+     * @param recordStats
+     */
+    public void setRecordStats(boolean recordStats) {
+        this.recordStats = recordStats;
+    }
+
+    /**
+     * 获取缓存名称。
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 设置缓存名称（用作 JMX ObjectName 中的 name），未设置时自动生成（RedisCacheManager-序号）。
+     * @param name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 是否注册 JMX MBean。
+     * @return
+     */
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    /**
+     * 设置是否在创建 RedisCacheManager 时注册 JMX MBean（CacheManagerMXBean），调用 close 时注销，默认不注册。
+     * @param jmxEnabled
+     */
+    public void setJmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
 }
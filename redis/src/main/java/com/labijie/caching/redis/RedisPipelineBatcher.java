@@ -0,0 +1,159 @@
+package com.labijie.caching.redis;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 把并发提交的 Redis 命令合并到 pipeline 中批量执行，用于实现异步 API。
+ * 同一时间最多只有一个批处理任务在 I/O 线程池中运行，它持续从队列中取出命令（每批最多 batchSize 条），
+ * 使用一个连接发送整批命令后读取每条命令的结果，结果转换和 CompletableFuture 的完成提交到完成线程池，
+ * I/O 线程不执行反序列化和调用方的后续操作（后续操作阻塞或者等待其他异步缓存操作不会阻塞 I/O 线程）。
+ */
+final class RedisPipelineBatcher {
+    private static final int IDLE = 0;
+    private static final int REQUIRED = 1;
+    private static final int PROCESSING = 2;
+
+    private final Supplier<Jedis> connectionFactory;
+    private final Executor executor;
+    private final Executor completionExecutor;
+    private final int batchSize;
+    private final Queue<Operation<?, ?>> operations;
+    private final AtomicInteger drainStatus;
+    private final Runnable drainTask;
+
+    RedisPipelineBatcher(Supplier<Jedis> connectionFactory, Executor executor, Executor completionExecutor, int batchSize) {
+        this.connectionFactory = connectionFactory;
+        this.executor = executor;
+        this.completionExecutor = completionExecutor;
+        this.batchSize = Math.max(1, batchSize);
+        this.operations = new ConcurrentLinkedQueue<>();
+        this.drainStatus = new AtomicInteger(IDLE);
+        this.drainTask = this::drain;
+    }
+
+    /**
+     * 提交一条命令。
+     * @param command 在 pipeline 上执行命令并返回结果占位。
+     * @param mapper 把命令结果转换为最终结果（在完成线程池上执行）。
+     * @param <R> 命令结果的类型。
+     * @param <T> 最终结果的类型。
+     * @return
+     */
+    <R, T> CompletableFuture<T> submit(Function<Pipeline, Response<R>> command, Function<R, T> mapper) {
+        Operation<R, T> operation = new Operation<>(command, mapper);
+        this.operations.offer(operation);
+        this.scheduleDrain();
+        return operation.future;
+    }
+
+    private void scheduleDrain() {
+        if (this.drainStatus.getAndSet(REQUIRED) == IDLE) {
+            try {
+                this.executor.execute(this.drainTask);
+            } catch (RejectedExecutionException e) {
+                this.drainStatus.set(IDLE);
+                //线程池已满或已关闭，队列中的命令全部以失败结束，避免调用方永久等待。
+                Operation<?, ?> operation;
+                while ((operation = this.operations.poll()) != null) {
+                    operation.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        do {
+            this.drainStatus.set(PROCESSING);
+            List<Operation<?, ?>> batch = new ArrayList<>(Math.min(this.batchSize, 16));
+            while (true) {
+                batch.clear();
+                Operation<?, ?> operation;
+                while (batch.size() < this.batchSize && (operation = this.operations.poll()) != null) {
+                    batch.add(operation);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                this.execute(batch);
+            }
+        } while (!this.drainStatus.compareAndSet(PROCESSING, IDLE));
+    }
+
+    private void execute(List<Operation<?, ?>> batch) {
+        try (Jedis jedis = this.connectionFactory.get()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (Operation<?, ?> operation : batch) {
+                operation.enqueue(pipeline);
+            }
+            pipeline.sync();
+        } catch (RuntimeException e) {
+            for (Operation<?, ?> operation : batch) {
+                operation.fail(this.completionExecutor, e);
+            }
+            return;
+        }
+        for (Operation<?, ?> operation : batch) {
+            operation.complete(this.completionExecutor);
+        }
+    }
+
+    private static final class Operation<R, T> {
+        final Function<Pipeline, Response<R>> command;
+        final Function<R, T> mapper;
+        final CompletableFuture<T> future;
+        Response<R> response;
+
+        Operation(Function<Pipeline, Response<R>> command, Function<R, T> mapper) {
+            this.command = command;
+            this.mapper = mapper;
+            this.future = new CompletableFuture<>();
+        }
+
+        void enqueue(Pipeline pipeline) {
+            this.response = this.command.apply(pipeline);
+        }
+
+        //I/O 线程上只读取命令结果。
+        void complete(Executor completionExecutor) {
+            R result;
+            try {
+                result = this.response.get();
+            } catch (RuntimeException e) {
+                this.fail(completionExecutor, e);
+                return;
+            }
+            try {
+                completionExecutor.execute(() -> {
+                    try {
+                        this.future.complete(this.mapper.apply(result));
+                    } catch (RuntimeException e) {
+                        this.future.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                this.future.completeExceptionally(e);
+            }
+        }
+
+        void fail(Executor completionExecutor, RuntimeException error) {
+            try {
+                completionExecutor.execute(() -> this.future.completeExceptionally(error));
+            } catch (RejectedExecutionException e) {
+                this.future.completeExceptionally(error);
+            }
+        }
+    }
+}
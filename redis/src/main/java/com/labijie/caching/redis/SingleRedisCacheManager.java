@@ -1,12 +1,33 @@
 package com.labijie.caching.redis;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.labijie.caching.CacheLoadUtil;
+import com.labijie.caching.Guard;
+import com.labijie.caching.ICacheManager;
+import com.labijie.caching.SingleFlight;
 import com.labijie.caching.StringUtil;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.SafeEncoder;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -24,13 +45,17 @@ public class SingleRedisCacheManager extends RedisCacheManager {
     // ARGV[4] = data - byte[]
     // ARGV[5] = type - type string
     // ARGV[6] = compress - bool wether use gzip
+    // ARGV[7] = ser - serializer name
+    // ARGV[8] = write time - unix time in milliseconds (used by refresh after write)
     // this order should not change LUA script depends on it
     private final static String SET_SCRIPT = "local result = 1 " + NEW_LINE +
-            "redis.call('HMSET', KEYS[1], 'absexp', ARGV[1], 'sldexp', ARGV[2], 'data', ARGV[4], 'type', ARGV[5], 'compress', ARGV[6], 'ser', ARGV[7]) " + NEW_LINE +
+            "redis.call('HMSET', KEYS[1], 'absexp', ARGV[1], 'sldexp', ARGV[2], 'data', ARGV[4], 'type', ARGV[5], 'compress', ARGV[6], 'ser', ARGV[7], 'wrt', ARGV[8]) " + NEW_LINE +
             "if ARGV[3] ~= '-1' then" + NEW_LINE +
             "result = redis.call('EXPIRE', KEYS[1], ARGV[3]) " + NEW_LINE +
             " end " + NEW_LINE +
             "return result";
+    //pipeline 中使用二进制的 eval（返回 Response<Object>），字符串版本的 eval 会按字符串解析脚本返回的整数。
+    private final static byte[] SET_SCRIPT_BYTES = SafeEncoder.encode(SET_SCRIPT);
 
     // ARGV[1] : key pattern
     private final static String QUERY_KEYS_SCRIPT = "local cursor = 0 " + NEW_LINE +
@@ -51,10 +76,18 @@ public class SingleRedisCacheManager extends RedisCacheManager {
     private final static String TYPE_KEY = "type";
     private final static String COMPRESS_KEY = "compress";
     private final static String SERIALIZER_KEY = "ser";
+    private final static String WRITE_TIME_KEY = "wrt";
     private final static long NOT_PRESENT = -1;
+    private final static String[] ALL_FIELDS = {
+            ABSOLUTE_EXPIRATIONKEY, SLIDING_EXPIRATION_KEY, DATA_KEY, TYPE_KEY, COMPRESS_KEY, SERIALIZER_KEY, WRITE_TIME_KEY
+    };
 
     private String defaultRegion = null;
     private ObjectMapper jacksonMapper = null;
+    //getOrSet 的并发加载去重（仅在当前 JVM 内有效）。
+    private final SingleFlight<String> loads = new SingleFlight<>();
+    //正在后台刷新的缓存键。
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
 
     public SingleRedisCacheManager(RedisCacheOptions redisOptions) {
         super(redisOptions);
@@ -71,6 +104,20 @@ public class SingleRedisCacheManager extends RedisCacheManager {
         return "H" +REGION_SPLITER_CHARS + r + REGION_SPLITER_CHARS;
     }
 
+    //统计使用的区域名称。
+    private String getRegionName(String region) {
+        return StringUtil.isNullOrWhiteSpace(region) ? this.defaultRegion : region.trim();
+    }
+
+    private void recordAccess(String region, int hits, int misses) {
+        if (hits > 0) {
+            this.getStatsCounter().recordHits(this.getRegionName(region), hits);
+        }
+        if (misses > 0) {
+            this.getStatsCounter().recordMisses(this.getRegionName(region), misses);
+        }
+    }
+
     private void validateKey(String key) {
         if (StringUtil.isNullOrWhiteSpace(key)) {
             throw new IllegalArgumentException("key cant not be null or empty string");
@@ -79,9 +126,13 @@ public class SingleRedisCacheManager extends RedisCacheManager {
 
     private Optional<CacheHashData> getAndRefresh(Jedis jedis, String fullKey, boolean getData) {
         List<String> hashResult = getData ?
-                jedis.hmget(fullKey, ABSOLUTE_EXPIRATIONKEY, SLIDING_EXPIRATION_KEY,  DATA_KEY, TYPE_KEY, COMPRESS_KEY, SERIALIZER_KEY) :
+                jedis.hmget(fullKey, ALL_FIELDS) :
                 jedis.hmget(fullKey, ABSOLUTE_EXPIRATIONKEY, SLIDING_EXPIRATION_KEY);
+        return this.refreshHashResult(jedis, fullKey, hashResult);
+    }
 
+    //根据 HMGET 的结果续期滑动过期时间并转换为缓存数据。
+    private Optional<CacheHashData> refreshHashResult(Jedis jedis, String fullKey, List<String> hashResult) {
         String[] arrays = new String[hashResult.size()];
         hashResult.toArray(arrays);
 
@@ -105,7 +156,11 @@ public class SingleRedisCacheManager extends RedisCacheManager {
             Boolean compressed = Boolean.parseBoolean(arrays[4]);
             String serializer = arrays[5];
 
-            return Optional.ofNullable(new CacheHashData(type, data, serializer, compressed));
+            CacheHashData cacheHashData = new CacheHashData(type, data, serializer, compressed);
+            if (arrays.length >= 7) {
+                cacheHashData.setWriteTime(StringUtil.tryParseLong(arrays[6]).orElse(null));
+            }
+            return Optional.of(cacheHashData);
         }
         return Optional.empty();
     }
@@ -122,17 +177,21 @@ public class SingleRedisCacheManager extends RedisCacheManager {
         return new Optional[]{absoluteExpirationTicks, slidingExpiration};
     }
 
-    private void refreshExpire(String fullKey, Optional<Long> absExpr, Optional<Long> sldExpr, Jedis client) {
-        // Note Refresh has no effect if there is just an absolute expiration (or neither).
-        Long expr = null;
-        if (sldExpr.isPresent()) {
-            if (absExpr.isPresent()) {
-                Long relExpr = absExpr.get() - System.currentTimeMillis();
-                expr = (relExpr <= sldExpr.get() ? relExpr : sldExpr.get());
-            } else {
-                expr = sldExpr.get();
-            }
+    // Note Refresh has no effect if there is just an absolute expiration (or neither).
+    private Long getRefreshExpiration(Optional<Long> absExpr, Optional<Long> sldExpr) {
+        if (!sldExpr.isPresent()) {
+            return null;
+        }
+        if (absExpr.isPresent()) {
+            Long relExpr = absExpr.get() - System.currentTimeMillis();
+            return (relExpr <= sldExpr.get() ? relExpr : sldExpr.get());
+        }
+        return sldExpr.get();
+    }
 
+    private void refreshExpire(String fullKey, Optional<Long> absExpr, Optional<Long> sldExpr, Jedis client) {
+        Long expr = this.getRefreshExpiration(absExpr, sldExpr);
+        if (expr != null) {
             if (client == null) {
                 try (Jedis jedis = this.createCommand(Jedis.class)) {
                     jedis.expire(fullKey, (int) (expr / 1000));
@@ -151,9 +210,21 @@ public class SingleRedisCacheManager extends RedisCacheManager {
             this.remove(key, region);
             return;
         }
+        String[] values = this.createSetArguments(key, region, data, timeoutMills, useSlidingExpiration);
+
+        try (Jedis jedis = this.createCommand(Jedis.class)) {
+            String script = jedis.scriptLoad(SET_SCRIPT);
+            Object result = jedis.evalsha(script,  1, values);
+            if (result == null) {
+                this.getLogger().error(String.format("添加缓存时 redis 缓存返回了错误的结果 (  key: %s, region: %s )。", key, region));
+            }
+        }
+    }
+
+    private String[] createSetArguments(String key, String region, Object data, Long timeoutMills, boolean useSlidingExpiration) {
         long creationTime = System.currentTimeMillis();
 
-        String[] values = new String[]
+        return new String[]
                 {
                         this.GetFullKey(region, key),
                         String.valueOf((!useSlidingExpiration && timeoutMills != null) ? creationTime + timeoutMills : NOT_PRESENT),
@@ -162,16 +233,9 @@ public class SingleRedisCacheManager extends RedisCacheManager {
                         this.serializeData(this.getOptions().getSerializer(), data, this.getOptions().isUseGzip()),
                         data.getClass().getName(),
                         String.valueOf(this.getOptions().isUseGzip()),
-                        this.getOptions().getSerializer()
+                        this.getOptions().getSerializer(),
+                        String.valueOf(creationTime)
                 };
-
-        try (Jedis jedis = this.createCommand(Jedis.class)) {
-            String script = jedis.scriptLoad(SET_SCRIPT);
-            Object result = jedis.evalsha(script,  1, values);
-            if (result == null) {
-                this.getLogger().error(String.format("添加缓存时 redis 缓存返回了错误的结果 (  key: %s, region: %s )。", key, region));
-            }
-        }
     }
 
     private <T> T deserializeData(String serializerName, Class<T> type, String data, boolean gzipCompress) {
@@ -188,40 +252,421 @@ public class SingleRedisCacheManager extends RedisCacheManager {
 
     @Override
     public Object get(String key, String region) {
+        return this.getCore(key, region, true);
+    }
+
+    private Object getCore(String key, String region, boolean recordStats) {
         this.validateKey(key);
         String fullKey = this.GetFullKey(region, key);
+        Object value = null;
         try (Jedis jedis = super.createCommand(Jedis.class)) {
             Optional<CacheHashData> data = this.getAndRefresh(jedis, fullKey, true);
             if (data.isPresent()) {
+                value = this.readCacheData(data.get(), key, region, () -> this.remove(key, region));
+            }
+        } catch (JedisException e) {
+            this.getLogger().error(String.format("从 redis 中获取数据失败 ( key: %s, region: %s )。", key, region), e);
+        }
+        if (recordStats) {
+            this.recordAccess(region, value != null ? 1 : 0, value != null ? 0 : 1);
+        }
+        return value;
+    }
+
+    /**
+     * 获取缓存值和 Redis 中剩余的生存时间，HMGET 和 PTTL 通过一次 pipeline 发送，供二级缓存限制本地副本的过期时间。
+     * @return 缓存不存在时返回 null。
+     */
+    TimedValue getWithTimeToLive(String key, String region) {
+        this.validateKey(key);
+        String fullKey = this.GetFullKey(region, key);
+        try (Jedis jedis = super.createCommand(Jedis.class)) {
+            Pipeline pipeline = jedis.pipelined();
+            Response<List<String>> hashResult = pipeline.hmget(fullKey, ALL_FIELDS);
+            Response<Long> ttl = pipeline.pttl(fullKey);
+            pipeline.sync();
+            Optional<CacheHashData> data = this.refreshHashResult(jedis, fullKey, hashResult.get());
+            if (data.isPresent()) {
+                Object value = this.readCacheData(data.get(), key, region, () -> this.remove(key, region));
+                if (value != null) {
+                    this.recordAccess(region, 1, 0);
+                    return new TimedValue(value, ttl.get());
+                }
+            }
+        } catch (JedisException e) {
+            this.getLogger().error(String.format("从 redis 中获取数据失败 ( key: %s, region: %s )。", key, region), e);
+        }
+        this.recordAccess(region, 0, 1);
+        return null;
+    }
+
+    private Object readCacheData(CacheHashData cacheHashData, String key, String region, Runnable invalidate) {
+        //考虑程序变更后类型可能已经不存在或更名。
+        Class clazz = null;
+        try {
+            clazz = Class.forName(cacheHashData.getType());
+        } catch (ClassNotFoundException cne) {
+            invalidate.run();
+            this.getLogger().warn(String.format("缓存数据中的类型 %s 可能已经变更，导致缓存失效（key: %s, region: %s）。",
+                    cacheHashData.getType(), key, region), cne);
+            return null;
+        }
+        //考虑数据结构更新后缓存反序列化的问题。
+        try {
+            return this.deserializeData(
+                    cacheHashData.getSerializer(),
+                    clazz,
+                    cacheHashData.getData(),
+                    cacheHashData.isCompressed());
+        } catch (RuntimeException ex) {
+            invalidate.run();
+            return null;
+        }
+    }
+
+    /**
+     * 异步获取缓存，命令通过 pipeline 批量发送到 Redis，不阻塞调用线程。
+     */
+    @Override
+    public CompletableFuture<Object> getAsync(String key, String region) {
+        this.validateKey(key);
+        String fullKey = this.GetFullKey(region, key);
+        RedisPipelineBatcher batcher = this.getPipelineBatcher();
+        return batcher.<List<String>, Object>submit(p -> p.hmget(fullKey, ALL_FIELDS), hashResult -> {
+            if (hashResult == null || hashResult.stream().allMatch(Objects::isNull)) {
+                this.recordAccess(region, 0, 1);
+                return null;
+            }
+            String[] arrays = new String[hashResult.size()];
+            hashResult.toArray(arrays);
+
+            Optional<Long>[] values = MapMetadata(arrays);
+            Long expr = this.getRefreshExpiration(values[0], values[1]);
+            if (expr != null) {
+                int seconds = (int) (expr / 1000);
+                batcher.submit(p -> p.expire(fullKey, seconds), r -> r);
+            }
+
+            CacheHashData data = toCacheHashData(arrays);
+            Object value = data == null ? null : this.readCacheData(data, key, region, () -> this.removeAsync(key, region));
+            this.recordAccess(region, value != null ? 1 : 0, value != null ? 0 : 1);
+            return value;
+        }).exceptionally(ex -> this.handleAsyncFailure(ex, null,
+                String.format("从 redis 中获取数据失败 ( key: %s, region: %s )。", key, region)));
+    }
+
+    //把 HMGET ALL_FIELDS 的结果转换为缓存数据，数据不完整时返回 null。
+    private static CacheHashData toCacheHashData(String[] arrays) {
+        if (arrays.length >= 6 &&
+                !StringUtil.isNullOrWhiteSpace(arrays[2]) &&
+                !StringUtil.isNullOrWhiteSpace(arrays[3]) &&
+                !StringUtil.isNullOrWhiteSpace(arrays[4])) {
+            CacheHashData data = new CacheHashData(arrays[3], arrays[2], arrays[5], Boolean.parseBoolean(arrays[4]));
+            if (arrays.length >= 7) {
+                data.setWriteTime(StringUtil.tryParseLong(arrays[6]).orElse(null));
+            }
+            return data;
+        }
+        return null;
+    }
+
+    /**
+     * 批量获取缓存，使用一个连接通过 pipeline 发送所有的 HMGET 命令，滑动过期的续期和失效数据的删除也合并为一次 pipeline。
+     */
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys, String region) {
+        return this.getAllCore(keys, region, false, true, (value, ttl) -> value);
+    }
 
-                CacheHashData cacheHashData = data.get();
-                //考虑程序变更后类型可能已经不存在或更名。
-                Class clazz = null;
-                try {
-                    clazz = Class.forName(cacheHashData.getType());
-                } catch (ClassNotFoundException cne) {
-                    this.remove(key, region);
-                    this.getLogger().warn(String.format("缓存数据中的类型 %s 可能已经变更，导致缓存失效（key: %s, region: %s）。",
-                            data.get().getType(), key, region), cne);
-                    return null;
+    /**
+     * 批量获取缓存值和 Redis 中剩余的生存时间（PTTL 和 HMGET 在同一次 pipeline 中发送）。
+     */
+    Map<String, TimedValue> getAllWithTimeToLive(Collection<String> keys, String region) {
+        return this.getAllCore(keys, region, true, true, TimedValue::new);
+    }
+
+    private <V> Map<String, V> getAllCore(Collection<String> keys, String region, boolean withTimeToLive, boolean recordStats, BiFunction<Object, Long, V> mapper) {
+        Guard.argumentNotNull(keys, "keys");
+        Map<String, V> result = new HashMap<>(Math.max(16, keys.size() * 2));
+        if (keys.isEmpty()) {
+            return result;
+        }
+        List<String> keyList = new ArrayList<>(keys.size());
+        List<String> fullKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            this.validateKey(key);
+            keyList.add(key);
+            fullKeys.add(this.GetFullKey(region, key));
+        }
+        try (Jedis jedis = super.createCommand(Jedis.class)) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<List<String>>> responses = new ArrayList<>(fullKeys.size());
+            List<Response<Long>> ttls = withTimeToLive ? new ArrayList<>(fullKeys.size()) : null;
+            for (String fullKey : fullKeys) {
+                responses.add(pipeline.hmget(fullKey, ALL_FIELDS));
+                if (withTimeToLive) {
+                    ttls.add(pipeline.pttl(fullKey));
                 }
-                //考虑数据结构更新后缓存反序列化的问题。
-                try {
-                    return this.deserializeData(
-                            cacheHashData.getSerializer(),
-                            clazz,
-                            cacheHashData.getData(),
-                            cacheHashData.isCompressed());
-                } catch (RuntimeException ex) {
-                    this.remove(key, region);
-                    return null;
+            }
+            pipeline.sync();
+
+            Pipeline followUp = null;
+            List<String> invalidKeys = new ArrayList<>();
+            for (int i = 0; i < responses.size(); i++) {
+                List<String> hashResult = responses.get(i).get();
+                if (hashResult == null || hashResult.stream().allMatch(Objects::isNull)) {
+                    continue;
                 }
+                String[] arrays = new String[hashResult.size()];
+                hashResult.toArray(arrays);
+                String fullKey = fullKeys.get(i);
+
+                Optional<Long>[] values = MapMetadata(arrays);
+                Long expr = this.getRefreshExpiration(values[0], values[1]);
+                if (expr != null) {
+                    if (followUp == null) {
+                        followUp = jedis.pipelined();
+                    }
+                    followUp.expire(fullKey, (int) (expr / 1000));
+                }
+                CacheHashData data = toCacheHashData(arrays);
+                if (data != null) {
+                    Object value = this.readCacheData(data, keyList.get(i), region, () -> invalidKeys.add(fullKey));
+                    if (value != null) {
+                        result.put(keyList.get(i), mapper.apply(value, withTimeToLive ? ttls.get(i).get() : null));
+                    }
+                }
+            }
+            if (!invalidKeys.isEmpty()) {
+                if (followUp == null) {
+                    followUp = jedis.pipelined();
+                }
+                followUp.del(invalidKeys.toArray(new String[invalidKeys.size()]));
+            }
+            if (followUp != null) {
+                followUp.sync();
+            }
+        } catch (JedisException e) {
+            this.getLogger().error(String.format("从 redis 中批量获取数据失败 ( region: %s )。", region), e);
+        }
+        if (recordStats) {
+            this.recordAccess(region, result.size(), keyList.size() - result.size());
+        }
+        return result;
+    }
+
+    /**
+     * 批量添加缓存，使用一个连接通过 pipeline 发送所有的写入脚本。
+     */
+    @Override
+    public void setAll(Map<String, ?> data, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        Guard.argumentNotNull(data, "data");
+        if (data.isEmpty()) {
+            return;
+        }
+        List<String[]> arguments = new ArrayList<>(data.size());
+        List<String> removedKeys = new ArrayList<>();
+        for (Map.Entry<String, ?> kv : data.entrySet()) {
+            this.validateKey(kv.getKey());
+            Object value = kv.getValue();
+            if (value == null) {
+                removedKeys.add(this.GetFullKey(region, kv.getKey()));
+            } else if (value.getClass().equals(Object.class)) {
+                this.getLogger().warn("放入缓存的对象类型为 Object, 已被忽略。");
+            } else {
+                arguments.add(this.createSetArguments(kv.getKey(), region, value, timeoutMilliseconds, useSlidingExpiration));
+            }
+        }
+        try (Jedis jedis = this.createCommand(Jedis.class)) {
+            String script = arguments.isEmpty() ? null : jedis.scriptLoad(SET_SCRIPT);
+            Pipeline pipeline = jedis.pipelined();
+            for (String[] values : arguments) {
+                pipeline.evalsha(script, 1, values);
+            }
+            if (!removedKeys.isEmpty()) {
+                pipeline.del(removedKeys.toArray(new String[removedKeys.size()]));
+            }
+            pipeline.sync();
+        } catch (JedisException ex) {
+            this.getLogger().error("批量添加缓存时发生错误。", ex);
+        }
+    }
+
+    /**
+     * 批量获取缓存项，缓存中不存在的键与正在进行中的加载（包括 getOrSet）去重后，通过一次 batchLoader 调用创建并批量写入缓存（去重仅在当前 JVM 内有效）。
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAllOrSet(Collection<String> keys, Function<Set<String>, Map<String, T>> batchLoader, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        if (batchLoader == null) {
+            throw new IllegalArgumentException("ICacheManager.getAllOrSet 参数 batchLoader 不能为空。");
+        }
+        Map<String, T> result = new HashMap<>((Map<String, T>) (Map<String, ?>) this.getAll(keys, region));
+        Map<String, String> missing = new HashMap<>();
+        for (String key : keys) {
+            if (!result.containsKey(key)) {
+                missing.put(this.GetFullKey(region, key), key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        Map<String, T> loaded = this.loads.executeAll(missing.keySet(), owned -> {
+            Set<String> ownedKeys = new LinkedHashSet<>();
+            for (String fullKey : owned) {
+                ownedKeys.add(missing.get(fullKey));
+            }
+            //等待加载期间其他线程可能已经写入了缓存。
+            Map<String, T> values = (Map<String, T>) (Map<String, ?>) this.getAllCore(ownedKeys, region, false, false, (value, ttl) -> value);
+            ownedKeys.removeAll(values.keySet());
+            if (!ownedKeys.isEmpty()) {
+                Map<String, T> created = this.getStatsCounter().recordLoad(this.getRegionName(region),
+                        () -> CacheLoadUtil.loadMissing(ownedKeys, batchLoader));
+                if (!created.isEmpty()) {
+                    this.setAll(created, timeoutMilliseconds, region, useSlidingExpiration);
+                    values.putAll(created);
+                }
+            }
+            Map<String, T> byFullKey = new HashMap<>(Math.max(16, values.size() * 2));
+            for (Map.Entry<String, T> kv : values.entrySet()) {
+                byFullKey.put(this.GetFullKey(region, kv.getKey()), kv.getValue());
+            }
+            return byFullKey;
+        });
+        for (Map.Entry<String, T> kv : loaded.entrySet()) {
+            result.put(missing.get(kv.getKey()), kv.getValue());
+        }
+        return result;
+    }
 
+    /**
+     * 批量移除缓存，所有的键通过一条 DEL 命令删除。
+     */
+    @Override
+    public void removeAll(Collection<String> keys, String region) {
+        Guard.argumentNotNull(keys, "keys");
+        if (keys.isEmpty()) {
+            return;
+        }
+        String[] fullKeys = new String[keys.size()];
+        int i = 0;
+        for (String key : keys) {
+            this.validateKey(key);
+            fullKeys[i++] = this.GetFullKey(region, key);
+        }
+        try (Jedis jedis = this.createCommand(Jedis.class)) {
+            jedis.del(fullKeys);
+        } catch (JedisException ex) {
+            this.getLogger().warn(String.format("批量移除缓存时 Redis 发生错误 ( region: %s )。", region), ex);
+        }
+    }
+
+    /**
+     * 异步添加缓存，数据在调用线程上序列化，命令通过 pipeline 批量发送到 Redis。
+     */
+    @Override
+    public CompletableFuture<Void> setAsync(String key, Object data, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        this.validateKey(key);
+        if (data == null) {
+            return this.removeAsync(key, region);
+        }
+        if (data.getClass().equals(Object.class)) {
+            this.getLogger().warn("放入缓存的对象类型为 Object, 已被忽略。");
+            return CompletableFuture.completedFuture(null);
+        }
+        byte[][] values = SafeEncoder.encodeMany(this.createSetArguments(key, region, data, timeoutMilliseconds, useSlidingExpiration));
+        return this.getPipelineBatcher().<Object, Void>submit(p -> p.eval(SET_SCRIPT_BYTES, 1, values), r -> {
+            if (r == null) {
+                this.getLogger().error(String.format("添加缓存时 redis 缓存返回了错误的结果 (  key: %s, region: %s )。", key, region));
+            }
+            return null;
+        }).exceptionally(ex -> this.handleAsyncFailure(ex, null, "添加缓存时发生错误。"));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAsync(String key, String region) {
+        this.validateKey(key);
+        String fullKey = this.GetFullKey(region, key);
+        return this.getPipelineBatcher().<Long, Void>submit(p -> p.del(fullKey), r -> null)
+                .exceptionally(ex -> this.handleAsyncFailure(ex, null,
+                        String.format("移除缓存时 Redis 发生错误 ( key: %s, region: %s )。", key, region)));
+    }
+
+    /**
+     * 获取缓存，不存在时使用工厂方法创建；缓存写入时间（哈希字段 wrt）超过 refreshAfterWriteMilliseconds 后，
+     * 立即返回当前的值并在后台调用工厂方法重新写入（同一个键在当前 JVM 内同一时间只有一次后台刷新）。
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getOrSet(String key, Function<String, T> factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration, Long refreshAfterWriteMilliseconds) {
+        if (refreshAfterWriteMilliseconds == null || refreshAfterWriteMilliseconds <= 0) {
+            return this.getOrSet(key, factory, timeoutMilliseconds, region, useSlidingExpiration);
+        }
+        if (factory == null) {
+            throw new IllegalArgumentException("ICacheManager.getOrSet 参数 factory 不能为空。");
+        }
+        this.validateKey(key);
+        String fullKey = this.GetFullKey(region, key);
+
+        Object data = null;
+        Long writeTime = null;
+        try (Jedis jedis = super.createCommand(Jedis.class)) {
+            Optional<CacheHashData> hashData = this.getAndRefresh(jedis, fullKey, true);
+            if (hashData.isPresent()) {
+                data = this.readCacheData(hashData.get(), key, region, () -> this.remove(key, region));
+                writeTime = hashData.get().getWriteTime();
             }
         } catch (JedisException e) {
             this.getLogger().error(String.format("从 redis 中获取数据失败 ( key: %s, region: %s )。", key, region), e);
         }
-        return null;
+        this.recordAccess(region, data != null ? 1 : 0, data != null ? 0 : 1);
+        if (data == null) {
+            return this.load(key, factory, timeoutMilliseconds, region, useSlidingExpiration);
+        }
+
+        if (writeTime != null
+                && System.currentTimeMillis() - writeTime >= refreshAfterWriteMilliseconds
+                && this.refreshing.add(fullKey)) {
+            try {
+                this.getRefreshExecutor().execute(() -> {
+                    try {
+                        T value = this.getStatsCounter().recordLoad(this.getRegionName(region), () -> factory.apply(key));
+                        if (value != null) {
+                            this.set(key, value, timeoutMilliseconds, region, useSlidingExpiration);
+                        }
+                    } catch (RuntimeException ex) {
+                        this.getLogger().warn(String.format("后台刷新缓存失败，继续使用当前的值 ( key: %s, region: %s )。", key, region), ex);
+                    } finally {
+                        this.refreshing.remove(fullKey);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                this.refreshing.remove(fullKey);
+            }
+        }
+        return (T) data;
+    }
+
+    /**
+     * 异步获取缓存，不存在时使用异步工厂方法创建并加入缓存，同一个键的并发调用共享同一次加载（仅在当前 JVM 内有效）。
+     */
+    @Override
+    public <T> CompletableFuture<T> getOrSetAsync(String key, Function<String, CompletionStage<T>> factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        if (factory == null) {
+            throw new IllegalArgumentException("ICacheManager.getOrSetAsync 参数 factory 不能为空。");
+        }
+        return this.loads.executeAsync(this.GetFullKey(region, key),
+                () -> super.getOrSetAsync(key, factory, timeoutMilliseconds, region, useSlidingExpiration));
+    }
+
+    //与同步 API 保持一致：Redis 错误只记录日志并按缓存未命中处理，其他异常继续传递。
+    private <T> T handleAsyncFailure(Throwable ex, T fallback, String message) {
+        Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+        if (cause instanceof JedisException) {
+            this.getLogger().error(message, cause);
+            return fallback;
+        }
+        throw (ex instanceof CompletionException) ? (CompletionException) ex : new CompletionException(cause);
     }
 
     @Override
@@ -237,6 +682,34 @@ public class SingleRedisCacheManager extends RedisCacheManager {
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getOrSet(String key, Function<String, T> factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        if (factory == null) {
+            throw new IllegalArgumentException("ICacheManager.getOrSet 参数 factory 不能为空。");
+        }
+        Object data = this.get(key, region);
+        if (data == null) {
+            data = this.load(key, factory, timeoutMilliseconds, region, useSlidingExpiration);
+        }
+        return (T) data;
+    }
+
+    //未命中时加载并写入缓存，同一个键的并发加载只执行一次工厂方法（仅在当前 JVM 内有效）。
+    @SuppressWarnings("unchecked")
+    private <T> T load(String key, Function<String, T> factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        return this.loads.execute(this.GetFullKey(region, key), () -> {
+            T value = (T) this.getCore(key, region, false);
+            if (value == null) {
+                value = this.getStatsCounter().recordLoad(this.getRegionName(region), () -> factory.apply(key));
+                if (value != null) {
+                    this.set(key, value, timeoutMilliseconds, region, useSlidingExpiration);
+                }
+            }
+            return value;
+        });
+    }
+
     @Override
     public void remove(String key, String region) {
         this.validateKey(key);
@@ -292,4 +765,30 @@ public class SingleRedisCacheManager extends RedisCacheManager {
             this.getLogger().error("清理缓存时发生错误。", ex);
         }
     }
+
+    /**
+     * 缓存值和读取时 Redis 中剩余的生存时间。
+     */
+    static final class TimedValue {
+        private final Object value;
+        private final long timeToLiveMilliseconds;
+
+        TimedValue(Object value, Long pttl) {
+            this.value = value;
+            //PTTL 返回 -2 表示键在 HMGET 之后已经过期。
+            this.timeToLiveMilliseconds = pttl == null ? NOT_PRESENT : (pttl == -2 ? 0 : pttl);
+        }
+
+        Object getValue() {
+            return value;
+        }
+
+        /**
+         * 获取剩余的生存时间（毫秒），小于 0 表示没有过期时间。
+         * @return
+         */
+        long getTimeToLiveMilliseconds() {
+            return timeToLiveMilliseconds;
+        }
+    }
 }
@@ -0,0 +1,414 @@
+package com.labijie.caching.redis;
+
+import com.labijie.caching.CacheManagerMXBeanAdapter;
+import com.labijie.caching.CacheStats;
+import com.labijie.caching.Guard;
+import com.labijie.caching.ICacheManager;
+import com.labijie.caching.JmxUtil;
+import com.labijie.caching.SingleFlight;
+import com.labijie.caching.StatsCounter;
+import com.labijie.caching.StringUtil;
+import com.labijie.caching.memory.MemoryCacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 二级缓存：读取时先查本地 MemoryCacheManager，未命中时从 Redis 读取并在本地保留一份副本。
+ * 本地副本的过期时间不超过 Redis 中剩余的生存时间（PTTL）和 {@link TwoLevelCacheOptions#getLocalTimeoutMilliseconds()}。
+ * 写入和移除先更新 Redis 再更新本地，然后通过 Redis pub/sub 发布失效消息，其他节点收到后移除各自的本地副本。
+ * 注意：本地命中不会续期 Redis 中的滑动过期时间；订阅断开期间可能错过失效消息，重新订阅时会清空本地缓存。
+ */
+public class TwoLevelCacheManager implements ICacheManager, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private static final String MESSAGE_SEPARATOR = "\n";
+    private static final String INVALIDATE_KEYS = "K";
+    private static final String INVALIDATE_REGION = "R";
+    private static final String INVALIDATE_ALL = "A";
+
+    private final MemoryCacheManager local;
+    private final SingleRedisCacheManager remote;
+    private final TwoLevelCacheOptions options;
+    //用于忽略本节点自己发布的失效消息。
+    private final String nodeId;
+    //本地写入、移除和收到失效消息的次数，从 Redis 读取期间发生变化时不保留读到的本地副本（可能已经过时）。
+    private final AtomicLong modifications;
+    private final SingleFlight<String> loads = new SingleFlight<>();
+    //二级缓存整体的统计（本地或 Redis 命中都算命中），两级各自的统计由各自的 options 控制。
+    private final StatsCounter statsCounter;
+    private final Thread subscriber;
+    private final ObjectName objectName;
+    private volatile InvalidationListener listener;
+    private volatile boolean closed;
+
+    public TwoLevelCacheManager(MemoryCacheManager local, SingleRedisCacheManager remote, TwoLevelCacheOptions options) {
+        Guard.argumentNotNull(local, "local");
+        Guard.argumentNotNull(remote, "remote");
+        this.local = local;
+        this.remote = remote;
+        this.options = options == null ? new TwoLevelCacheOptions() : options;
+        this.nodeId = UUID.randomUUID().toString();
+        this.modifications = new AtomicLong();
+        this.statsCounter = StatsCounter.create(this.options.isRecordStats());
+        String name = StringUtil.isNullOrWhiteSpace(this.options.getName()) ? JmxUtil.nextName("TwoLevelCacheManager") : this.options.getName().trim();
+        this.objectName = this.options.isJmxEnabled() ? JmxUtil.register("TwoLevelCacheManager", name, new CacheManagerMXBeanAdapter(this)) : null;
+        this.subscriber = new Thread(this::listen, "redis-cache-invalidation");
+        this.subscriber.setDaemon(true);
+        this.subscriber.start();
+    }
+
+    @Override
+    public Object get(String key, String region) {
+        return this.getCore(key, region, true);
+    }
+
+    private Object getCore(String key, String region, boolean recordStats) {
+        Object value = this.local.get(key, region);
+        if (value == null) {
+            long stamp = this.modifications.get();
+            SingleRedisCacheManager.TimedValue data = this.remote.getWithTimeToLive(key, region);
+            if (data != null) {
+                this.setLocal(key, data.getValue(), data.getTimeToLiveMilliseconds(), region, stamp);
+                value = data.getValue();
+            }
+        }
+        if (recordStats) {
+            if (value != null) {
+                this.statsCounter.recordHits(getRegionName(region), 1);
+            } else {
+                this.statsCounter.recordMisses(getRegionName(region), 1);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void set(String key, Object data, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        if (data == null) {
+            this.remove(key, region);
+            return;
+        }
+        this.remote.set(key, data, timeoutMilliseconds, region, useSlidingExpiration);
+        if (data.getClass().equals(Object.class)) {
+            return;
+        }
+        this.modifications.incrementAndGet();
+        long timeout = this.getLocalTimeout(timeoutMilliseconds == null ? -1 : timeoutMilliseconds);
+        this.local.set(key, data, timeout, region, false);
+        this.publish(INVALIDATE_KEYS, region, key);
+    }
+
+    @Override
+    public void remove(String key, String region) {
+        this.remote.remove(key, region);
+        this.modifications.incrementAndGet();
+        this.local.remove(key, region);
+        this.publish(INVALIDATE_KEYS, region, key);
+    }
+
+    @Override
+    public boolean refresh(String key, String region) {
+        this.local.refresh(key, region);
+        return this.remote.refresh(key, region);
+    }
+
+    @Override
+    public void clearRegion(String region) {
+        this.remote.clearRegion(region);
+        this.modifications.incrementAndGet();
+        this.local.clearRegion(region);
+        this.publish(INVALIDATE_REGION, region);
+    }
+
+    @Override
+    public void clear() {
+        this.remote.clear();
+        this.modifications.incrementAndGet();
+        this.local.clear();
+        this.publish(INVALIDATE_ALL, null);
+    }
+
+    /**
+     * 获取缓存，不存在时使用工厂方法创建，同一个键的并发调用只会执行一次工厂方法（仅在当前 JVM 内有效）。
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getOrSet(String key, Function<String, T> factory, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        if (factory == null) {
+            throw new IllegalArgumentException("ICacheManager.getOrSet 参数 factory 不能为空。");
+        }
+        Object data = this.get(key, region);
+        if (data == null) {
+            String regionName = getRegionName(region);
+            data = this.loads.execute((regionName == null ? "" : regionName) + MESSAGE_SEPARATOR + key, () -> {
+                Object value = this.getCore(key, region, false);
+                if (value == null) {
+                    value = this.statsCounter.recordLoad(regionName, () -> factory.apply(key));
+                    if (value != null) {
+                        this.set(key, value, timeoutMilliseconds, region, useSlidingExpiration);
+                    }
+                }
+                return value;
+            });
+        }
+        return (T) data;
+    }
+
+    /**
+     * 批量获取缓存，本地未命中的键通过一次 pipeline 从 Redis 读取。
+     */
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys, String region) {
+        Guard.argumentNotNull(keys, "keys");
+        Map<String, Object> result = new HashMap<>(this.local.getAll(keys, region));
+        List<String> missing = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            if (!result.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long stamp = this.modifications.get();
+            Map<String, SingleRedisCacheManager.TimedValue> data = this.remote.getAllWithTimeToLive(missing, region);
+            for (Map.Entry<String, SingleRedisCacheManager.TimedValue> kv : data.entrySet()) {
+                SingleRedisCacheManager.TimedValue value = kv.getValue();
+                this.setLocal(kv.getKey(), value.getValue(), value.getTimeToLiveMilliseconds(), region, stamp);
+                result.put(kv.getKey(), value.getValue());
+            }
+            missing.removeAll(data.keySet());
+        }
+        String regionName = getRegionName(region);
+        this.statsCounter.recordHits(regionName, result.size());
+        this.statsCounter.recordMisses(regionName, missing.size());
+        return result;
+    }
+
+    /**
+     * 获取二级缓存整体的统计信息（需要启用 {@link TwoLevelCacheOptions#setRecordStats(boolean)}）。
+     * 本地缓存和 Redis 各自的统计可以通过 {@link MemoryCacheManager#getStats()} 和 {@link SingleRedisCacheManager#getStats()} 获取。
+     */
+    @Override
+    public CacheStats getStats() {
+        return this.statsCounter.snapshot();
+    }
+
+    @Override
+    public Map<String, CacheStats> getRegionStats() {
+        return this.statsCounter.regionSnapshots();
+    }
+
+    @Override
+    public void setAll(Map<String, ?> data, Long timeoutMilliseconds, String region, boolean useSlidingExpiration) {
+        Guard.argumentNotNull(data, "data");
+        if (data.isEmpty()) {
+            return;
+        }
+        this.remote.setAll(data, timeoutMilliseconds, region, useSlidingExpiration);
+        this.modifications.incrementAndGet();
+        Map<String, Object> localData = new HashMap<>(Math.max(16, data.size() * 2));
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, ?> kv : data.entrySet()) {
+            Object value = kv.getValue();
+            if (value == null) {
+                removed.add(kv.getKey());
+            } else if (!value.getClass().equals(Object.class)) {
+                localData.put(kv.getKey(), value);
+            }
+        }
+        if (!localData.isEmpty()) {
+            long timeout = this.getLocalTimeout(timeoutMilliseconds == null ? -1 : timeoutMilliseconds);
+            this.local.setAll(localData, timeout, region, false);
+        }
+        if (!removed.isEmpty()) {
+            this.local.removeAll(removed, region);
+        }
+        this.publish(INVALIDATE_KEYS, region, data.keySet().toArray(new String[data.size()]));
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys, String region) {
+        Guard.argumentNotNull(keys, "keys");
+        if (keys.isEmpty()) {
+            return;
+        }
+        this.remote.removeAll(keys, region);
+        this.modifications.incrementAndGet();
+        this.local.removeAll(keys, region);
+        this.publish(INVALIDATE_KEYS, region, keys.toArray(new String[keys.size()]));
+    }
+
+    //本地副本使用绝对过期时间，不超过 Redis 中剩余的生存时间；读取期间有其他修改时移除刚写入的副本。
+    private void setLocal(String key, Object value, long remoteTimeToLive, String region, long stamp) {
+        long timeout = this.getLocalTimeout(remoteTimeToLive);
+        if (timeout <= 0) {
+            return;
+        }
+        this.local.set(key, value, timeout, region, false);
+        if (this.modifications.get() != stamp) {
+            this.local.remove(key, region);
+        }
+    }
+
+    //统计使用的区域名称，默认区域为 null（计入统计的默认计数）。
+    private static String getRegionName(String region) {
+        return StringUtil.isNullOrWhiteSpace(region) ? null : region.trim();
+    }
+
+    private long getLocalTimeout(long remoteTimeToLive) {
+        long timeout = this.options.getLocalTimeoutMilliseconds();
+        return remoteTimeToLive < 0 ? timeout : Math.min(timeout, remoteTimeToLive);
+    }
+
+    //失效消息格式：节点标识、消息类型、区域、缓存键（每项一行，区域和缓存键中的换行和反斜杠会被转义）。
+    private void publish(String type, String region, String... keys) {
+        StringBuilder message = new StringBuilder(64);
+        message.append(this.nodeId).append(MESSAGE_SEPARATOR).append(type).append(MESSAGE_SEPARATOR);
+        escape(message, StringUtil.isNullOrWhiteSpace(region) ? "" : region);
+        for (String key : keys) {
+            message.append(MESSAGE_SEPARATOR);
+            escape(message, key);
+        }
+        String channel = this.options.getInvalidationChannel();
+        String payload = message.toString();
+        this.remote.getPipelineBatcher().<Long, Long>submit(p -> p.publish(channel, payload), r -> r)
+                .exceptionally(ex -> {
+                    log.warn("发布缓存失效消息失败，其他节点的本地副本将在过期后失效。", ex);
+                    return null;
+                });
+    }
+
+    private void onInvalidation(String message) {
+        String[] parts = message.split(MESSAGE_SEPARATOR, -1);
+        if (parts.length < 3 || this.nodeId.equals(parts[0])) {
+            return;
+        }
+        String region = parts[2].isEmpty() ? null : unescape(parts[2]);
+        this.modifications.incrementAndGet();
+        switch (parts[1]) {
+            case INVALIDATE_KEYS:
+                List<String> keys = new ArrayList<>(parts.length - 3);
+                for (int i = 3; i < parts.length; i++) {
+                    keys.add(unescape(parts[i]));
+                }
+                this.local.removeAll(keys, region);
+                break;
+            case INVALIDATE_REGION:
+                this.local.clearRegion(region);
+                break;
+            case INVALIDATE_ALL:
+                this.local.clear();
+                break;
+            default:
+                log.warn(String.format("无法识别的缓存失效消息类型：%s。", parts[1]));
+        }
+    }
+
+    private static void escape(StringBuilder builder, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\') {
+                builder.append("\\\\");
+            } else if (c == '\n') {
+                builder.append("\\n");
+            } else {
+                builder.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                builder.append(value.charAt(++i) == 'n' ? '\n' : value.charAt(i));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    //订阅线程：subscribe 会阻塞到取消订阅或连接断开，断开后等待一段时间重新订阅。
+    private void listen() {
+        while (!this.closed) {
+            InvalidationListener current = new InvalidationListener();
+            this.listener = current;
+            try (Jedis jedis = this.remote.createCommand(Jedis.class)) {
+                jedis.subscribe(current, this.options.getInvalidationChannel());
+            } catch (RuntimeException e) {
+                if (this.closed) {
+                    break;
+                }
+                log.warn("订阅缓存失效消息失败，稍后重新订阅。", e);
+            }
+            try {
+                Thread.sleep(this.options.getResubscribeDelayMilliseconds());
+            } catch (InterruptedException e) {
+                if (this.closed) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!this.closed) {
+            this.closed = true;
+            JmxUtil.unregister(this.objectName);
+            InvalidationListener current = this.listener;
+            if (current != null && current.isSubscribed()) {
+                try {
+                    current.unsubscribe();
+                } catch (RuntimeException e) {
+                    log.warn("取消订阅缓存失效消息失败。", e);
+                }
+            }
+            this.subscriber.interrupt();
+        }
+    }
+
+    private final class InvalidationListener extends JedisPubSub {
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            //close 在订阅回复到达之前执行时 isSubscribed 仍然为 false，close 无法取消订阅（interrupt 也不能唤醒阻塞的读取），由订阅线程在这里取消。
+            if (closed) {
+                this.unsubscribe();
+                return;
+            }
+            //订阅建立之前（包括断开重连期间）的失效消息已经无法收到，清空本地缓存。
+            modifications.incrementAndGet();
+            local.clear();
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            //关闭后到取消订阅回复到达之前收到的消息不再处理。
+            if (closed) {
+                return;
+            }
+            try {
+                onInvalidation(message);
+            } catch (RuntimeException e) {
+                log.warn(String.format("处理缓存失效消息失败：%s。", message), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.labijie.caching.redis;
+
+import com.labijie.caching.StringUtil;
+
+/**
+ * 二级缓存（本地 MemoryCacheManager + Redis）的配置。
+ */
+public class TwoLevelCacheOptions {
+    private String invalidationChannel = "labijie-caching:invalidation";
+    private long localTimeoutMilliseconds = 5 * 60 * 1000L;
+    private long resubscribeDelayMilliseconds = 1000L;
+    private boolean recordStats;
+    private String name;
+    private boolean jmxEnabled;
+
+    /**
+     * 获取发布失效消息的 Redis 频道。
+     * @return
+     */
+    public String getInvalidationChannel() {
+        return invalidationChannel;
+    }
+
+    /**
+     * 设置发布失效消息的 Redis 频道，共享同一个 Redis 的所有节点必须使用相同的频道。
+     * @param invalidationChannel
+     */
+    public void setInvalidationChannel(String invalidationChannel) {
+        if (StringUtil.isNullOrWhiteSpace(invalidationChannel)) {
+            throw new IllegalArgumentException("TwoLevelCacheOptions.setInvalidationChannel 参数 invalidationChannel 不能为空。");
+        }
+        this.invalidationChannel = invalidationChannel.trim();
+    }
+
+    /**
+     * 获取本地副本的最长保留时间（毫秒）。
+     * @return
+     */
+    public long getLocalTimeoutMilliseconds() {
+        return localTimeoutMilliseconds;
+    }
+
+    /**
+     * 设置本地副本的最长保留时间（毫秒），本地副本同时不会超过 Redis 中剩余的生存时间。
+     * 失效消息丢失（例如订阅断开）时，节点最多在这段时间内读到旧值。
+     * @param localTimeoutMilliseconds
+     */
+    public void setLocalTimeoutMilliseconds(long localTimeoutMilliseconds) {
+        if (localTimeoutMilliseconds <= 0) {
+            throw new IllegalArgumentException("TwoLevelCacheOptions.setLocalTimeoutMilliseconds 参数 localTimeoutMilliseconds 必须大于 0。");
+        }
+        this.localTimeoutMilliseconds = localTimeoutMilliseconds;
+    }
+
+    /**
+     * 获取订阅断开后重新订阅的等待时间（毫秒）。
+     * @return
+     */
+    public long getResubscribeDelayMilliseconds() {
+        return resubscribeDelayMilliseconds;
+    }
+
+    /**
+     * 设置订阅断开后重新订阅的等待时间（毫秒）。
+     * @param resubscribeDelayMilliseconds
+     */
+    public void setResubscribeDelayMilliseconds(long resubscribeDelayMilliseconds) {
+        if (resubscribeDelayMilliseconds < 0) {
+            throw new IllegalArgumentException("TwoLevelCacheOptions.setResubscribeDelayMilliseconds 参数 resubscribeDelayMilliseconds 不能小于 0。");
+        }
+        this.resubscribeDelayMilliseconds = resubscribeDelayMilliseconds;
+    }
+
+    public boolean isRecordStats() {
+        return recordStats;
+    }
+
+    /**
+     * 设置是否记录二级缓存整体的统计信息（命中、未命中和加载），默认不记录。
+     * @param recordStats
+     */
+    public void setRecordStats(boolean recordStats) {
+        this.recordStats = recordStats;
+    }
+
+    /**
+     * 获取缓存名称。
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 设置缓存名称（用作 JMX ObjectName 中的 name），未设置时自动生成（TwoLevelCacheManager-序号）。
+     * @param name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 是否注册 JMX MBean。
+     * @return
+     */
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    /**
+     * 设置是否在创建 TwoLevelCacheManager 时注册 JMX MBean（CacheManagerMXBean），调用 close 时注销，默认不注册。
+     * @param jmxEnabled
+     */
+    public void setJmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
+}
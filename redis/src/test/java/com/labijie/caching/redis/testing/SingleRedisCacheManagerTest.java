@@ -1,11 +1,21 @@
 package com.labijie.caching.redis.testing;
 
+import com.labijie.caching.CacheStats;
+import com.labijie.caching.JmxUtil;
 import com.labijie.caching.redis.*;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 public class SingleRedisCacheManagerTest {
     private SingleRedisCacheManager cache;
 
@@ -67,6 +77,97 @@ public class SingleRedisCacheManagerTest {
         Assert.assertEquals("get 方法取到的值和 set 放入的值不一致。", val, cache.get("e", ""));
     }
 
+    /**
+     * Method: setAsync / getAsync / removeAsync（通过 pipeline 批量发送）
+     */
+    @Test
+    public void testAsync() throws Exception {
+        Long val = 200L;
+        cache.setAsync("async", val, 5000L, "region1", false).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("setAsync 放入的值和 get 取到的值不一致。", val, cache.get("async", "region1"));
+        Assert.assertEquals(val, cache.getAsync("async", "region1").get(5, TimeUnit.SECONDS));
+
+        cache.removeAsync("async", "region1").get(5, TimeUnit.SECONDS);
+        Assert.assertNull("removeAsync 方法未生效。", cache.get("async", "region1"));
+    }
+
+    /**
+     * Method: setAll / getAll / removeAll（通过 pipeline 批量发送）
+     */
+    @Test
+    public void testBatch() throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("a", 1L);
+        data.put("b", "text");
+        data.put("c", 3L);
+        cache.setAll(data, 5000L, "region1", false);
+        cache.setAll(data, null, "region2", true);
+
+        Map<String, Object> values = cache.getAll(Arrays.asList("a", "b", "c", "d"), "region1");
+        Assert.assertEquals("getAll 取到的值和 setAll 放入的值不一致。", data, values);
+        Assert.assertEquals(data, cache.getAll(Arrays.asList("a", "b", "c"), "region2"));
+        Assert.assertTrue(cache.getAll(Arrays.asList("a", "b"), "region3").isEmpty());
+
+        Map<String, Object> removal = new HashMap<>();
+        removal.put("c", null);
+        cache.setAll(removal, null, "region1", false);
+        Assert.assertNull("setAll 中值为 null 的键应该被移除。", cache.get("c", "region1"));
+
+        cache.removeAll(Arrays.asList("a", "b"), "region1");
+        Assert.assertTrue("removeAll 方法未生效。", cache.getAll(Arrays.asList("a", "b", "c"), "region1").isEmpty());
+        Assert.assertEquals("removeAll 移除了其他区域的缓存。", 3, cache.getAll(Arrays.asList("a", "b", "c"), "region2").size());
+    }
+
+    /**
+     * Method: getStats / getRegionStats
+     */
+    @Test
+    public void testStats() throws Exception {
+        RedisCacheOptions options = new RedisCacheOptions();
+        options.setServer("127.0.0.1:6379");
+        options.setRecordStats(true);
+        try (SingleRedisCacheManager manager = new SingleRedisCacheManager(options)) {
+            Assert.assertNull(manager.get("a", "stats"));
+            Assert.assertEquals("v", manager.getOrSet("a", key -> "v", 5000L, "stats", false));
+            Assert.assertEquals("v", manager.get("a", "stats"));
+            Assert.assertEquals(1, manager.getAll(Arrays.asList("a", "b"), "stats").size());
+            Assert.assertNull(manager.getOrSet("c", key -> null, 5000L, "other", false));
+
+            CacheStats stats = manager.getStats();
+            Assert.assertEquals(2, stats.getHitCount());
+            Assert.assertEquals(4, stats.getMissCount());
+            Assert.assertEquals(1, stats.getLoadSuccessCount());
+            Assert.assertEquals(1, stats.getLoadFailureCount());
+            Assert.assertEquals(2, manager.getRegionStats().get("stats").getHitCount());
+            Assert.assertEquals(3, manager.getRegionStats().get("stats").getMissCount());
+            Assert.assertEquals(1, manager.getRegionStats().get("other").getMissCount());
+        }
+    }
+
+    /**
+     * Method: JMX MBean 的注册和注销
+     */
+    @Test
+    public void testJmx() throws Exception {
+        RedisCacheOptions options = new RedisCacheOptions();
+        options.setServer("127.0.0.1:6379");
+        options.setRecordStats(true);
+        options.setJmxEnabled(true);
+        options.setName("jmx-test");
+        ObjectName name = new ObjectName(JmxUtil.DOMAIN + ":type=\"RedisCacheManager\",name=\"jmx-test\"");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try (SingleRedisCacheManager manager = new SingleRedisCacheManager(options)) {
+            Assert.assertTrue("启用 JMX 后应该注册 MBean。", server.isRegistered(name));
+            manager.set("a", 1L, null, "jmx", false);
+            Assert.assertEquals(1L, manager.get("a", "jmx"));
+            Assert.assertEquals(1L, server.getAttribute(name, "HitCount"));
+
+            server.invoke(name, "clearRegion", new Object[]{"jmx"}, new String[]{String.class.getName()});
+            Assert.assertNull("通过 MBean 清除区域未生效。", manager.get("a", "jmx"));
+        }
+        Assert.assertFalse("close 后应该注销 MBean。", server.isRegistered(name));
+    }
+
     /**
      * Method: remove(String key, String region)
      */
@@ -0,0 +1,95 @@
+package com.labijie.caching.redis.testing;
+
+import com.labijie.caching.memory.MemoryCacheManager;
+import com.labijie.caching.memory.MemoryCacheOptions;
+import com.labijie.caching.redis.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TwoLevelCacheManagerTest {
+    private SingleRedisCacheManager redis;
+    private TwoLevelCacheManager node1;
+    private TwoLevelCacheManager node2;
+
+    @Before
+    public void before() throws Exception {
+        RedisCacheOptions options = new RedisCacheOptions();
+        options.setServer("127.0.0.1:6379");
+        this.redis = new SingleRedisCacheManager(options);
+        this.node1 = new TwoLevelCacheManager(new MemoryCacheManager(new MemoryCacheOptions()), this.redis, new TwoLevelCacheOptions());
+        this.node2 = new TwoLevelCacheManager(new MemoryCacheManager(new MemoryCacheOptions()), this.redis, new TwoLevelCacheOptions());
+        //等待订阅建立。
+        Thread.sleep(500L);
+    }
+
+    @After
+    public void after() throws Exception {
+        this.node1.close();
+        this.node2.close();
+        this.redis.clear();
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        node1.set("a", "v1", null, "two-level", false);
+        Assert.assertEquals("v1", node2.get("a", "two-level"));
+
+        node1.set("a", "v2", null, "two-level", false);
+        waitFor(() -> "v2".equals(node2.get("a", "two-level")));
+        Assert.assertEquals("写入后其他节点的本地副本未失效。", "v2", node2.get("a", "two-level"));
+
+        node2.remove("a", "two-level");
+        waitFor(() -> node1.get("a", "two-level") == null);
+        Assert.assertNull("移除后其他节点的本地副本未失效。", node1.get("a", "two-level"));
+    }
+
+    @Test
+    public void testLocalTimeoutCappedByRedis() throws Exception {
+        redis.set("b", "v", 1000L, "two-level", false);
+        Assert.assertEquals("v", node1.get("b", "two-level"));
+        Thread.sleep(1500L);
+        Assert.assertNull("本地副本的过期时间超过了 Redis 中剩余的生存时间。", node1.get("b", "two-level"));
+    }
+
+    @Test
+    public void testBatchInvalidation() throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("a", "v1");
+        data.put("b", "v1");
+        node1.setAll(data, 5000L, "two-level", false);
+        Assert.assertEquals(data, node2.getAll(Arrays.asList("a", "b", "c"), "two-level"));
+
+        data.put("a", "v2");
+        data.put("b", "v2");
+        node1.setAll(data, 5000L, "two-level", false);
+        waitFor(() -> data.equals(node2.getAll(Arrays.asList("a", "b"), "two-level")));
+        Assert.assertEquals("批量写入后其他节点的本地副本未失效。", data, node2.getAll(Arrays.asList("a", "b"), "two-level"));
+
+        node2.removeAll(Arrays.asList("a", "b"), "two-level");
+        waitFor(() -> node1.getAll(Arrays.asList("a", "b"), "two-level").isEmpty());
+        Assert.assertTrue("批量移除后其他节点的本地副本未失效。", node1.getAll(Arrays.asList("a", "b"), "two-level").isEmpty());
+    }
+
+    @Test
+    public void testBatchLocalTimeoutCappedByRedis() throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("c", "v");
+        data.put("d", "v");
+        redis.setAll(data, 1000L, "two-level", false);
+        Assert.assertEquals(data, node1.getAll(Arrays.asList("c", "d"), "two-level"));
+        Thread.sleep(1500L);
+        Assert.assertTrue("本地副本的过期时间超过了 Redis 中剩余的生存时间。", node1.getAll(Arrays.asList("c", "d"), "two-level").isEmpty());
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 50 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(100L);
+        }
+    }
+}